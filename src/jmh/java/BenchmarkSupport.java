@@ -0,0 +1,113 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Entry points the benchmarks call. JMH refuses benchmark classes in the default package and
+ * named packages cannot import it, so the benchmarks in {@code benchmarks} bind to these
+ * methods through method handles; every argument and result is typed {@code Object} to keep
+ * the handles exact.
+ */
+public final class BenchmarkSupport {
+
+    public static final LocalDate START_DATE = LocalDate.of(2023, 10, 30);
+    private static final LocalDateTime START = START_DATE.atStartOfDay();
+
+    private BenchmarkSupport() {
+    }
+
+    public static Object plan(String shape, int size, double density, long seed) {
+        return PlanGenerator.generate(PlanGenerator.Shape.valueOf(shape), size, density, seed);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static Object csv(Object plan) {
+        return PlanGenerator.toCsv((List<Task>) plan);
+    }
+
+    public static Object read(Object path) throws IOException {
+        return new TaskFileReader(Runtime.getRuntime().availableProcessors()).read((Path) path);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static Object graph(Object plan) {
+        return TaskGraph.of((List<Task>) plan);
+    }
+
+    /**
+     * @return the scheduled {@link ScheduleStore}
+     */
+    public static Object schedule(Object graph) {
+        ScheduleStore store = ScheduleStore.of((TaskGraph) graph, WorkingCalendar.DEFAULT);
+        store.schedule(START_DATE, null, Integer.MAX_VALUE);
+        return store;
+    }
+
+    public static Object scheduleParallel(Object graph) {
+        ScheduleStore store = ScheduleStore.of((TaskGraph) graph, WorkingCalendar.DEFAULT);
+        store.schedule(START_DATE, ForkJoinPool.commonPool(), 0);
+        return store;
+    }
+
+    /**
+     * @return copies of the tasks of a scheduled store with their dates
+     */
+    public static Object scheduledTasks(Object store) {
+        ScheduleStore scheduled = (ScheduleStore) store;
+        List<Task> tasks = new ArrayList<>(scheduled.getGraph().taskCount());
+        for (int node = 0; node < scheduled.getGraph().taskCount(); node++) {
+            tasks.add(scheduled.toTask(node));
+        }
+        return tasks;
+    }
+
+    /**
+     * The per-task date arithmetic of the forward pass: a start date plus the nominal duration
+     * on the working calendar.
+     */
+    public static Object computeEnd(Object task) {
+        Task t = (Task) task;
+        t.setStartAndEndDate(START);
+        return t.getEnd();
+    }
+
+    public static Object toCSVLine(Object task) {
+        return ((Task) task).toCSVLine();
+    }
+
+    public static Object write(Object store) throws IOException {
+        DiscardingChannel channel = new DiscardingChannel();
+        try (ScheduleWriter writer = new ScheduleWriter(channel)) {
+            writer.writeSchedule((ScheduleStore) store);
+        }
+        return channel.written;
+    }
+
+    private static final class DiscardingChannel implements WritableByteChannel {
+
+        private long written;
+
+        @Override
+        public int write(ByteBuffer source) {
+            int remaining = source.remaining();
+            source.position(source.limit());
+            written += remaining;
+            return remaining;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
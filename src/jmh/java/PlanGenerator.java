@@ -0,0 +1,124 @@
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Synthetic plans for the benchmarks. Ids are 1..size, durations and estimates are random but
+ * reproducible for a given seed. Durations are a few hours, so that even a chain of a few
+ * hundred thousand tasks ends within the range of the {@link WorkingCalendar}.
+ */
+public final class PlanGenerator {
+
+    public enum Shape {
+        /**
+         * every task depends on the previous one
+         */
+        CHAIN,
+        /**
+         * every task depends on the first one
+         */
+        FAN_OUT,
+        /**
+         * every task depends on about {@code density} random earlier tasks
+         */
+        RANDOM,
+        /**
+         * like {@link #RANDOM}, with an {@code "all"} milestone every 100 tasks; as {@code "all"}
+         * covers every other task, nothing depends on the milestones
+         */
+        MILESTONES
+    }
+
+    private static final int MILESTONE_INTERVAL = 100;
+
+    private PlanGenerator() {
+    }
+
+    public static List<Task> generate(Shape shape, int size, double density, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Task> tasks = new ArrayList<>(size);
+        StringBuilder dependencies = new StringBuilder();
+        for (int id = 1; id <= size; id++) {
+            dependencies.setLength(0);
+            if (id > 1) {
+                switch (shape) {
+                    case CHAIN -> dependencies.append(id - 1);
+                    case FAN_OUT -> dependencies.append(1);
+                    case MILESTONES -> {
+                        if (id % MILESTONE_INTERVAL == 0) {
+                            dependencies.append(TopologicalScheduler.ALL_DEPENDENCIES);
+                        } else {
+                            appendRandomDependencies(dependencies, id, density, MILESTONE_INTERVAL, random);
+                        }
+                    }
+                    case RANDOM -> appendRandomDependencies(dependencies, id, density, 0, random);
+                }
+            }
+            tasks.add(randomTask(String.valueOf(id), dependencies.toString(), random));
+        }
+        return tasks;
+    }
+
+    /**
+     * @return the plan in the input format read by {@link TaskFileReader}
+     */
+    public static byte[] toCsv(List<Task> tasks) {
+        StringBuilder csv = new StringBuilder(tasks.size() * 32);
+        csv.append("Task,Dependencies,Duration,Min,Max\n");
+        for (Task task : tasks) {
+            csv.append(task.getId()).append(TaskScheduler.SEPARATOR);
+            if (task.getDependencies().contains(TaskScheduler.SEPARATOR)) {
+                csv.append('"').append(task.getDependencies()).append('"');
+            } else {
+                csv.append(task.getDependencies());
+            }
+            csv.append(TaskScheduler.SEPARATOR).append(task.getDuration())
+                    .append(TaskScheduler.SEPARATOR).append(task.getMinDuration())
+                    .append(TaskScheduler.SEPARATOR).append(task.getMaxDuration())
+                    .append('\n');
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param skipInterval ids that are a multiple of it are never picked, unless it is 0
+     */
+    private static void appendRandomDependencies(StringBuilder dependencies, int id, double density, int skipInterval,
+                                                 SplittableRandom random) {
+        // between 1 and 2 * density distinct dependencies, drawn from the previous tasks
+        int count = Math.min(id - 1, 1 + random.nextInt(Math.max(1, (int) Math.round(2 * density))));
+        int[] chosen = new int[count];
+        int chosenCount = 0;
+        for (int i = 0; i < count; i++) {
+            int dependency = 1 + random.nextInt(id - 1);
+            if (skipInterval > 0 && dependency % skipInterval == 0) {
+                dependency--;
+            }
+            if (contains(chosen, chosenCount, dependency)) {
+                continue;
+            }
+            if (chosenCount > 0) {
+                dependencies.append(TaskScheduler.SEPARATOR);
+            }
+            dependencies.append(dependency);
+            chosen[chosenCount++] = dependency;
+        }
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Task randomTask(String id, String dependencies, SplittableRandom random) {
+        double duration = Math.round(random.nextDouble(0.05, 0.2) * 100) / 100.0;
+        double minDuration = Math.round(duration * 0.8 * 100) / 100.0;
+        double maxDuration = Math.round(duration * random.nextDouble(1, 1.5) * 100) / 100.0;
+        return Task.of(id, dependencies, duration, minDuration, maxDuration);
+    }
+}
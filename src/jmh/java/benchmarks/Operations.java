@@ -0,0 +1,47 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Method handles on {@code BenchmarkSupport}, which lives in the default package with the
+ * scheduler. They are static finals, so the JIT inlines the calls like direct ones.
+ */
+final class Operations {
+
+    static final MethodHandle PLAN;
+    static final MethodHandle CSV;
+    static final MethodHandle READ;
+    static final MethodHandle GRAPH;
+    static final MethodHandle SCHEDULE;
+    static final MethodHandle SCHEDULE_PARALLEL;
+    static final MethodHandle SCHEDULED_TASKS;
+    static final MethodHandle COMPUTE_END;
+    static final MethodHandle TO_CSV_LINE;
+    static final MethodHandle WRITE;
+
+    static {
+        try {
+            Class<?> support = Class.forName("BenchmarkSupport");
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            MethodType unary = MethodType.methodType(Object.class, Object.class);
+            PLAN = lookup.findStatic(support, "plan",
+                    MethodType.methodType(Object.class, String.class, int.class, double.class, long.class));
+            CSV = lookup.findStatic(support, "csv", unary);
+            READ = lookup.findStatic(support, "read", unary);
+            GRAPH = lookup.findStatic(support, "graph", unary);
+            SCHEDULE = lookup.findStatic(support, "schedule", unary);
+            SCHEDULE_PARALLEL = lookup.findStatic(support, "scheduleParallel", unary);
+            SCHEDULED_TASKS = lookup.findStatic(support, "scheduledTasks", unary);
+            COMPUTE_END = lookup.findStatic(support, "computeEnd", unary);
+            TO_CSV_LINE = lookup.findStatic(support, "toCSVLine", unary);
+            WRITE = lookup.findStatic(support, "write", unary);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Operations() {
+    }
+}
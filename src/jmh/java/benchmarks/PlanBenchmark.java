@@ -0,0 +1,81 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole-plan benchmarks. Every invocation handles {@link #TASKS} tasks and is reported as that
+ * many operations, so the scores are tasks per second and, with {@code -prof gc}, the
+ * {@code gc.alloc.rate.norm} column is the number of bytes allocated per task.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlanBenchmark {
+
+    static final int TASKS = 100_000;
+
+    @Param({"CHAIN", "FAN_OUT", "RANDOM", "MILESTONES"})
+    public String shape;
+
+    /**
+     * average number of dependencies per task of the random shapes
+     */
+    @Param({"2"})
+    public double density;
+
+    private Object plan;
+    private Object graph;
+    private Object store;
+    private Path csv;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        plan = (Object) Operations.PLAN.invokeExact(shape, TASKS, density, 42L);
+        graph = (Object) Operations.GRAPH.invokeExact(plan);
+        csv = Files.createTempFile("plan-benchmark", ".csv");
+        Files.write(csv, (byte[]) (Object) Operations.CSV.invokeExact(plan));
+        store = (Object) Operations.SCHEDULE.invokeExact(graph);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(csv);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASKS)
+    public Object readCsv() throws Throwable {
+        return (Object) Operations.READ.invokeExact((Object) csv);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASKS)
+    public Object buildGraph() throws Throwable {
+        return (Object) Operations.GRAPH.invokeExact(plan);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASKS)
+    public Object forwardPass() throws Throwable {
+        return (Object) Operations.SCHEDULE.invokeExact(graph);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASKS)
+    public Object parallelForwardPass() throws Throwable {
+        return (Object) Operations.SCHEDULE_PARALLEL.invokeExact(graph);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASKS)
+    public Object writeSchedule() throws Throwable {
+        return (Object) Operations.WRITE.invokeExact(store);
+    }
+}
@@ -0,0 +1,48 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-task benchmarks of the date arithmetic and the CSV rendering, cycling over the tasks of
+ * a random plan so that durations and dates vary like they do in a real schedule.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskBenchmark {
+
+    private static final int TASKS = 4096;
+
+    private Object[] tasks;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        Object plan = (Object) Operations.PLAN.invokeExact("RANDOM", TASKS, 2.0, 42L);
+        Object graph = (Object) Operations.GRAPH.invokeExact(plan);
+        Object store = (Object) Operations.SCHEDULE.invokeExact(graph);
+        tasks = ((List<?>) (Object) Operations.SCHEDULED_TASKS.invokeExact(store)).toArray();
+    }
+
+    @Benchmark
+    public Object computeEnd() throws Throwable {
+        return (Object) Operations.COMPUTE_END.invokeExact(nextTask());
+    }
+
+    @Benchmark
+    public Object toCSVLine() throws Throwable {
+        return (Object) Operations.TO_CSV_LINE.invokeExact(nextTask());
+    }
+
+    private Object nextTask() {
+        Object task = tasks[next];
+        next = (next + 1) & (TASKS - 1);
+        return task;
+    }
+}
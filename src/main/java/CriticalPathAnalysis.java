@@ -0,0 +1,233 @@
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+
+/**
+ * Backward pass over a scheduled {@link TaskGraph}.
+ * <p>
+ * For every scenario it computes late start/finish, total float and free float, all in
+ * working minutes of the project calendar, and marks the tasks with no total float as
+ * critical. Both passes walk the CSR edges once, so the analysis stays O(V+E).
+ */
+public class CriticalPathAnalysis {
+
+    private final TaskGraph graph;
+    private final WorkingCalendar calendar;
+    private final ScheduleStore store;
+    private final EnumMap<Scenario, Pass> passes = new EnumMap<>(Scenario.class);
+
+    private CriticalPathAnalysis(TaskGraph graph, WorkingCalendar calendar, ScheduleStore store) {
+        this.graph = graph;
+        this.calendar = calendar;
+        this.store = store;
+    }
+
+    /**
+     * Analyses a graph whose tasks already have their early dates set.
+     */
+    public static CriticalPathAnalysis of(TaskGraph graph, WorkingCalendar calendar) {
+        return analyse(new CriticalPathAnalysis(graph, calendar, null));
+    }
+
+    /**
+     * Analyses the early dates of a scheduled store, reading its columns directly.
+     */
+    public static CriticalPathAnalysis of(ScheduleStore store) {
+        return analyse(new CriticalPathAnalysis(store.getGraph(), store.getCalendar(), store));
+    }
+
+    private static CriticalPathAnalysis analyse(CriticalPathAnalysis analysis) {
+        TaskGraph graph = analysis.graph;
+        int[] order = graph.topologicalOrder();
+        for (Scenario scenario : Scenario.values()) {
+            analysis.passes.put(scenario, analysis.new Pass(scenario, order));
+        }
+        return analysis;
+    }
+
+    public TaskGraph getGraph() {
+        return graph;
+    }
+
+    public LocalDateTime projectEnd(Scenario scenario) {
+        return calendar.fromWorkingMinutes(passes.get(scenario).projectEnd);
+    }
+
+    public LocalDateTime lateStart(Scenario scenario, int node) {
+        return calendar.fromWorkingMinutes(passes.get(scenario).lateStart[node]);
+    }
+
+    public LocalDateTime lateFinish(Scenario scenario, int node) {
+        return calendar.fromWorkingMinutes(passes.get(scenario).lateFinish[node]);
+    }
+
+    /**
+     * @return how far the task can slip, in working days, without delaying the project
+     */
+    public double totalFloat(Scenario scenario, int node) {
+        Pass pass = passes.get(scenario);
+        return (double) (pass.lateStart[node] - pass.earlyStart[node]) / WorkingCalendar.MINUTES_PER_DAY;
+    }
+
+    /**
+     * @return how far the task can slip, in working days, without delaying any successor
+     */
+    public double freeFloat(Scenario scenario, int node) {
+        return (double) passes.get(scenario).freeFloat[node] / WorkingCalendar.MINUTES_PER_DAY;
+    }
+
+    public boolean isCritical(Scenario scenario, int node) {
+        Pass pass = passes.get(scenario);
+        return pass.lateStart[node] <= pass.earlyStart[node];
+    }
+
+    /**
+     * Follows driving critical predecessors back from the task that finishes last.
+     *
+     * @return the ids of one critical path, from its first task to the last
+     */
+    public List<String> criticalPath(Scenario scenario) {
+        List<List<String>> paths = criticalPaths(scenario, 1);
+        return paths.isEmpty() ? List.of() : paths.get(0);
+    }
+
+    /**
+     * Enumerates up to {@code limit} distinct critical paths: chains of critical tasks, each
+     * starting when its predecessor ends, from a critical root to a task finishing on the
+     * project end date.
+     */
+    public List<List<String>> criticalPaths(Scenario scenario, int limit) {
+        Pass pass = passes.get(scenario);
+        List<List<String>> paths = new ArrayList<>();
+        for (int node = 0; node < graph.size() && paths.size() < limit; node++) {
+            if (pass.earlyFinish[node] == pass.projectEnd && isCritical(scenario, node) && !drivesCriticalSuccessor(pass, node)) {
+                collectPaths(pass, node, paths, limit);
+            }
+        }
+        return paths;
+    }
+
+    private boolean drivesCriticalSuccessor(Pass pass, int node) {
+        for (int k = graph.successorStart(node); k < graph.successorEnd(node); k++) {
+            int successor = graph.successor(k);
+            if (pass.earlyStart[successor] == pass.earlyFinish[node] && isCritical(pass.scenario, successor)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Depth-first walk over driving critical predecessors, with an explicit stack so that
+     * long chains do not overflow the call stack.
+     */
+    private void collectPaths(Pass pass, int last, List<List<String>> paths, int limit) {
+        IntList path = new IntList(64);
+        IntList nextEdge = new IntList(64);
+        IntList driven = new IntList(64);
+        path.add(last);
+        nextEdge.add(graph.predecessorStart(last));
+        driven.add(0);
+
+        while (path.size() > 0 && paths.size() < limit) {
+            int depth = path.size() - 1;
+            int node = path.get(depth);
+            int edge = nextEdge.get(depth);
+            int predecessor = -1;
+            while (edge < graph.predecessorEnd(node)) {
+                int candidate = graph.predecessor(edge++);
+                if (pass.earlyFinish[candidate] == pass.earlyStart[node] && isCritical(pass.scenario, candidate)) {
+                    predecessor = candidate;
+                    break;
+                }
+            }
+            nextEdge.set(depth, edge);
+
+            if (predecessor >= 0) {
+                driven.set(depth, 1);
+                path.add(predecessor);
+                nextEdge.add(graph.predecessorStart(predecessor));
+                driven.add(0);
+                continue;
+            }
+
+            if (driven.get(depth) == 0) {
+                List<String> ids = new ArrayList<>(path.size());
+                for (int i = depth; i >= 0; i--) {
+                    if (!graph.isBarrier(path.get(i))) {
+                        ids.add(graph.id(path.get(i)));
+                    }
+                }
+                paths.add(ids);
+            }
+            path.truncate(depth);
+            nextEdge.truncate(depth);
+            driven.truncate(depth);
+        }
+    }
+
+    /**
+     * Forward and backward values of one scenario, in working minutes.
+     */
+    private final class Pass {
+
+        private final Scenario scenario;
+        private final long[] earlyStart;
+        private final long[] earlyFinish;
+        private final long[] lateStart;
+        private final long[] lateFinish;
+        private final long[] freeFloat;
+        private long projectEnd = Long.MIN_VALUE;
+
+        Pass(Scenario scenario, int[] order) {
+            this.scenario = scenario;
+            int size = graph.size();
+            earlyStart = new long[size];
+            earlyFinish = new long[size];
+            lateStart = new long[size];
+            lateFinish = new long[size];
+            freeFloat = new long[size];
+
+            long projectStart = Long.MAX_VALUE;
+            for (int node = 0; node < graph.taskCount(); node++) {
+                projectStart = Math.min(projectStart, store != null
+                        ? store.startMinutes(scenario, node)
+                        : calendar.toWorkingMinutes(scenario.start(graph.task(node))));
+            }
+
+            for (int node : order) {
+                Task task = graph.task(node);
+                if (task != null && store != null) {
+                    earlyStart[node] = store.startMinutes(scenario, node);
+                    earlyFinish[node] = store.endMinutes(scenario, node);
+                } else if (task != null) {
+                    earlyStart[node] = calendar.toWorkingMinutes(scenario.start(task));
+                    earlyFinish[node] = calendar.toWorkingMinutes(scenario.end(task));
+                } else {
+                    long barrierEnd = projectStart;
+                    for (int k = graph.predecessorStart(node); k < graph.predecessorEnd(node); k++) {
+                        barrierEnd = Math.max(barrierEnd, earlyFinish[graph.predecessor(k)]);
+                    }
+                    earlyStart[node] = barrierEnd;
+                    earlyFinish[node] = earlyStart[node];
+                }
+                projectEnd = Math.max(projectEnd, earlyFinish[node]);
+            }
+
+            for (int i = order.length - 1; i >= 0; i--) {
+                int node = order[i];
+                long latestFinish = projectEnd;
+                long earliestSuccessorStart = projectEnd;
+                for (int k = graph.successorStart(node); k < graph.successorEnd(node); k++) {
+                    int successor = graph.successor(k);
+                    latestFinish = Math.min(latestFinish, lateStart[successor]);
+                    earliestSuccessorStart = Math.min(earliestSuccessorStart, earlyStart[successor]);
+                }
+                lateFinish[node] = latestFinish;
+                lateStart[node] = latestFinish - (earlyFinish[node] - earlyStart[node]);
+                freeFloat[node] = earliestSuccessorStart - earlyFinish[node];
+            }
+        }
+    }
+}
@@ -0,0 +1,220 @@
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Split of the nodes of a dependency graph, such as a {@link TaskGraph}, into shards of about
+ * equal size with few edges between shards, for {@link ShardedScheduler}.
+ * <p>
+ * The shards are acyclic: every cut edge goes from a lower shard to a higher one, so dates
+ * cross from shard to shard in one direction only and one forward pass per shard, in shard
+ * order, schedules the whole graph. The nodes are first laid out in a depth-first topological
+ * order, which keeps chains together, and cut into equal ranges. Then each refinement pass
+ * moves every node to the shard, between the highest shard of its predecessors and the lowest
+ * shard of its successors, that holds most of its neighbours, as long as that shard has room.
+ */
+@Slf4j
+public final class GraphPartition {
+
+    static final int REFINEMENT_PASSES = 4;
+    /**
+     * a shard may grow this much beyond an equal share
+     */
+    static final double IMBALANCE = 0.05;
+
+    private final int shardCount;
+    private final int[] predecessorOffsets;
+    private final int[] predecessors;
+    private final int[] successorOffsets;
+    private final int[] successors;
+    private final int[] shard;
+    private final int[] shardSizes;
+    private int cutEdges;
+
+    private GraphPartition(int shardCount, int[] predecessorOffsets, int[] predecessors) {
+        int size = predecessorOffsets.length - 1;
+        this.shardCount = shardCount;
+        this.predecessorOffsets = predecessorOffsets;
+        this.predecessors = predecessors;
+        successorOffsets = new int[size + 1];
+        successors = new int[predecessors.length];
+        for (int edge : predecessors) {
+            successorOffsets[edge + 1]++;
+        }
+        for (int node = 0; node < size; node++) {
+            successorOffsets[node + 1] += successorOffsets[node];
+        }
+        int[] next = Arrays.copyOf(successorOffsets, size);
+        for (int node = 0; node < size; node++) {
+            for (int k = predecessorOffsets[node]; k < predecessorOffsets[node + 1]; k++) {
+                successors[next[predecessors[k]]++] = node;
+            }
+        }
+        shard = new int[size];
+        shardSizes = new int[shardCount];
+    }
+
+    /**
+     * @throws SchedulingException if the graph contains a circular dependency
+     */
+    public static GraphPartition of(TaskGraph graph, int shards) {
+        int[] offsets = new int[graph.size() + 1];
+        int[] predecessors = new int[graph.edgeCount()];
+        for (int node = 0; node < graph.size(); node++) {
+            offsets[node + 1] = graph.predecessorEnd(node);
+            for (int k = graph.predecessorStart(node); k < graph.predecessorEnd(node); k++) {
+                predecessors[k] = graph.predecessor(k);
+            }
+        }
+        return of(offsets, predecessors, shards, node -> graph.isBarrier(node) ? null : graph.id(node));
+    }
+
+    /**
+     * Partitions a graph given only by its predecessor lists in compressed-sparse-row form, as
+     * in a {@link TaskGraph}.
+     *
+     * @param ids the task id of a node, or null for a barrier, to report a circular dependency
+     * @throws SchedulingException if the graph contains a circular dependency
+     */
+    static GraphPartition of(int[] predecessorOffsets, int[] predecessors, int shards, IntFunction<String> ids) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("Expected at least one shard, got " + shards);
+        }
+        long startNanos = System.nanoTime();
+        GraphPartition partition = new GraphPartition(shards, predecessorOffsets, predecessors);
+        int[] order = partition.depthFirstOrder(ids);
+        int size = order.length;
+        for (int i = 0; i < size; i++) {
+            int node = order[i];
+            partition.shard[node] = (int) ((long) i * shards / Math.max(1, size));
+            partition.shardSizes[partition.shard[node]]++;
+        }
+        int capacity = (int) Math.ceil(size / (double) shards * (1 + IMBALANCE));
+        for (int pass = 0; pass < REFINEMENT_PASSES && partition.refine(order, capacity) > 0; pass++) {
+            // repeat while nodes move
+        }
+        for (int node = 0; node < size; node++) {
+            for (int k = predecessorOffsets[node]; k < predecessorOffsets[node + 1]; k++) {
+                if (partition.shard[predecessors[k]] != partition.shard[node]) {
+                    partition.cutEdges++;
+                }
+            }
+        }
+        log.info("Partitioned {} nodes into {} shards with {} of {} edges cut in {} ms", size, shards, partition.cutEdges,
+                predecessors.length, String.format("%.1f", (System.nanoTime() - startNanos) / 1e6));
+        return partition;
+    }
+
+    /**
+     * Kahn's algorithm with a stack instead of a queue, so that a node that becomes ready is
+     * placed right after its last predecessor when it can be.
+     *
+     * @throws SchedulingException if the graph contains a circular dependency
+     */
+    private int[] depthFirstOrder(IntFunction<String> ids) {
+        int size = shard.length;
+        int[] waitingFor = new int[size];
+        int[] ready = new int[size];
+        int top = 0;
+        for (int node = size - 1; node >= 0; node--) {
+            waitingFor[node] = predecessorOffsets[node + 1] - predecessorOffsets[node];
+            if (waitingFor[node] == 0) {
+                ready[top++] = node;
+            }
+        }
+        int[] order = new int[size];
+        int count = 0;
+        while (top > 0) {
+            int node = ready[--top];
+            order[count++] = node;
+            for (int k = successorOffsets[node + 1] - 1; k >= successorOffsets[node]; k--) {
+                int successor = successors[k];
+                if (--waitingFor[successor] == 0) {
+                    ready[top++] = successor;
+                }
+            }
+        }
+        if (count < size) {
+            List<String> unscheduled = new ArrayList<>();
+            for (int node = 0; node < size; node++) {
+                String id = ids.apply(node);
+                if (waitingFor[node] > 0 && id != null) {
+                    unscheduled.add(id);
+                }
+            }
+            unscheduled.sort(Comparator.naturalOrder());
+            throw new SchedulingException("Circular dependency between tasks", unscheduled);
+        }
+        return order;
+    }
+
+    /**
+     * @return the number of nodes moved
+     */
+    private int refine(int[] order, int capacity) {
+        int moved = 0;
+        int[] neighbours = new int[shardCount];
+        for (int node : order) {
+            int lowest = 0;
+            int highest = shardCount - 1;
+            for (int k = predecessorOffsets[node]; k < predecessorOffsets[node + 1]; k++) {
+                lowest = Math.max(lowest, shard[predecessors[k]]);
+            }
+            for (int k = successorOffsets[node]; k < successorOffsets[node + 1]; k++) {
+                highest = Math.min(highest, shard[successors[k]]);
+            }
+            if (lowest == highest) {
+                continue;
+            }
+            for (int k = predecessorOffsets[node]; k < predecessorOffsets[node + 1]; k++) {
+                neighbours[shard[predecessors[k]]]++;
+            }
+            for (int k = successorOffsets[node]; k < successorOffsets[node + 1]; k++) {
+                neighbours[shard[successors[k]]]++;
+            }
+            int current = shard[node];
+            int best = current;
+            for (int candidate = lowest; candidate <= highest; candidate++) {
+                if (neighbours[candidate] > neighbours[best] && shardSizes[candidate] < capacity) {
+                    best = candidate;
+                }
+            }
+            for (int k = predecessorOffsets[node]; k < predecessorOffsets[node + 1]; k++) {
+                neighbours[shard[predecessors[k]]] = 0;
+            }
+            for (int k = successorOffsets[node]; k < successorOffsets[node + 1]; k++) {
+                neighbours[shard[successors[k]]] = 0;
+            }
+            if (best != current) {
+                shard[node] = best;
+                shardSizes[current]--;
+                shardSizes[best]++;
+                moved++;
+            }
+        }
+        return moved;
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    public int shard(int node) {
+        return shard[node];
+    }
+
+    public int shardSize(int shard) {
+        return shardSizes[shard];
+    }
+
+    /**
+     * @return the number of edges between nodes of different shards
+     */
+    public int getCutEdges() {
+        return cutEdges;
+    }
+}
@@ -0,0 +1,91 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Dense numbering of task ids that keeps the ids as UTF-8 bytes in one growing array, with an
+ * open-addressing table of indexes, instead of a {@code String} and a boxed entry per task.
+ * Used where only the ids of a plan are held, as by the coordinator of a
+ * {@link ShardedScheduler}.
+ */
+final class IdIndex {
+
+    private byte[] bytes = new byte[1 << 16];
+    // the id of index i is bytes[offsets[i]] .. bytes[offsets[i + 1] - 1]
+    private int[] offsets = new int[1024];
+    // index + 1 of the id in each slot, 0 for an empty slot
+    private int[] slots = new int[2048];
+    private int size;
+
+    /**
+     * @return the index of the id, which is numbered next if it is new
+     */
+    int add(String id) {
+        byte[] key = id.getBytes(StandardCharsets.UTF_8);
+        int slot = find(key);
+        if (slots[slot] != 0) {
+            return slots[slot] - 1;
+        }
+        int end = offsets[size];
+        if (end + key.length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, end + key.length));
+        }
+        System.arraycopy(key, 0, bytes, end, key.length);
+        if (size + 2 > offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[size + 1] = end + key.length;
+        slots[slot] = ++size;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return size - 1;
+    }
+
+    /**
+     * @return the index of the id, or -1 if it was never added
+     */
+    int indexOf(String id) {
+        return slots[find(id.getBytes(StandardCharsets.UTF_8))] - 1;
+    }
+
+    String id(int index) {
+        return new String(bytes, offsets[index], offsets[index + 1] - offsets[index], StandardCharsets.UTF_8);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the slot holding the id, or the empty slot where it would go
+     */
+    private int find(byte[] key) {
+        int mask = slots.length - 1;
+        for (int slot = hash(key, 0, key.length) & mask; ; slot = slot + 1 & mask) {
+            int entry = slots[slot];
+            if (entry == 0 || Arrays.equals(bytes, offsets[entry - 1], offsets[entry], key, 0, key.length)) {
+                return slot;
+            }
+        }
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int index = 0; index < size; index++) {
+            int slot = hash(bytes, offsets[index], offsets[index + 1]) & mask;
+            while (slots[slot] != 0) {
+                slot = slot + 1 & mask;
+            }
+            slots[slot] = index + 1;
+        }
+    }
+
+    private static int hash(byte[] key, int from, int to) {
+        int hash = 0x811c9dc5;
+        for (int i = from; i < to; i++) {
+            hash = (hash ^ key[i]) * 0x01000193;
+        }
+        return hash ^ hash >>> 16;
+    }
+}
@@ -0,0 +1,398 @@
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Long-lived schedule that supports what-if edits.
+ * <p>
+ * Changing a duration or a dependency only recomputes the downstream cone of the changed task:
+ * dirty nodes are processed in topological rank order, and propagation stops at every task
+ * whose end dates did not move. The topological ranks are kept valid across new dependencies
+ * with the Pearce-Kelly algorithm, which only reorders the nodes between the two endpoints.
+ * <p>
+ * Dates are computed on the calendar given to {@link #of}, and on their own calendar for
+ * tasks that have one. The schedule works on copies of the tasks of the graph: the graph and
+ * its tasks are never changed, so several schedules can be built on the same graph.
+ */
+@Slf4j
+public class IncrementalSchedule {
+
+    private final WorkingCalendar calendar;
+    private final LocalDateTime projectStart;
+    private final Task[] tasks;
+    private final String[] ids;
+    private final Map<String, Integer> indexById;
+    private final IntList[] predecessors;
+    private final IntList[] successors;
+    private final int[] rank;
+    private final int[] nodeAtRank;
+    private final TopologicalScheduler.Ends ends;
+    private final BitSet dirtyRanks;
+    private final ScheduleIndex[] indexes = new ScheduleIndex[Scenario.values().length];
+
+    private IncrementalSchedule(TaskGraph graph, WorkingCalendar calendar, LocalDate startDate) {
+        int size = graph.size();
+        this.calendar = calendar;
+        projectStart = startDate.atStartOfDay();
+        tasks = new Task[graph.taskCount()];
+        ids = new String[size];
+        indexById = new HashMap<>(size * 2);
+        predecessors = new IntList[size];
+        successors = new IntList[size];
+        rank = new int[size];
+        nodeAtRank = graph.topologicalOrder();
+        ends = new TopologicalScheduler.Ends(size);
+        dirtyRanks = new BitSet(size);
+
+        for (int node = 0; node < size; node++) {
+            if (!graph.isBarrier(node)) {
+                Task task = graph.task(node);
+                tasks[node] = task.withDurations(task.getDuration(), task.getMinDuration(), task.getMaxDuration());
+            }
+            ids[node] = graph.id(node);
+            indexById.putIfAbsent(ids[node], node);
+            predecessors[node] = new IntList(graph.predecessorEnd(node) - graph.predecessorStart(node));
+            for (int k = graph.predecessorStart(node); k < graph.predecessorEnd(node); k++) {
+                predecessors[node].add(graph.predecessor(k));
+            }
+            successors[node] = new IntList(graph.successorEnd(node) - graph.successorStart(node));
+            for (int k = graph.successorStart(node); k < graph.successorEnd(node); k++) {
+                successors[node].add(graph.successor(k));
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            rank[nodeAtRank[i]] = i;
+        }
+    }
+
+    /**
+     * Schedules the graph once on {@code calendar}; later edits only recompute what they affect.
+     */
+    public static IncrementalSchedule of(TaskGraph graph, WorkingCalendar calendar, LocalDate startDate) {
+        IncrementalSchedule schedule = new IncrementalSchedule(graph, calendar, startDate);
+        schedule.dirtyRanks.set(0, graph.size());
+        schedule.propagate();
+        return schedule;
+    }
+
+    public Task getTask(String id) {
+        return tasks[taskIndex(id)];
+    }
+
+    /**
+     * @return the tasks of this schedule, with their dates; copies of those of the graph
+     */
+    public List<Task> getTasks() {
+        return Arrays.asList(tasks);
+    }
+
+    /**
+     * @return an index of the task dates in the scenario, in minutes since the epoch, which
+     * every later edit keeps up to date
+     */
+    public ScheduleIndex getIndex(Scenario scenario) {
+        ScheduleIndex index = indexes[scenario.ordinal()];
+        if (index == null) {
+            long[] start = new long[tasks.length];
+            long[] end = new long[tasks.length];
+            for (int node = 0; node < tasks.length; node++) {
+                start[node] = ScheduleIndex.epochMinutes(scenario.start(tasks[node]));
+                end[node] = ScheduleIndex.epochMinutes(scenario.end(tasks[node]));
+            }
+            index = ScheduleIndex.of(start, end, ScheduleIndex::epochMinutes);
+            indexes[scenario.ordinal()] = index;
+        }
+        return index;
+    }
+
+    /**
+     * @return the number of nodes whose dates were recomputed
+     */
+    public int updateDuration(String id, double duration, double minDuration, double maxDuration) {
+        int node = taskIndex(id);
+        tasks[node] = tasks[node].withDurations(duration, minDuration, maxDuration);
+        dirtyRanks.set(rank[node]);
+        return propagate();
+    }
+
+    /**
+     * Makes {@code id} depend on {@code dependencyId}, which may also be a selector already
+     * used in the plan. A task that starts using a selector it matches stops being one of the
+     * tasks its barrier waits for, as in a {@link TaskGraph}.
+     *
+     * @return the number of nodes whose dates were recomputed
+     * @throws SchedulingException if the new dependency would close a cycle
+     */
+    public int addDependency(String id, String dependencyId) {
+        int node = taskIndex(id);
+        int dependency = nodeIndex(dependencyId);
+        if (dependency == node) {
+            throw new SchedulingException("Task cannot depend on itself", List.of(id));
+        }
+        if (contains(predecessors[node], dependency)) {
+            return 0;
+        }
+        boolean leavesBarrier = isBarrier(dependency) && unlink(node, dependency);
+        try {
+            link(dependency, node);
+        } catch (SchedulingException e) {
+            if (leavesBarrier) {
+                link(node, dependency);
+            }
+            throw e;
+        }
+
+        Task task = tasks[node];
+        tasks[node] = task.withDependencies(task.hasDependencies() ? task.getDependencies() + ", " + dependencyId : dependencyId);
+        dirtyRanks.set(rank[node]);
+        if (leavesBarrier) {
+            dirtyRanks.set(rank[dependency]);
+        }
+        return propagate();
+    }
+
+    /**
+     * Removes a dependency of {@code id}. A task that stops using a selector it matches becomes
+     * again one of the tasks its barrier waits for.
+     *
+     * @return the number of nodes whose dates were recomputed
+     * @throws SchedulingException if the task would then close a cycle through the barrier
+     */
+    public int removeDependency(String id, String dependencyId) {
+        int node = taskIndex(id);
+        int dependency = nodeIndex(dependencyId);
+        if (!unlink(dependency, node)) {
+            return 0;
+        }
+        boolean joinsBarrier = isBarrier(dependency) && TaskGraph.matches(dependencyId, id);
+        if (joinsBarrier) {
+            try {
+                link(node, dependency);
+            } catch (SchedulingException e) {
+                link(dependency, node);
+                throw e;
+            }
+        }
+
+        StringJoiner dependencies = new StringJoiner(", ");
+        for (String token : tasks[node].getDependencies().split(",")) {
+            if (!token.trim().equals(dependencyId) && !token.isBlank()) {
+                dependencies.add(token.trim());
+            }
+        }
+        tasks[node] = tasks[node].withDependencies(dependencies.toString());
+        dirtyRanks.set(rank[node]);
+        if (joinsBarrier) {
+            dirtyRanks.set(rank[dependency]);
+        }
+        return propagate();
+    }
+
+    private boolean isBarrier(int node) {
+        return node >= tasks.length;
+    }
+
+    /**
+     * Adds the edge {@code from -> to}, reordering the ranks if {@code from} comes later.
+     *
+     * @throws SchedulingException if the edge would close a cycle; nothing is changed then
+     */
+    private void link(int from, int to) {
+        if (rank[from] > rank[to]) {
+            reorder(from, to);
+        }
+        predecessors[to].add(from);
+        successors[from].add(to);
+    }
+
+    /**
+     * @return whether there was an edge {@code from -> to} to remove
+     */
+    private boolean unlink(int from, int to) {
+        if (!remove(predecessors[to], from)) {
+            return false;
+        }
+        remove(successors[from], to);
+        return true;
+    }
+
+    /**
+     * Recomputes the dirty nodes in rank order. Successors always have a higher rank, so a
+     * single sweep over the dirty set sees every node after all of its predecessors.
+     */
+    private int propagate() {
+        int recomputed = 0;
+        for (int r = dirtyRanks.nextSetBit(0); r >= 0; r = dirtyRanks.nextSetBit(r + 1)) {
+            dirtyRanks.clear(r);
+            int node = nodeAtRank[r];
+            recomputed++;
+
+            LocalDateTime end = ends.end[node];
+            LocalDateTime minEnd = ends.minEnd[node];
+            LocalDateTime maxEnd = ends.maxEnd[node];
+            recompute(node);
+            if (node < tasks.length) {
+                updateIndexes(node);
+            }
+            if (Objects.equals(end, ends.end[node]) && Objects.equals(minEnd, ends.minEnd[node])
+                    && Objects.equals(maxEnd, ends.maxEnd[node])) {
+                continue;
+            }
+            IntList nodeSuccessors = successors[node];
+            for (int i = 0; i < nodeSuccessors.size(); i++) {
+                dirtyRanks.set(rank[nodeSuccessors.get(i)]);
+            }
+        }
+        log.debug("Recomputed {} nodes", recomputed);
+        return recomputed;
+    }
+
+    private void recompute(int node) {
+        IntList nodePredecessors = predecessors[node];
+        LocalDateTime start = null;
+        LocalDateTime minStart = null;
+        LocalDateTime maxStart = null;
+        for (int i = 0; i < nodePredecessors.size(); i++) {
+            int predecessor = nodePredecessors.get(i);
+            start = TopologicalScheduler.later(start, ends.end[predecessor]);
+            minStart = TopologicalScheduler.later(minStart, ends.minEnd[predecessor]);
+            maxStart = TopologicalScheduler.later(maxStart, ends.maxEnd[predecessor]);
+        }
+        TopologicalScheduler.scheduleNode(node < tasks.length ? tasks[node] : null, nodePredecessors.size() == 0, node,
+                start == null ? projectStart : start,
+                minStart == null ? projectStart : minStart,
+                maxStart == null ? projectStart : maxStart,
+                calendar, ends);
+    }
+
+    private void updateIndexes(int node) {
+        for (Scenario scenario : Scenario.values()) {
+            ScheduleIndex index = indexes[scenario.ordinal()];
+            if (index != null) {
+                index.update(node, ScheduleIndex.epochMinutes(scenario.start(tasks[node])),
+                        ScheduleIndex.epochMinutes(scenario.end(tasks[node])));
+            }
+        }
+    }
+
+    /**
+     * Pearce-Kelly reordering for a new edge {@code from -> to} where {@code from} is ranked
+     * after {@code to}: the nodes reachable from {@code to} and the nodes reaching {@code from}
+     * within that rank window swap places, keeping their relative order.
+     */
+    private void reorder(int from, int to) {
+        int lower = rank[to];
+        int upper = rank[from];
+
+        IntList forward = new IntList(16);
+        BitSet visited = new BitSet(ids.length);
+        Deque<Integer> stack = new ArrayDeque<>();
+        stack.push(to);
+        visited.set(to);
+        while (!stack.isEmpty()) {
+            int node = stack.pop();
+            if (node == from) {
+                throw new SchedulingException("Dependency would create a circular dependency between tasks",
+                        List.of(ids[to], ids[from]));
+            }
+            forward.add(node);
+            for (int i = 0; i < successors[node].size(); i++) {
+                int successor = successors[node].get(i);
+                if (rank[successor] <= upper && !visited.get(successor)) {
+                    visited.set(successor);
+                    stack.push(successor);
+                }
+            }
+        }
+
+        IntList backward = new IntList(16);
+        stack.push(from);
+        visited.set(from);
+        while (!stack.isEmpty()) {
+            int node = stack.pop();
+            backward.add(node);
+            for (int i = 0; i < predecessors[node].size(); i++) {
+                int predecessor = predecessors[node].get(i);
+                if (rank[predecessor] >= lower && !visited.get(predecessor)) {
+                    visited.set(predecessor);
+                    stack.push(predecessor);
+                }
+            }
+        }
+
+        int[] backwardNodes = sortedByRank(backward);
+        int[] forwardNodes = sortedByRank(forward);
+        int[] ranks = new int[backwardNodes.length + forwardNodes.length];
+        for (int i = 0; i < backwardNodes.length; i++) {
+            ranks[i] = rank[backwardNodes[i]];
+        }
+        for (int i = 0; i < forwardNodes.length; i++) {
+            ranks[backwardNodes.length + i] = rank[forwardNodes[i]];
+        }
+        Arrays.sort(ranks);
+
+        int next = 0;
+        for (int node : backwardNodes) {
+            assignRank(node, ranks[next++]);
+        }
+        for (int node : forwardNodes) {
+            assignRank(node, ranks[next++]);
+        }
+    }
+
+    private int[] sortedByRank(IntList nodes) {
+        long[] keys = new long[nodes.size()];
+        for (int i = 0; i < nodes.size(); i++) {
+            keys[i] = (long) rank[nodes.get(i)] << 32 | nodes.get(i);
+        }
+        Arrays.sort(keys);
+        int[] sorted = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            sorted[i] = (int) keys[i];
+        }
+        return sorted;
+    }
+
+    private void assignRank(int node, int newRank) {
+        rank[node] = newRank;
+        nodeAtRank[newRank] = node;
+    }
+
+    private int taskIndex(String id) {
+        int node = nodeIndex(id);
+        if (node >= tasks.length) {
+            throw new SchedulingException("Not a task", List.of(id));
+        }
+        return node;
+    }
+
+    private int nodeIndex(String id) {
+        Integer node = indexById.get(id);
+        if (node == null) {
+            throw new SchedulingException("Unknown task ids", List.of(id));
+        }
+        return node;
+    }
+
+    private static boolean contains(IntList list, int value) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean remove(IntList list, int value) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == value) {
+                list.set(i, list.get(list.size() - 1));
+                list.truncate(list.size() - 1);
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,41 @@
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive ints, used while building graph structures without boxing.
+ */
+final class IntList {
+
+    private int[] values;
+    private int size;
+
+    IntList(int initialCapacity) {
+        values = new int[Math.max(initialCapacity, 8)];
+    }
+
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    int get(int index) {
+        return values[index];
+    }
+
+    void set(int index, int value) {
+        values[index] = value;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void truncate(int newSize) {
+        size = newSize;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
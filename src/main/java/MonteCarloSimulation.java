@@ -0,0 +1,274 @@
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Samples task durations between their min and max estimates to estimate completion dates.
+ * <p>
+ * Each worker owns a {@link SplittableRandom} split from the seed and a set of primitive arrays,
+ * and runs its share of the iterations over a topological order computed once. An iteration
+ * allocates nothing: it fills the end of every node, counts the bin the task ends in, and walks
+ * the driving predecessors back from the last task to count how often each task is critical.
+ * Workers count into histograms of their own, so nothing is shared in the loop, and the
+ * histograms are summed once at the end; the results only depend on the seed and the number
+ * of workers. The histograms take {@code workers * tasks * bins} ints, so fewer bins are used
+ * when that exceeds {@link #MAX_HISTOGRAM_BYTES}.
+ */
+@Slf4j
+public class MonteCarloSimulation {
+
+    public enum Distribution {
+        TRIANGULAR,
+        PERT
+    }
+
+    public static final int DEFAULT_BINS = 100;
+    public static final long MAX_HISTOGRAM_BYTES = 256L << 20;
+
+    private final TaskGraph graph;
+    private final WorkingCalendar calendar;
+    private final Distribution distribution;
+    private final ForkJoinPool pool;
+    private final int bins;
+    private final long maxHistogramBytes;
+
+    public MonteCarloSimulation(TaskGraph graph, WorkingCalendar calendar, Distribution distribution, ForkJoinPool pool) {
+        this(graph, calendar, distribution, pool, DEFAULT_BINS);
+    }
+
+    /**
+     * @param bins histogram bins per task, at most; memory is workers * tasks * bins ints
+     */
+    public MonteCarloSimulation(TaskGraph graph, WorkingCalendar calendar, Distribution distribution,
+                                ForkJoinPool pool, int bins) {
+        this(graph, calendar, distribution, pool, bins, MAX_HISTOGRAM_BYTES);
+    }
+
+    MonteCarloSimulation(TaskGraph graph, WorkingCalendar calendar, Distribution distribution,
+                         ForkJoinPool pool, int bins, long maxHistogramBytes) {
+        if (bins < 1) {
+            throw new IllegalArgumentException("Expected at least one bin, got " + bins);
+        }
+        this.graph = graph;
+        this.calendar = calendar;
+        this.distribution = distribution;
+        this.pool = pool;
+        this.bins = bins;
+        this.maxHistogramBytes = maxHistogramBytes;
+    }
+
+    public SimulationResult run(LocalDate startDate, int iterations, long seed) {
+        long startNanos = System.nanoTime();
+        int size = graph.size();
+        int[] order = graph.topologicalOrder();
+        double projectStart = (double) calendar.toWorkingMinutes(startDate.atStartOfDay()) / WorkingCalendar.MINUTES_PER_DAY;
+
+        // durations in working days; nodes without estimates have min == mode == max
+        double[] min = new double[size];
+        double[] mode = new double[size];
+        double[] max = new double[size];
+        for (int node = 0; node < graph.taskCount(); node++) {
+            Task task = graph.task(node);
+            mode[node] = task.getDuration();
+            min[node] = Math.min(mode[node], Scenario.MIN.duration(task));
+            max[node] = Math.max(mode[node], Scenario.MAX.duration(task));
+        }
+
+        // every sample lies between the all-min and all-max schedules, which bound the histograms
+        double[] lowest = endsWith(order, min, projectStart);
+        double[] highest = endsWith(order, max, projectStart);
+
+        int workers = Math.max(1, Math.min(pool.getParallelism(), iterations));
+        int bins = bins(workers, size);
+        SplittableRandom random = new SplittableRandom(seed);
+        List<ForkJoinTask<Worker>> tasks = new ArrayList<>(workers);
+        for (int w = 0; w < workers; w++) {
+            int share = iterations / workers + (w < iterations % workers ? 1 : 0);
+            Worker worker = new Worker(random.split(), order, min, mode, max, lowest, highest, projectStart, bins);
+            tasks.add(pool.submit(() -> worker.run(share)));
+        }
+
+        // counts never exceed the iterations, so the first worker's ints hold the sums
+        int[] histogram = null;
+        long[] critical = new long[size];
+        for (ForkJoinTask<Worker> task : tasks) {
+            Worker worker = task.join();
+            if (histogram == null) {
+                histogram = worker.histogram;
+            } else {
+                for (int i = 0; i < histogram.length; i++) {
+                    histogram[i] += worker.histogram[i];
+                }
+            }
+            for (int node = 0; node < size; node++) {
+                critical[node] += worker.critical[node];
+            }
+        }
+
+        log.info("Simulated {} iterations of {} tasks on {} workers with {} bins in {} ms", iterations, graph.taskCount(),
+                workers, bins, (System.nanoTime() - startNanos) / 1_000_000);
+        return new SimulationResult(graph, calendar, iterations, bins, lowest, highest, histogram, critical);
+    }
+
+    /**
+     * @return the requested bins, or fewer so that the histograms of all workers fit in
+     * {@link #maxHistogramBytes}; {@code size * bins} then also fits in an int index
+     */
+    private int bins(int workers, int size) {
+        long fitting = maxHistogramBytes / Integer.BYTES / workers / Math.max(1, size);
+        int fitted = (int) Math.max(1, Math.min(Math.min(bins, fitting), Integer.MAX_VALUE / Math.max(1, size)));
+        if (fitted < bins) {
+            log.info("Using {} instead of {} bins per task to keep the histograms of {} workers within {} MB",
+                    fitted, bins, workers, maxHistogramBytes >> 20);
+        }
+        return fitted;
+    }
+
+    private double[] endsWith(int[] order, double[] durations, double projectStart) {
+        double[] end = new double[graph.size()];
+        for (int node : order) {
+            double start = projectStart;
+            for (int k = graph.predecessorStart(node); k < graph.predecessorEnd(node); k++) {
+                start = Math.max(start, end[graph.predecessor(k)]);
+            }
+            end[node] = start + durations[node];
+        }
+        return end;
+    }
+
+    private final class Worker {
+
+        private final SplittableRandom random;
+        private final int[] order;
+        private final double[] min;
+        private final double[] mode;
+        private final double[] max;
+        private final double[] lowest;
+        private final double[] highest;
+        private final double projectStart;
+        private final int bins;
+
+        private final double[] end;
+        private final int[] drivingPredecessor;
+        private final int[] histogram;
+        private final int[] critical;
+
+        Worker(SplittableRandom random, int[] order, double[] min, double[] mode, double[] max,
+               double[] lowest, double[] highest, double projectStart, int bins) {
+            this.random = random;
+            this.order = order;
+            this.min = min;
+            this.mode = mode;
+            this.max = max;
+            this.lowest = lowest;
+            this.highest = highest;
+            this.projectStart = projectStart;
+            this.bins = bins;
+            int size = order.length;
+            end = new double[size];
+            drivingPredecessor = new int[size];
+            histogram = new int[size * bins];
+            critical = new int[size];
+        }
+
+        Worker run(int iterations) {
+            for (int i = 0; i < iterations; i++) {
+                iterate();
+            }
+            return this;
+        }
+
+        private void iterate() {
+            int last = -1;
+            for (int node : order) {
+                double start = projectStart;
+                int driver = -1;
+                for (int k = graph.predecessorStart(node); k < graph.predecessorEnd(node); k++) {
+                    int predecessor = graph.predecessor(k);
+                    if (end[predecessor] > start || driver < 0 && end[predecessor] == start) {
+                        start = end[predecessor];
+                        driver = predecessor;
+                    }
+                }
+                drivingPredecessor[node] = driver;
+                end[node] = start + sample(node);
+
+                double range = highest[node] - lowest[node];
+                int bin = range <= 0 ? 0 : (int) ((end[node] - lowest[node]) / range * bins);
+                histogram[node * bins + Math.min(Math.max(bin, 0), bins - 1)]++;
+                if (last < 0 || end[node] > end[last]) {
+                    last = node;
+                }
+            }
+
+            for (int node = last; node >= 0; node = drivingPredecessor[node]) {
+                critical[node]++;
+            }
+        }
+
+        private double sample(int node) {
+            double a = min[node];
+            double c = mode[node];
+            double b = max[node];
+            if (b <= a) {
+                return c;
+            }
+            return switch (distribution) {
+                case TRIANGULAR -> triangular(a, c, b);
+                case PERT -> a + (b - a) * beta(1 + 4 * (c - a) / (b - a), 1 + 4 * (b - c) / (b - a));
+            };
+        }
+
+        private double triangular(double a, double c, double b) {
+            double u = random.nextDouble();
+            double split = (c - a) / (b - a);
+            return u < split
+                    ? a + Math.sqrt(u * (b - a) * (c - a))
+                    : b - Math.sqrt((1 - u) * (b - a) * (b - c));
+        }
+
+        private double beta(double alpha, double beta) {
+            double x = gamma(alpha);
+            double y = gamma(beta);
+            return x / (x + y);
+        }
+
+        /**
+         * Marsaglia-Tsang sampling, valid for shapes of at least 1, which PERT always yields.
+         */
+        private double gamma(double shape) {
+            double d = shape - 1.0 / 3;
+            double c = 1 / Math.sqrt(9 * d);
+            while (true) {
+                double x;
+                double v;
+                do {
+                    x = normal();
+                    v = 1 + c * x;
+                } while (v <= 0);
+                v = v * v * v;
+                double u = random.nextDouble();
+                if (u < 1 - 0.0331 * x * x * x * x || Math.log(u) < 0.5 * x * x + d * (1 - v + Math.log(v))) {
+                    return d * v;
+                }
+            }
+        }
+
+        private double normal() {
+            double u;
+            double v;
+            double s;
+            do {
+                u = 2 * random.nextDouble() - 1;
+                v = 2 * random.nextDouble() - 1;
+                s = u * u + v * v;
+            } while (s >= 1 || s == 0);
+            return u * Math.sqrt(-2 * Math.log(s) / s);
+        }
+    }
+}
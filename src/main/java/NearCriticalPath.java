@@ -0,0 +1,38 @@
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One chain of dependent tasks from a task without dependencies to a task nothing depends on,
+ * with its total duration in each scenario, as found by {@link NearCriticalPaths}.
+ */
+@Data
+@RequiredArgsConstructor(access = lombok.AccessLevel.PRIVATE)
+public class NearCriticalPath {
+
+    private final List<String> taskIds;
+    private final double nominalDays;
+    private final double minDays;
+    private final double maxDays;
+    /**
+     * how many working days shorter the path is than the longest one, in the scenario the
+     * paths were ranked by
+     */
+    private final double slackDays;
+
+    public static NearCriticalPath of(List<String> taskIds, double nominalDays, double minDays, double maxDays, double slackDays) {
+        return new NearCriticalPath(List.copyOf(taskIds), nominalDays, minDays, maxDays, slackDays);
+    }
+
+    /**
+     * @return the sum of the durations of the tasks on the path in the scenario, in working days
+     */
+    public double days(Scenario scenario) {
+        return switch (scenario) {
+            case NOMINAL -> nominalDays;
+            case MIN -> minDays;
+            case MAX -> maxDays;
+        };
+    }
+}
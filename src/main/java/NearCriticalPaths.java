@@ -0,0 +1,407 @@
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Enumerates the longest chains of a {@link TaskGraph}, longest first: the K longest distinct
+ * paths, or every path within some working days of the critical one.
+ * <p>
+ * A path runs from a task without dependencies to a task nothing depends on, and its length is
+ * the sum of the durations of its tasks in the scenario it is ranked by. For every node the
+ * longest length from it to the end of the graph (its tail) is computed once in reverse
+ * topological order, which also picks the successor each node follows on its longest tail.
+ * Any other successor is a sidetrack, and taking it costs the float it adds: how much shorter
+ * the best path through it is. A path is then the longest one with a sequence of sidetracks,
+ * and is shorter than the critical path by the sum of their costs.
+ * <p>
+ * The sidetracks that can still be taken from each node sit in a persistent leftist heap by
+ * cost, shared with the node it follows (Eppstein's k-shortest-paths construction, with the
+ * sidetracks of one node sorted instead of all in the heap). A best-first search over those
+ * heaps pops paths in increasing order of lost float, each pop pushing at most three others,
+ * so the cost of a path does not grow with its length or with the fan-out of "all" barriers.
+ * A candidate that has lost more float than allowed is never pushed, and neither is anything
+ * derived from it.
+ */
+@Slf4j
+public final class NearCriticalPaths {
+
+    private static final int SCENARIOS = Scenario.values().length;
+    private static final int NONE = -1;
+
+    private final TaskGraph graph;
+    private final Scenario scenario;
+    /**
+     * duration in working minutes by scenario ordinal and node, 0 for barriers
+     */
+    private final long[][] duration;
+    /**
+     * the virtual node before every node without predecessors, after the nodes of the graph
+     */
+    private final int start;
+    /**
+     * the longest length from the end of each node to the end of the graph
+     */
+    private final long[] after;
+    /**
+     * successors of each node, and the nodes without predecessors for {@link #start}, ordered by
+     * decreasing tail: the first is followed, the others are sidetracks
+     */
+    private final int[] choiceOffsets;
+    private final int[] choices;
+    private final long longest;
+
+    /**
+     * persistent leftist heap of the nodes with sidetracks, keyed by the cost of their cheapest one
+     */
+    private int[] heapNode = new int[1024];
+    private long[] heapKey = new long[1024];
+    private int[] heapLeft = new int[1024];
+    private int[] heapRight = new int[1024];
+    private int[] heapRank = new int[1024];
+    private int heapSize;
+    /**
+     * the heap of the sidetracks from each node and the nodes it follows to the end of the graph
+     */
+    private final int[] sidetracks;
+
+    private NearCriticalPaths(TaskGraph graph, Scenario scenario) {
+        this.graph = graph;
+        this.scenario = scenario;
+        int size = graph.size();
+        start = size;
+        duration = new long[SCENARIOS][size + 1];
+        for (int node = 0; node < graph.taskCount(); node++) {
+            for (Scenario s : Scenario.values()) {
+                duration[s.ordinal()][node] = WorkingCalendar.manDaysToMinutes(s.duration(graph.task(node)));
+            }
+        }
+        long[] ranked = duration[scenario.ordinal()];
+
+        int[] order = graph.topologicalOrder();
+        long[] tail = new long[size];
+        after = new long[size + 1];
+        for (int i = order.length - 1; i >= 0; i--) {
+            int node = order[i];
+            for (int k = graph.successorStart(node); k < graph.successorEnd(node); k++) {
+                after[node] = Math.max(after[node], tail[graph.successor(k)]);
+            }
+            tail[node] = ranked[node] + after[node];
+        }
+
+        choiceOffsets = new int[size + 2];
+        choices = new int[graph.edgeCount() + size];
+        int count = 0;
+        for (int node = 0; node < size; node++) {
+            choiceOffsets[node] = count;
+            for (int k = graph.successorStart(node); k < graph.successorEnd(node); k++) {
+                choices[count++] = graph.successor(k);
+            }
+            count = sortByTail(tail, choiceOffsets[node], count);
+        }
+        choiceOffsets[start] = count;
+        for (int node = 0; node < size; node++) {
+            if (graph.predecessorStart(node) == graph.predecessorEnd(node)) {
+                choices[count++] = node;
+            }
+        }
+        count = sortByTail(tail, choiceOffsets[start], count);
+        choiceOffsets[start + 1] = count;
+        longest = count > choiceOffsets[start] ? tail[choices[choiceOffsets[start]]] : 0;
+        after[start] = longest;
+
+        sidetracks = new int[size + 1];
+        for (int i = order.length - 1; i >= 0; i--) {
+            addSidetracks(order[i]);
+        }
+        addSidetracks(start);
+    }
+
+    /**
+     * @param scenario the scenario whose durations rank the paths
+     * @throws SchedulingException if the graph contains a circular dependency
+     */
+    public static NearCriticalPaths of(TaskGraph graph, Scenario scenario) {
+        return new NearCriticalPaths(graph, scenario);
+    }
+
+    public Scenario getScenario() {
+        return scenario;
+    }
+
+    /**
+     * @return the length of the longest path in working days
+     */
+    public double getLongestDays() {
+        return toDays(longest);
+    }
+
+    /**
+     * @return the {@code k} longest distinct paths, longest first
+     */
+    public List<NearCriticalPath> longest(int k) {
+        return enumerate(Long.MAX_VALUE, k);
+    }
+
+    /**
+     * @param days  how many working days shorter than the longest path a path may be
+     * @param limit the most paths to return, as dense plans can have very many near-critical ones
+     * @return the paths at most {@code days} shorter than the longest one, longest first
+     */
+    public List<NearCriticalPath> within(double days, int limit) {
+        return enumerate(WorkingCalendar.manDaysToMinutes(days), limit);
+    }
+
+    /**
+     * Pops candidates by lost float. A candidate is a path given by the sidetrack that ends it,
+     * the candidate whose path it extends, and the heap entry and rank of that sidetrack among
+     * those of its node.
+     */
+    private List<NearCriticalPath> enumerate(long maxSlack, int limit) {
+        long startNanos = System.nanoTime();
+        List<NearCriticalPath> paths = new ArrayList<>();
+        // a path through a barrier can have the same tasks as one around it, so paths are
+        // compared by a hash of their tasks, and by their ids when the hashes match
+        Map<Long, NearCriticalPath> seen = new HashMap<>();
+        Candidates candidates = new Candidates();
+        if (choiceOffsets[start + 1] > choiceOffsets[start]) {
+            candidates.push(NONE, NONE, 0, 0);
+        }
+        while (paths.size() < limit && !candidates.isEmpty()) {
+            int candidate = candidates.pop();
+            int heap = candidates.heap[candidate];
+            int rank = candidates.rank[candidate];
+            long slack = candidates.slack[candidate];
+            long[] hash = new long[1];
+            NearCriticalPath path = toPath(candidates, candidate, hash);
+            NearCriticalPath same = seen.putIfAbsent(hash[0], path);
+            if (same == null || !same.getTaskIds().equals(path.getTaskIds())) {
+                paths.add(path);
+            }
+
+            int target = start;
+            if (heap != NONE) {
+                int node = heapNode[heap];
+                int prefix = candidates.prefix[candidate];
+                long withoutSidetrack = slack - cost(node, rank);
+                if (rank == 1) {
+                    pushIfWithin(candidates, maxSlack, prefix, heapLeft[heap], 1, withoutSidetrack);
+                    pushIfWithin(candidates, maxSlack, prefix, heapRight[heap], 1, withoutSidetrack);
+                }
+                if (choiceOffsets[node] + rank + 1 < choiceOffsets[node + 1]) {
+                    long nextSlack = withoutSidetrack + cost(node, rank + 1);
+                    if (nextSlack <= maxSlack) {
+                        candidates.push(prefix, heap, rank + 1, nextSlack);
+                    }
+                }
+                target = choices[choiceOffsets[node] + rank];
+            }
+            pushIfWithin(candidates, maxSlack, candidate, sidetracks[target], 1, slack);
+        }
+        log.info("Found {} {} paths in {} ms from {} candidates", paths.size(), scenario,
+                String.format("%.1f", (System.nanoTime() - startNanos) / 1e6), candidates.size);
+        return paths;
+    }
+
+    private void pushIfWithin(Candidates candidates, long maxSlack, int prefix, int heap, int rank, long slack) {
+        if (heap != NONE && slack + heapKey[heap] <= maxSlack) {
+            candidates.push(prefix, heap, rank, slack + heapKey[heap]);
+        }
+    }
+
+    /**
+     * @return how much shorter the best path through the sidetrack of that rank is than the
+     * best path through the node
+     */
+    private long cost(int node, int rank) {
+        int choice = choices[choiceOffsets[node] + rank];
+        return after[node] - duration[scenario.ordinal()][choice] - after[choice];
+    }
+
+    /**
+     * Walks the path of a candidate: its sidetracks in order, and the followed successor
+     * everywhere else, summing the durations in every scenario.
+     *
+     * @param hash set to a 64-bit FNV-1a hash of the tasks on the path
+     */
+    private NearCriticalPath toPath(Candidates candidates, int candidate, long[] hash) {
+        IntList from = new IntList(16);
+        IntList to = new IntList(16);
+        for (int c = candidate; c != NONE && candidates.heap[c] != NONE; c = candidates.prefix[c]) {
+            int node = heapNode[candidates.heap[c]];
+            from.add(node);
+            to.add(choices[choiceOffsets[node] + candidates.rank[c]]);
+        }
+        List<String> ids = new ArrayList<>();
+        long[] totals = new long[SCENARIOS];
+        hash[0] = 0xcbf29ce484222325L;
+        int next = from.size() - 1;
+        int node = start;
+        while (choiceOffsets[node] < choiceOffsets[node + 1]) {
+            if (next >= 0 && from.get(next) == node) {
+                node = to.get(next--);
+            } else {
+                node = choices[choiceOffsets[node]];
+            }
+            for (int s = 0; s < SCENARIOS; s++) {
+                totals[s] += duration[s][node];
+            }
+            if (!graph.isBarrier(node)) {
+                ids.add(graph.id(node));
+                hash[0] = (hash[0] ^ node) * 0x100000001b3L;
+            }
+        }
+        return NearCriticalPath.of(ids, toDays(totals[Scenario.NOMINAL.ordinal()]), toDays(totals[Scenario.MIN.ordinal()]),
+                toDays(totals[Scenario.MAX.ordinal()]), toDays(longest - totals[scenario.ordinal()]));
+    }
+
+    private static double toDays(long minutes) {
+        return (double) minutes / WorkingCalendar.MINUTES_PER_DAY;
+    }
+
+    /**
+     * Sorts {@code choices[from, to)} by decreasing tail, packing tail and node into one long,
+     * which holds tails of any plan shorter than four thousand years. A dependency listed twice
+     * is kept once, as it would otherwise double every path through it.
+     *
+     * @return the end of the sorted choices
+     */
+    private int sortByTail(long[] tail, int from, int to) {
+        if (to - from < 2) {
+            return to;
+        }
+        long[] keys = new long[to - from];
+        for (int i = from; i < to; i++) {
+            keys[i - from] = (Long.MAX_VALUE >>> 32) - tail[choices[i]] << 32 | choices[i];
+        }
+        Arrays.sort(keys);
+        int end = from;
+        for (int i = 0; i < keys.length; i++) {
+            if (i == 0 || keys[i] != keys[i - 1]) {
+                choices[end++] = (int) keys[i];
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Sets the sidetracks of a node to those of the successor it follows, plus its own cheapest
+     * one if it has any. The successor's heap is shared, not copied.
+     */
+    private void addSidetracks(int node) {
+        int from = choiceOffsets[node];
+        int to = choiceOffsets[node + 1];
+        int heap = to > from ? sidetracks[choices[from]] : NONE;
+        if (to - from > 1) {
+            heap = merge(heap, newHeapNode(node, cost(node, 1), NONE, NONE, 1));
+        }
+        sidetracks[node] = heap;
+    }
+
+    /**
+     * Merges two leftist heaps without changing either, copying only the nodes on the right
+     * spine of the result.
+     */
+    private int merge(int left, int right) {
+        if (left == NONE) {
+            return right;
+        }
+        if (right == NONE) {
+            return left;
+        }
+        if (heapKey[right] < heapKey[left]) {
+            int swap = left;
+            left = right;
+            right = swap;
+        }
+        int mergedRight = merge(heapRight[left], right);
+        int keptLeft = heapLeft[left];
+        if (rank(keptLeft) < rank(mergedRight)) {
+            return newHeapNode(heapNode[left], heapKey[left], mergedRight, keptLeft, rank(keptLeft) + 1);
+        }
+        return newHeapNode(heapNode[left], heapKey[left], keptLeft, mergedRight, rank(mergedRight) + 1);
+    }
+
+    private int rank(int heap) {
+        return heap == NONE ? 0 : heapRank[heap];
+    }
+
+    private int newHeapNode(int node, long key, int left, int right, int rank) {
+        if (heapSize == heapNode.length) {
+            int capacity = heapSize * 2;
+            heapNode = Arrays.copyOf(heapNode, capacity);
+            heapKey = Arrays.copyOf(heapKey, capacity);
+            heapLeft = Arrays.copyOf(heapLeft, capacity);
+            heapRight = Arrays.copyOf(heapRight, capacity);
+            heapRank = Arrays.copyOf(heapRank, capacity);
+        }
+        heapNode[heapSize] = node;
+        heapKey[heapSize] = key;
+        heapLeft[heapSize] = left;
+        heapRight[heapSize] = right;
+        heapRank[heapSize] = rank;
+        return heapSize++;
+    }
+
+    /**
+     * Candidate paths, with a binary min-heap of their lost float.
+     */
+    private static final class Candidates {
+
+        private int[] prefix = new int[1024];
+        private int[] heap = new int[1024];
+        private int[] rank = new int[1024];
+        private long[] slack = new long[1024];
+        private int size;
+        private int[] queue = new int[1024];
+        private int queueSize;
+
+        void push(int pushedPrefix, int pushedHeap, int pushedRank, long pushedSlack) {
+            if (size == prefix.length) {
+                prefix = Arrays.copyOf(prefix, size * 2);
+                heap = Arrays.copyOf(heap, size * 2);
+                rank = Arrays.copyOf(rank, size * 2);
+                slack = Arrays.copyOf(slack, size * 2);
+            }
+            prefix[size] = pushedPrefix;
+            heap[size] = pushedHeap;
+            rank[size] = pushedRank;
+            slack[size] = pushedSlack;
+            if (queueSize == queue.length) {
+                queue = Arrays.copyOf(queue, queueSize * 2);
+            }
+            int i = queueSize++;
+            while (i > 0 && slack[queue[(i - 1) / 2]] > pushedSlack) {
+                queue[i] = queue[(i - 1) / 2];
+                i = (i - 1) / 2;
+            }
+            queue[i] = size++;
+        }
+
+        boolean isEmpty() {
+            return queueSize == 0;
+        }
+
+        int pop() {
+            int top = queue[0];
+            int last = queue[--queueSize];
+            int i = 0;
+            while (2 * i + 1 < queueSize) {
+                int child = 2 * i + 1;
+                if (child + 1 < queueSize && slack[queue[child + 1]] < slack[queue[child]]) {
+                    child++;
+                }
+                if (slack[queue[child]] >= slack[last]) {
+                    break;
+                }
+                queue[i] = queue[child];
+                i = child;
+            }
+            queue[i] = last;
+            return top;
+        }
+    }
+}
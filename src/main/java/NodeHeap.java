@@ -0,0 +1,87 @@
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of graph nodes keyed by a {@code long}, on parallel primitive arrays. Equal
+ * keys come out in ascending node order, so schedules built on it are deterministic.
+ */
+final class NodeHeap {
+
+    private long[] keys;
+    private int[] nodes;
+    private int size;
+
+    NodeHeap(int initialCapacity) {
+        keys = new long[Math.max(initialCapacity, 8)];
+        nodes = new int[keys.length];
+    }
+
+    void push(long key, int node) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            nodes = Arrays.copyOf(nodes, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!less(key, node, keys[parent], nodes[parent])) {
+                break;
+            }
+            keys[i] = keys[parent];
+            nodes[i] = nodes[parent];
+            i = parent;
+        }
+        keys[i] = key;
+        nodes[i] = node;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long peekKey() {
+        return keys[0];
+    }
+
+    int peekNode() {
+        return nodes[0];
+    }
+
+    /**
+     * Removes the smallest entry.
+     *
+     * @return its node
+     */
+    int pop() {
+        int top = nodes[0];
+        size--;
+        long key = keys[size];
+        int node = nodes[size];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && less(keys[child + 1], nodes[child + 1], keys[child], nodes[child])) {
+                child++;
+            }
+            if (!less(keys[child], nodes[child], key, node)) {
+                break;
+            }
+            keys[i] = keys[child];
+            nodes[i] = nodes[child];
+            i = child;
+        }
+        keys[i] = key;
+        nodes[i] = node;
+        return top;
+    }
+
+    private static boolean less(long key, int node, long otherKey, int otherNode) {
+        return key < otherKey || key == otherKey && node < otherNode;
+    }
+}
@@ -0,0 +1,272 @@
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Schedules many task exports, one project each, whose tasks may depend on tasks of other
+ * projects.
+ * <p>
+ * Inside a project, ids and selectors are the plain ones of its export. A dependency on
+ * another project names it, as in {@code "projA:12"}. Each project gets its own
+ * {@link TaskGraph} and {@link ScheduleStore}; a reference into another project is not an
+ * edge of that graph but an external predecessor whose dates are copied from the other
+ * store. The dates are the same as if all projects were one graph.
+ * <p>
+ * The files are parsed concurrently. Then every project is scheduled on the pool of the
+ * {@link ScheduleOptions} as soon as the projects it references are done. Independent
+ * projects run side by side, and projects that depend on each other run in their topological
+ * order. The calendar, pool and options are shared by all projects. Each cross-project id is
+ * resolved once, in a single table for the whole portfolio.
+ */
+@Slf4j
+public class Portfolio {
+
+    public static final String PROJECT_SEPARATOR = ":";
+    private static final String CSV_SUFFIX = ".csv";
+
+    private final Map<String, ScheduleResult> results;
+
+    private Portfolio(Map<String, ScheduleResult> results) {
+        this.results = results;
+    }
+
+    /**
+     * Schedules the exports as projects named after their file names without {@code .csv}.
+     */
+    public static Portfolio schedule(Collection<Path> inputs, ScheduleOptions options) throws IOException {
+        Map<String, Path> projects = new LinkedHashMap<>();
+        for (Path input : inputs) {
+            String name = input.getFileName().toString();
+            projects.put(name.endsWith(CSV_SUFFIX) ? name.substring(0, name.length() - CSV_SUFFIX.length()) : name, input);
+        }
+        return schedule(projects, options);
+    }
+
+    /**
+     * @throws SchedulingException if a task depends on an unknown task, or if tasks or projects
+     *                             depend on each other in a cycle
+     */
+    public static Portfolio schedule(Map<String, Path> inputs, ScheduleOptions options) throws IOException {
+        if (options.getResourceLeveling() != null) {
+            throw new IllegalArgumentException("Resource leveling does not see dependencies between projects");
+        }
+        long startNanos = System.nanoTime();
+        List<String> names = new ArrayList<>(inputs.keySet());
+        int readerParallelism = Math.max(1, options.getReaderParallelism() / Math.max(1, names.size()));
+        List<CompletableFuture<TaskFile>> reads = new ArrayList<>();
+        for (String name : names) {
+            Path input = inputs.get(name);
+            reads.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return new TaskFileReader(readerParallelism, options.getPool()).read(input);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, options.getPool()));
+        }
+        List<Project> projects = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++) {
+            projects.add(new Project(names.get(i), join(reads.get(i))));
+        }
+
+        Map<String, Project> projectsByName = new HashMap<>();
+        projects.forEach(project -> projectsByName.put(project.name, project));
+        Map<String, Reference> references = resolveReferences(projects, projectsByName);
+        List<Project> order = projectOrder(projects);
+
+        Map<Project, CompletableFuture<ScheduleResult>> futures = new ConcurrentHashMap<>();
+        for (Project project : order) {
+            CompletableFuture<?>[] dependencies = project.dependencies.stream().map(futures::get).toArray(CompletableFuture[]::new);
+            futures.put(project, CompletableFuture.allOf(dependencies)
+                    .thenApplyAsync(ignored -> schedule(project, projectsByName, references, futures, options), options.getPool()));
+        }
+        Map<String, ScheduleResult> results = new LinkedHashMap<>();
+        for (Project project : order) {
+            results.put(project.name, join(futures.get(project)));
+        }
+        log.info("Scheduled {} projects in {} ms", results.size(), String.format("%.1f", (System.nanoTime() - startNanos) / 1e6));
+        return new Portfolio(results);
+    }
+
+    /**
+     * @return the project names, every project after those it depends on
+     */
+    public List<String> getProjects() {
+        return List.copyOf(results.keySet());
+    }
+
+    /**
+     * @return the schedule of the project, or null if there is no such project
+     */
+    public ScheduleResult getResult(String project) {
+        return results.get(project);
+    }
+
+    /**
+     * @return a copy of the task {@code project:id} with its dates, or null if there is none
+     */
+    public Task getTask(String qualifiedId) {
+        int separator = qualifiedId.indexOf(PROJECT_SEPARATOR);
+        ScheduleResult result = separator < 0 ? null : results.get(qualifiedId.substring(0, separator));
+        return result == null ? null : result.getTask(qualifiedId.substring(separator + PROJECT_SEPARATOR.length()));
+    }
+
+    /**
+     * Writes every project to {@code <project>.csv} in {@code directory}.
+     */
+    public void write(Path directory) throws IOException {
+        for (Map.Entry<String, ScheduleResult> entry : results.entrySet()) {
+            entry.getValue().write(directory.resolve(entry.getKey() + CSV_SUFFIX));
+        }
+    }
+
+    /**
+     * Finds the dependencies that name another project and checks that their tasks exist.
+     *
+     * @return the referenced tasks by qualified id
+     */
+    private static Map<String, Reference> resolveReferences(List<Project> projects, Map<String, Project> projectsByName) {
+        Map<String, Reference> references = new HashMap<>();
+        List<String> unknown = new ArrayList<>();
+        for (Project project : projects) {
+            for (Task task : project.tasks) {
+                if (!task.hasDependencies()) {
+                    continue;
+                }
+                for (String dependency : task.getDependenciesAsArray()) {
+                    Project target = referencedProject(dependency, project, projectsByName);
+                    if (target == null) {
+                        continue;
+                    }
+                    project.dependencies.add(target);
+                    Reference reference = references.computeIfAbsent(dependency, id -> new Reference(target, id.substring(target.name.length() + PROJECT_SEPARATOR.length())));
+                    if (!target.ids.contains(reference.id)) {
+                        unknown.add(project.name + PROJECT_SEPARATOR + task.getId() + " -> " + dependency);
+                    }
+                }
+            }
+        }
+        if (!unknown.isEmpty()) {
+            throw new SchedulingException("Tasks depend on unknown task ids", unknown);
+        }
+        return references;
+    }
+
+    /**
+     * @return the other project that {@code dependency} names, or null if it is a dependency
+     * inside {@code project}
+     */
+    private static Project referencedProject(String dependency, Project project, Map<String, Project> projectsByName) {
+        int separator = dependency.indexOf(PROJECT_SEPARATOR);
+        if (separator < 0 || project.ids.contains(dependency)) {
+            return null;
+        }
+        Project target = projectsByName.get(dependency.substring(0, separator));
+        return target == project ? null : target;
+    }
+
+    /**
+     * Orders the projects so that every project comes after those it references (Kahn's algorithm).
+     */
+    private static List<Project> projectOrder(List<Project> projects) {
+        Map<Project, Integer> waitingFor = new HashMap<>();
+        Map<Project, List<Project>> dependents = new HashMap<>();
+        Deque<Project> ready = new ArrayDeque<>();
+        for (Project project : projects) {
+            waitingFor.put(project, project.dependencies.size());
+            for (Project dependency : project.dependencies) {
+                dependents.computeIfAbsent(dependency, key -> new ArrayList<>()).add(project);
+            }
+            if (project.dependencies.isEmpty()) {
+                ready.add(project);
+            }
+        }
+        List<Project> order = new ArrayList<>(projects.size());
+        while (!ready.isEmpty()) {
+            Project project = ready.poll();
+            order.add(project);
+            for (Project dependent : dependents.getOrDefault(project, List.of())) {
+                if (waitingFor.merge(dependent, -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        if (order.size() < projects.size()) {
+            List<String> cyclic = projects.stream().filter(project -> !order.contains(project)).map(project -> project.name).toList();
+            throw new SchedulingException("Projects depend on each other in a cycle", cyclic);
+        }
+        return order;
+    }
+
+    private static ScheduleResult schedule(Project project, Map<String, Project> projectsByName, Map<String, Reference> references,
+                                           Map<Project, CompletableFuture<ScheduleResult>> futures, ScheduleOptions options) {
+        ScheduleMetrics metrics = new ScheduleMetrics(options.getPool());
+        TaskGraph graph = metrics.time(ScheduleMetrics.Phase.GRAPH_BUILD,
+                () -> TaskGraph.of(project.tasks, dependency -> referencedProject(dependency, project, projectsByName) != null));
+        return TaskScheduler.schedule(project.taskFile.getHeader(), graph, project.taskFile, options, metrics, store -> {
+            for (int node = 0; node < graph.taskCount(); node++) {
+                Task task = graph.task(node);
+                if (!task.hasDependencies()) {
+                    continue;
+                }
+                for (String dependency : task.getDependenciesAsArray()) {
+                    Reference reference = references.get(dependency);
+                    if (reference != null && reference.project != project) {
+                        ScheduleStore source = futures.get(reference.project).join().getStore();
+                        store.addExternalPredecessor(node, source, source.getGraph().indexOf(reference.id));
+                    }
+                }
+            }
+        });
+    }
+
+    private static <T> T join(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Project {
+
+        private final String name;
+        private final TaskFile taskFile;
+        private final Collection<Task> tasks;
+        private final Set<String> ids = new HashSet<>();
+        private final Set<Project> dependencies = new LinkedHashSet<>();
+
+        Project(String name, TaskFile taskFile) {
+            this.name = name;
+            this.taskFile = taskFile;
+            this.tasks = TaskScheduler.uniqueById(taskFile.getTasks());
+            tasks.forEach(task -> ids.add(task.getId()));
+        }
+    }
+
+    /**
+     * A task of another project, by its plain id there.
+     */
+    private static final class Reference {
+
+        private final Project project;
+        private final String id;
+
+        Reference(Project project, String id) {
+            this.project = project;
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,339 @@
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resource-leveled schedule of the nominal durations of a {@link TaskGraph}: a task starts
+ * only when its predecessors have ended and every resource pool it draws from has enough
+ * free units.
+ * <p>
+ * Resource columns are named {@code Resource:<pool>=<capacity>} in the header of the export,
+ * e.g. {@code Resource:Developers=4}, and hold the units a task needs for its whole
+ * duration; blank cells need none.
+ * <p>
+ * This is event-driven list scheduling. Tasks whose predecessors have ended go into a heap
+ * ordered by the {@link Priority} rule, running tasks into a heap ordered by end, and the
+ * clock jumps from one end to the next. At each step the ready tasks start in priority
+ * order if their pools have room; a task that does not fit waits in a heap of the pool that
+ * is short, and goes back to the ready heap once that pool has room for it, only as many at
+ * a time as the free units cover. Tasks that do not need the pool go ahead, but on a pool a
+ * waiting task is never overtaken by a lower-priority one, so large requests are not
+ * starved. All queues are binary heaps of primitive keys and a step looks only at the tops of
+ * the pool heaps, so a run takes {@code O((V + E) log V)} heap work plus one pass over the
+ * pools per step.
+ */
+@Slf4j
+public final class ResourceScheduler {
+
+    public static final String RESOURCE_COLUMN_PREFIX = "Resource:";
+
+    public enum Priority {
+        /**
+         * smallest total float of the unconstrained schedule first
+         */
+        LEAST_FLOAT,
+        /**
+         * longest remaining path to the end of the project first
+         */
+        LONGEST_PATH
+    }
+
+    private final TaskGraph graph;
+    private final WorkingCalendar calendar;
+    private final String[] resources;
+    private final int[] capacities;
+    private final int[] requirementOffsets;
+    private final int[] requirementResources;
+    private final int[] requirementUnits;
+    private final long[] duration;
+    /**
+     * the calendar of each task that works on its own, see {@link TaskGraph#taskCalendars}
+     */
+    private final WorkingCalendar[] taskCalendar;
+    private final long[] start;
+    private final long[] end;
+
+    private ResourceScheduler(TaskGraph graph, WorkingCalendar calendar, String[] resources, int[] capacities, int[][] requirements) {
+        if (resources.length != capacities.length || requirements.length != graph.taskCount()) {
+            throw new IllegalArgumentException("Expected one capacity per resource and one requirement row per task");
+        }
+        this.graph = graph;
+        this.calendar = calendar;
+        this.resources = resources.clone();
+        this.capacities = capacities.clone();
+
+        int size = graph.size();
+        requirementOffsets = new int[size + 1];
+        IntList pools = new IntList(size);
+        IntList units = new IntList(size);
+        List<String> oversized = new ArrayList<>();
+        for (int node = 0; node < graph.taskCount(); node++) {
+            for (int resource = 0; resource < resources.length; resource++) {
+                int needed = requirements[node][resource];
+                if (needed > 0) {
+                    pools.add(resource);
+                    units.add(needed);
+                    if (needed > capacities[resource]) {
+                        oversized.add(graph.id(node));
+                    }
+                }
+            }
+            requirementOffsets[node + 1] = pools.size();
+        }
+        for (int node = graph.taskCount(); node < size; node++) {
+            requirementOffsets[node + 1] = pools.size();
+        }
+        if (!oversized.isEmpty()) {
+            throw new SchedulingException("Tasks need more units than a resource pool has", oversized);
+        }
+        requirementResources = pools.toArray();
+        requirementUnits = units.toArray();
+
+        taskCalendar = graph.taskCalendars(calendar);
+        duration = new long[size];
+        for (int node = 0; node < graph.taskCount(); node++) {
+            duration[node] = WorkingCalendar.manDaysToMinutes(graph.task(node).getDuration());
+        }
+        start = new long[size];
+        end = new long[size];
+    }
+
+    /**
+     * @param requirements units of each resource needed by each task, indexed by task node
+     */
+    public static ResourceScheduler of(TaskGraph graph, WorkingCalendar calendar, String[] resources, int[] capacities, int[][] requirements) {
+        return new ResourceScheduler(graph, calendar, resources, capacities, requirements);
+    }
+
+    /**
+     * Reads the pools and requirements from the {@code Resource:} columns of the export that
+     * {@code graph} was built from. When an id appears more than once, the last row wins.
+     *
+     * @throws IllegalArgumentException if a resource column has no valid capacity
+     */
+    public static ResourceScheduler of(TaskFile taskFile, TaskGraph graph, WorkingCalendar calendar) {
+        String[] header = taskFile.getHeader();
+        int firstExtra = TaskScheduler.COLUMN_MAX_DURATION + 1;
+        int extraColumns = Math.max(0, header.length - firstExtra);
+        List<String> resources = new ArrayList<>();
+        IntList capacities = new IntList(extraColumns);
+        IntList columns = new IntList(extraColumns);
+        for (int column = 0; column < extraColumns; column++) {
+            String name = header[firstExtra + column];
+            if (isResourceColumn(name)) {
+                int separator = name.lastIndexOf('=');
+                try {
+                    capacities.add(Integer.parseInt(name.substring(separator + 1).trim()));
+                } catch (RuntimeException e) {
+                    throw new IllegalArgumentException("Expected " + RESOURCE_COLUMN_PREFIX + "<pool>=<capacity> but got " + name, e);
+                }
+                resources.add(name.substring(RESOURCE_COLUMN_PREFIX.length(), separator).trim());
+                columns.add(column);
+            }
+        }
+
+        int[][] requirements = new int[graph.taskCount()][resources.size()];
+        List<Task> tasks = taskFile.getTasks();
+        double[] extraDurations = taskFile.getExtraDurations();
+        for (int row = 0; row < tasks.size(); row++) {
+            int node = graph.indexOf(tasks.get(row).getId());
+            for (int resource = 0; resource < resources.size(); resource++) {
+                double units = extraDurations[row * extraColumns + columns.get(resource)];
+                requirements[node][resource] = units > 0 ? (int) Math.ceil(units) : 0;
+            }
+        }
+        return of(graph, calendar, resources.toArray(String[]::new), capacities.toArray(), requirements);
+    }
+
+    static boolean isResourceColumn(String name) {
+        return name.startsWith(RESOURCE_COLUMN_PREFIX);
+    }
+
+    public TaskGraph getGraph() {
+        return graph;
+    }
+
+    public int resourceCount() {
+        return resources.length;
+    }
+
+    public String resourceName(int resource) {
+        return resources[resource];
+    }
+
+    public int capacity(int resource) {
+        return capacities[resource];
+    }
+
+    /**
+     * @throws SchedulingException if the graph contains a circular dependency
+     */
+    public void schedule(LocalDate startDate, Priority priority) {
+        long startNanos = System.nanoTime();
+        int size = graph.size();
+        long[] priorities = priorities(priority);
+        int[] waitingFor = new int[size];
+        NodeHeap ready = new NodeHeap(1024);
+        NodeHeap running = new NodeHeap(1024);
+        NodeHeap[] waiting = new NodeHeap[resources.length];
+        for (int resource = 0; resource < resources.length; resource++) {
+            waiting[resource] = new NodeHeap(64);
+        }
+        int[] free = capacities.clone();
+        for (int node = 0; node < size; node++) {
+            waitingFor[node] = graph.predecessorEnd(node) - graph.predecessorStart(node);
+            if (waitingFor[node] == 0) {
+                ready.push(priorities[node], node);
+            }
+        }
+
+        long clock = calendar.toWorkingMinutes(startDate.atStartOfDay());
+        int finished = 0;
+        while (finished < size) {
+            boolean moved = true;
+            while (moved) {
+                while (!ready.isEmpty()) {
+                    int node = ready.pop();
+                    int shortPool = shortPool(node, free, waiting, priorities);
+                    if (shortPool >= 0) {
+                        waiting[shortPool].push(priorities[node], node);
+                        continue;
+                    }
+                    take(node, free, -1);
+                    start[node] = clock;
+                    end[node] = taskCalendar == null || taskCalendar[node] == null
+                            ? clock + duration[node]
+                            : calendar.endMinutes(clock, duration[node], taskCalendar[node]);
+                    running.push(end[node], node);
+                }
+                moved = false;
+                for (int resource = 0; resource < resources.length; resource++) {
+                    // only as many waiting tasks as the free units cover, so that tasks that
+                    // cannot start after all are not moved back and forth
+                    NodeHeap queue = waiting[resource];
+                    int reserved = 0;
+                    while (!queue.isEmpty() && reserved + units(queue.peekNode(), resource) <= free[resource]) {
+                        reserved += units(queue.peekNode(), resource);
+                        ready.push(queue.peekKey(), queue.pop());
+                        moved = true;
+                    }
+                }
+            }
+            clock = running.peekKey();
+            while (!running.isEmpty() && running.peekKey() == clock) {
+                int node = running.pop();
+                finished++;
+                take(node, free, 1);
+                for (int k = graph.successorStart(node); k < graph.successorEnd(node); k++) {
+                    int successor = graph.successor(k);
+                    if (--waitingFor[successor] == 0) {
+                        ready.push(priorities[successor], successor);
+                    }
+                }
+            }
+        }
+        log.info("Leveled {} tasks on {} resource pools in {} ms", graph.taskCount(), resources.length,
+                String.format("%.1f", (System.nanoTime() - startNanos) / 1e6));
+    }
+
+    /**
+     * @return the heap key of every node under the rule; smaller keys start first
+     */
+    private long[] priorities(Priority priority) {
+        int size = graph.size();
+        int[] order = graph.topologicalOrder();
+        long[] tail = new long[size];
+        for (int i = size - 1; i >= 0; i--) {
+            int node = order[i];
+            long longest = 0;
+            for (int k = graph.successorStart(node); k < graph.successorEnd(node); k++) {
+                longest = Math.max(longest, tail[graph.successor(k)]);
+            }
+            tail[node] = duration[node] + longest;
+        }
+        if (priority == Priority.LONGEST_PATH) {
+            for (int node = 0; node < size; node++) {
+                tail[node] = -tail[node];
+            }
+            return tail;
+        }
+
+        long[] earlyStart = new long[size];
+        long projectLength = 0;
+        for (int node : order) {
+            long latest = 0;
+            for (int k = graph.predecessorStart(node); k < graph.predecessorEnd(node); k++) {
+                int predecessor = graph.predecessor(k);
+                latest = Math.max(latest, earlyStart[predecessor] + duration[predecessor]);
+            }
+            earlyStart[node] = latest;
+            projectLength = Math.max(projectLength, latest + tail[node]);
+        }
+        long[] totalFloat = new long[size];
+        for (int node = 0; node < size; node++) {
+            totalFloat[node] = projectLength - tail[node] - earlyStart[node];
+        }
+        return totalFloat;
+    }
+
+    /**
+     * @return a pool that lacks the units the node needs or has a higher-priority task waiting
+     * for it, or -1 if the node can start
+     */
+    private int shortPool(int node, int[] free, NodeHeap[] waiting, long[] priorities) {
+        for (int k = requirementOffsets[node]; k < requirementOffsets[node + 1]; k++) {
+            int resource = requirementResources[k];
+            NodeHeap queue = waiting[resource];
+            if (free[resource] < requirementUnits[k] || !queue.isEmpty()
+                    && (queue.peekKey() < priorities[node] || queue.peekKey() == priorities[node] && queue.peekNode() < node)) {
+                return resource;
+            }
+        }
+        return -1;
+    }
+
+    private int units(int node, int resource) {
+        for (int k = requirementOffsets[node]; k < requirementOffsets[node + 1]; k++) {
+            if (requirementResources[k] == resource) {
+                return requirementUnits[k];
+            }
+        }
+        return 0;
+    }
+
+    private void take(int node, int[] free, int sign) {
+        for (int k = requirementOffsets[node]; k < requirementOffsets[node + 1]; k++) {
+            free[requirementResources[k]] += sign * requirementUnits[k];
+        }
+    }
+
+    public long startMinutes(int node) {
+        return start[node];
+    }
+
+    public long endMinutes(int node) {
+        return end[node];
+    }
+
+    public LocalDateTime startDate(int node) {
+        return calendar.fromWorkingMinutes(start[node]);
+    }
+
+    public LocalDateTime endDate(int node) {
+        return calendar.fromWorkingMinutes(end[node]);
+    }
+
+    /**
+     * @return the latest end of any task
+     */
+    public LocalDateTime projectEnd() {
+        long latest = Long.MIN_VALUE;
+        for (int node = 0; node < graph.size(); node++) {
+            latest = Math.max(latest, end[node]);
+        }
+        return calendar.fromWorkingMinutes(latest);
+    }
+}
@@ -0,0 +1,37 @@
+import java.time.LocalDateTime;
+
+/**
+ * The duration estimates a schedule is computed for. Tasks without a min or max estimate
+ * use their nominal duration and dates in that scenario.
+ */
+public enum Scenario {
+    NOMINAL,
+    MIN,
+    MAX;
+
+    public double duration(Task task) {
+        return switch (this) {
+            case NOMINAL -> task.getDuration();
+            case MIN -> task.getMinDuration() > -1 ? task.getMinDuration() : task.getDuration();
+            case MAX -> task.getMaxDuration() > -1 ? task.getMaxDuration() : task.getDuration();
+        };
+    }
+
+    public LocalDateTime start(Task task) {
+        LocalDateTime start = switch (this) {
+            case NOMINAL -> task.getStart();
+            case MIN -> task.getMinStart();
+            case MAX -> task.getMaxStart();
+        };
+        return start == null ? task.getStart() : start;
+    }
+
+    public LocalDateTime end(Task task) {
+        LocalDateTime end = switch (this) {
+            case NOMINAL -> task.getEnd();
+            case MIN -> task.getMinEnd();
+            case MAX -> task.getMaxEnd();
+        };
+        return end == null ? task.getEnd() : end;
+    }
+}
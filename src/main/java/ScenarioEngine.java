@@ -0,0 +1,263 @@
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Forward pass of a {@link TaskGraph} for any number of duration scenarios at once.
+ * <p>
+ * Scenario values are stored node by node, so the starts, ends and durations of one node in
+ * all scenarios are adjacent {@code long}s in working minutes. Each node visits its
+ * predecessors once and takes the max of their ends in every scenario from one run of
+ * memory, so graph traversal is paid per edge, not per edge and scenario.
+ * <p>
+ * A {@link ScheduleStore} schedules the duration columns after {@code Min} and {@code Max}
+ * with one of these, see {@link #extraColumns}. Unlike the store's own scenarios, every
+ * scenario here is a complete schedule of its own: a task without a value in a scenario
+ * column uses its nominal duration there, but it is still scheduled after its predecessors'
+ * ends in that scenario. Dates are always working minutes, so a project start on a
+ * non-working day begins on the next working day.
+ */
+public final class ScenarioEngine {
+
+    private final TaskGraph graph;
+    private final WorkingCalendar calendar;
+    private final String[] names;
+    private final int width;
+    private final long[] durations;
+    /**
+     * the calendar of each task that works on its own, see {@link TaskGraph#taskCalendars}
+     */
+    private final WorkingCalendar[] taskCalendar;
+    private final long[] start;
+    private final long[] end;
+    /**
+     * the latest end of the predecessors of a node outside this graph in each scenario, laid
+     * out like {@link #end}, or {@link Long#MIN_VALUE}; null while no node has any
+     */
+    private long[] externalEnd;
+
+    private ScenarioEngine(TaskGraph graph, WorkingCalendar calendar, String[] names, double[][] columns) {
+        if (names.length == 0 || names.length != columns.length) {
+            throw new IllegalArgumentException("Expected one name per scenario column, got " + names.length + " names and " + columns.length + " columns");
+        }
+        this.graph = graph;
+        this.calendar = calendar;
+        this.names = names.clone();
+        this.width = names.length;
+        long cells = (long) graph.size() * width;
+        if (cells > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many scenario values: " + graph.size() + " nodes x " + width + " scenarios");
+        }
+        taskCalendar = graph.taskCalendars(calendar);
+        durations = new long[(int) cells];
+        start = new long[(int) cells];
+        end = new long[(int) cells];
+        for (int scenario = 0; scenario < width; scenario++) {
+            if (columns[scenario].length != graph.taskCount()) {
+                throw new IllegalArgumentException("Scenario " + names[scenario] + " has " + columns[scenario].length + " durations for " + graph.taskCount() + " tasks");
+            }
+            for (int node = 0; node < graph.taskCount(); node++) {
+                double duration = columns[scenario][node] > -1 ? columns[scenario][node] : graph.task(node).getDuration();
+                durations[node * width + scenario] = WorkingCalendar.manDaysToMinutes(duration);
+            }
+        }
+    }
+
+    /**
+     * @param columns one array of durations in man-days per scenario, indexed by task node; -1
+     *                means the task's nominal duration
+     */
+    public static ScenarioEngine of(TaskGraph graph, WorkingCalendar calendar, String[] names, double[][] columns) {
+        return new ScenarioEngine(graph, calendar, names, columns);
+    }
+
+    /**
+     * Uses every duration column of the export as a scenario named after its header: the
+     * nominal duration, the min and max durations if present, and any further columns except
+     * the {@link ResourceScheduler} ones. {@code graph} must have been built from the tasks of
+     * {@code taskFile}, or be a reduction of such a graph; when an id appears more than once,
+     * the last row wins, as in the graph.
+     */
+    public static ScenarioEngine of(TaskFile taskFile, TaskGraph graph, WorkingCalendar calendar) {
+        return of(taskFile, graph, calendar, true);
+    }
+
+    /**
+     * Like {@link #of(TaskFile, TaskGraph, WorkingCalendar)}, but with only the duration
+     * columns after {@code Min} and {@code Max}.
+     *
+     * @return the engine, or null if the export has no such columns
+     */
+    public static ScenarioEngine extraColumns(TaskFile taskFile, TaskGraph graph, WorkingCalendar calendar) {
+        return hasExtraColumns(taskFile.getHeader()) ? of(taskFile, graph, calendar, false) : null;
+    }
+
+    /**
+     * @return whether the header has duration columns after {@code Min} and {@code Max}
+     */
+    public static boolean hasExtraColumns(String[] header) {
+        for (int column = TaskScheduler.COLUMN_MAX_DURATION + 1; column < header.length; column++) {
+            if (!ResourceScheduler.isResourceColumn(header[column])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ScenarioEngine of(TaskFile taskFile, TaskGraph graph, WorkingCalendar calendar, boolean estimates) {
+        String[] header = taskFile.getHeader();
+        int firstExtra = TaskScheduler.COLUMN_MAX_DURATION + 1;
+        int extraColumns = Math.max(0, header.length - firstExtra);
+        int width = estimates ? Math.max(1, Math.min(header.length, firstExtra) - TaskScheduler.COLUMN_DURATION) : 0;
+        IntList scenarioColumns = new IntList(extraColumns);
+        List<String> names = new ArrayList<>(Arrays.asList(header).subList(TaskScheduler.COLUMN_DURATION, TaskScheduler.COLUMN_DURATION + width));
+        for (int extra = 0; extra < extraColumns; extra++) {
+            if (!ResourceScheduler.isResourceColumn(header[firstExtra + extra])) {
+                scenarioColumns.add(extra);
+                names.add(header[firstExtra + extra]);
+            }
+        }
+        double[][] columns = new double[names.size()][graph.taskCount()];
+
+        List<Task> tasks = taskFile.getTasks();
+        double[] extraDurations = taskFile.getExtraDurations();
+        for (int row = 0; row < tasks.size(); row++) {
+            Task task = tasks.get(row);
+            int node = graph.indexOf(task.getId());
+            if (node < 0 || graph.isBarrier(node)) {
+                continue;
+            }
+            if (width > 0) {
+                columns[0][node] = task.getDuration();
+            }
+            if (width > 1) {
+                columns[1][node] = task.getMinDuration();
+            }
+            if (width > 2) {
+                columns[2][node] = task.getMaxDuration();
+            }
+            for (int i = 0; i < scenarioColumns.size(); i++) {
+                columns[width + i][node] = extraDurations[row * extraColumns + scenarioColumns.get(i)];
+            }
+        }
+        return of(graph, calendar, names.toArray(String[]::new), columns);
+    }
+
+    public TaskGraph getGraph() {
+        return graph;
+    }
+
+    public int scenarioCount() {
+        return width;
+    }
+
+    public String scenarioName(int scenario) {
+        return names[scenario];
+    }
+
+    /**
+     * @return the index of the scenario with that name, or -1
+     */
+    public int scenarioIndex(String name) {
+        for (int scenario = 0; scenario < width; scenario++) {
+            if (names[scenario].equals(name)) {
+                return scenario;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Adds a predecessor of {@code node} outside this graph, as {@link ScheduleStore} does for
+     * the tasks of other projects of a {@link Portfolio}.
+     *
+     * @param ends the ends of the predecessor in each scenario of this engine
+     */
+    void addExternalPredecessor(int node, long[] ends) {
+        if (externalEnd == null) {
+            externalEnd = new long[end.length];
+            Arrays.fill(externalEnd, Long.MIN_VALUE);
+        }
+        int base = node * width;
+        for (int scenario = 0; scenario < width; scenario++) {
+            externalEnd[base + scenario] = Math.max(externalEnd[base + scenario], ends[scenario]);
+        }
+    }
+
+    void clearExternalPredecessors() {
+        externalEnd = null;
+    }
+
+    /**
+     * @throws SchedulingException if the graph contains a circular dependency
+     */
+    public void schedule(LocalDate startDate) {
+        long projectStart = calendar.toWorkingMinutes(startDate.atStartOfDay());
+        for (int node : graph.topologicalOrder()) {
+            int base = node * width;
+            Arrays.fill(start, base, base + width, projectStart);
+            if (externalEnd != null) {
+                max(start, base, externalEnd, base);
+            }
+            for (int k = graph.predecessorStart(node); k < graph.predecessorEnd(node); k++) {
+                max(start, base, end, graph.predecessor(k) * width);
+            }
+            if (taskCalendar == null || taskCalendar[node] == null) {
+                for (int i = base; i < base + width; i++) {
+                    end[i] = start[i] + durations[i];
+                }
+            } else {
+                for (int i = base; i < base + width; i++) {
+                    end[i] = calendar.endMinutes(start[i], durations[i], taskCalendar[node]);
+                }
+            }
+        }
+    }
+
+    /**
+     * {@code target[targetOffset + i] = max(target[targetOffset + i], source[sourceOffset + i])}
+     * for every scenario {@code i}
+     */
+    private void max(long[] target, int targetOffset, long[] source, int sourceOffset) {
+        for (int i = 0; i < width; i++) {
+            target[targetOffset + i] = Math.max(target[targetOffset + i], source[sourceOffset + i]);
+        }
+    }
+
+    public long startMinutes(int scenario, int node) {
+        return start[node * width + scenario];
+    }
+
+    public long endMinutes(int scenario, int node) {
+        return end[node * width + scenario];
+    }
+
+    public long startEpochDay(int scenario, int node) {
+        return calendar.epochDay(startMinutes(scenario, node));
+    }
+
+    public long endEpochDay(int scenario, int node) {
+        return calendar.epochDay(endMinutes(scenario, node));
+    }
+
+    public LocalDateTime startDate(int scenario, int node) {
+        return calendar.fromWorkingMinutes(startMinutes(scenario, node));
+    }
+
+    public LocalDateTime endDate(int scenario, int node) {
+        return calendar.fromWorkingMinutes(endMinutes(scenario, node));
+    }
+
+    /**
+     * @return the latest end of any task in the scenario
+     */
+    public LocalDateTime projectEnd(int scenario) {
+        long latest = Long.MIN_VALUE;
+        for (int node = 0; node < graph.size(); node++) {
+            latest = Math.max(latest, endMinutes(scenario, node));
+        }
+        return calendar.fromWorkingMinutes(latest);
+    }
+}
@@ -0,0 +1,131 @@
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Long-running scheduler that keeps the JVM, and therefore the JIT, warm across plans.
+ * <p>
+ * Jobs come either from a watched inbox directory, where every {@code .csv} file moved in is
+ * scheduled into the {@code results} subdirectory, or from a reader with one job per line:
+ * {@code input.csv result.csv [start-date]}. Every job runs on its own virtual thread when the
+ * runtime has them, otherwise on a pool with one thread per processor.
+ */
+@Slf4j
+public class ScheduleDaemon implements Closeable {
+
+    static final String RESULTS_DIRECTORY = "results";
+    private static final String INPUT_SUFFIX = ".csv";
+
+    private final ScheduleOptions options;
+    private final ExecutorService executor;
+
+    public ScheduleDaemon(ScheduleOptions options) {
+        this.options = options;
+        this.executor = newJobExecutor();
+    }
+
+    /**
+     * Schedules the files already in {@code inbox}, then every file created in it, until the
+     * thread is interrupted. Files should be moved into the inbox atomically, as they are read
+     * as soon as they appear.
+     */
+    public void watch(Path inbox) throws IOException, InterruptedException {
+        Path results = Files.createDirectories(inbox.resolve(RESULTS_DIRECTORY));
+        try (WatchService watchService = inbox.getFileSystem().newWatchService()) {
+            inbox.register(watchService, StandardWatchEventKinds.ENTRY_CREATE);
+            try (Stream<Path> files = Files.list(inbox)) {
+                files.forEach(file -> submitIfInput(file, results));
+            }
+            log.info("Watching {} for task files", inbox);
+            while (true) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.context() instanceof Path file) {
+                        submitIfInput(inbox.resolve(file), results);
+                    }
+                }
+                if (!key.reset()) {
+                    log.warn("{} is no longer accessible", inbox);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the jobs read from {@code jobs} until its end, then waits for them to finish.
+     */
+    public void readJobs(Reader jobs) throws IOException, InterruptedException {
+        BufferedReader reader = new BufferedReader(jobs);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String[] arguments = line.trim().split("\\s+");
+            if (arguments[0].isEmpty()) {
+                continue;
+            }
+            if (arguments.length < 2) {
+                log.error("Expected 'input.csv result.csv [start-date]' but got '{}'", line);
+                continue;
+            }
+            ScheduleOptions jobOptions = arguments.length > 2 ? options.withStartDate(LocalDate.parse(arguments[2], TaskScheduler.FORMATTER)) : options;
+            submit(Paths.get(arguments[0]), Paths.get(arguments[1]), jobOptions);
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Schedules {@code input} into {@code output} on the job executor.
+     */
+    public Future<?> submit(Path input, Path output, ScheduleOptions jobOptions) {
+        return executor.submit(() -> run(input, output, jobOptions));
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void submitIfInput(Path file, Path results) {
+        if (Files.isRegularFile(file) && file.getFileName().toString().endsWith(INPUT_SUFFIX)) {
+            submit(file, results.resolve(file.getFileName()), options);
+        }
+    }
+
+    private static void run(Path input, Path output, ScheduleOptions jobOptions) {
+        long startNanos = System.nanoTime();
+        try {
+            ScheduleResult result = TaskScheduler.schedule(input, jobOptions);
+            result.write(output);
+            log.info("Scheduled {} into {} in {} ms: {}", input, output, (System.nanoTime() - startNanos) / 1_000_000,
+                    result.getMetrics().toJson());
+        } catch (IOException e) {
+            log.error("Failed to read {} or write {}", input, output, e);
+        } catch (RuntimeException e) {
+            log.error("Failed to schedule {}", input, e);
+        }
+    }
+
+    /**
+     * Virtual threads are looked up reflectively so that the daemon still runs, on platform
+     * threads, on the Java versions the project compiles for.
+     */
+    private static ExecutorService newJobExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.info("Virtual threads are not available, running jobs on a thread pool");
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        }
+    }
+}
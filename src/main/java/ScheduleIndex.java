@@ -0,0 +1,424 @@
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.function.ToLongFunction;
+
+/**
+ * Interval index over the start and end of every task in one scenario, for queries such as
+ * "which tasks are active in week X", "what ends between these dates" or "what starts after
+ * milestone 24" without scanning all tasks.
+ * <p>
+ * Positions are {@code long}s: working minutes for a {@link ScheduleStore}, minutes since the
+ * epoch for an {@link IncrementalSchedule}. A task covers {@code [start, end)}; a task without
+ * duration covers its start minute. Query dates are turned into positions the same way, so on
+ * a {@link WorkingCalendar} a non-working moment counts as the start of the next working day.
+ * <p>
+ * Active tasks come from a centered interval tree: each tree node keeps the tasks covering
+ * its center sorted by start and by end, and a query scans only the tasks it reports before
+ * going down one side. Starts and ends are also kept sorted for range queries. Built trees are
+ * never changed in place. {@link #update} instead puts the moved task into a small secondary
+ * tree, and the secondary trees are kept at sizes 1, 2, 4 and so on by merging them like the
+ * digits of a binary counter. Every tree skips the tasks that a newer tree holds. Once there
+ * are enough moved tasks, everything is rebuilt into one tree. A query then takes
+ * {@code O(log^2 n + k)} for {@code k} results, plus the outdated entries of moved tasks it
+ * skips, and an update takes amortized {@code O(log^2 n)}.
+ */
+public final class ScheduleIndex {
+
+    /**
+     * the index is rebuilt once more than {@code size / REBUILD_FRACTION + MIN_CHANGES} tasks
+     * have been put into secondary trees since it was built
+     */
+    static final int REBUILD_FRACTION = 16;
+    static final int MIN_CHANGES = 32;
+    private static final int NONE = -1;
+    private static final int MAIN = 0;
+
+    private final ToLongFunction<LocalDateTime> position;
+    private final long[] start;
+    private final long[] end;
+    /**
+     * the tree of each task that holds its current positions: {@link #MAIN}, or the secondary
+     * tree {@code i} that holds at most {@code 2^(i - 1)} tasks
+     */
+    private final int[] treeOf;
+    private Tree[] trees = new Tree[2];
+    private int changes;
+
+    private ScheduleIndex(long[] start, long[] end, ToLongFunction<LocalDateTime> position) {
+        if (start.length != end.length) {
+            throw new IllegalArgumentException("Expected one end per start, got " + start.length + " starts and " + end.length + " ends");
+        }
+        this.position = position;
+        this.start = start.clone();
+        this.end = end.clone();
+        treeOf = new int[start.length];
+        build();
+    }
+
+    /**
+     * Indexes the tasks of the store in the scenario, using their nominal dates where they have
+     * none of their own there.
+     */
+    public static ScheduleIndex of(ScheduleStore store, Scenario scenario) {
+        int taskCount = store.getGraph().taskCount();
+        long[] start = new long[taskCount];
+        long[] end = new long[taskCount];
+        for (int node = 0; node < taskCount; node++) {
+            start[node] = store.startMinutes(scenario, node);
+            end[node] = store.endMinutes(scenario, node);
+        }
+        WorkingCalendar calendar = store.getCalendar();
+        return new ScheduleIndex(start, end, calendar::toWorkingMinutes);
+    }
+
+    /**
+     * @param position turns a query date into a position comparable to {@code start} and
+     *                 {@code end}
+     */
+    static ScheduleIndex of(long[] start, long[] end, ToLongFunction<LocalDateTime> position) {
+        return new ScheduleIndex(start, end, position);
+    }
+
+    static long epochMinutes(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    public int size() {
+        return start.length;
+    }
+
+    public long startPosition(int node) {
+        return start[node];
+    }
+
+    public long endPosition(int node) {
+        return end[node];
+    }
+
+    /**
+     * Moves a task to new positions. The index stays valid; it is rebuilt when enough tasks
+     * have moved.
+     */
+    public void update(int node, long newStart, long newEnd) {
+        if (start[node] == newStart && end[node] == newEnd) {
+            return;
+        }
+        start[node] = newStart;
+        end[node] = newEnd;
+        if (++changes > start.length / REBUILD_FRACTION + MIN_CHANGES) {
+            build();
+            return;
+        }
+        // the first empty secondary tree takes the task and the current tasks of all smaller ones
+        int target = 1;
+        while (target < trees.length && trees[target] != null) {
+            target++;
+        }
+        if (target == trees.length) {
+            trees = Arrays.copyOf(trees, trees.length + 1);
+        }
+        treeOf[node] = NONE;
+        IntList nodes = new IntList(1 << target - 1);
+        nodes.add(node);
+        for (int tree = 1; tree < target; tree++) {
+            for (int other : trees[tree].nodes) {
+                if (treeOf[other] == tree) {
+                    nodes.add(other);
+                }
+            }
+            trees[tree] = null;
+        }
+        for (int i = 0; i < nodes.size(); i++) {
+            treeOf[nodes.get(i)] = target;
+        }
+        trees[target] = new Tree(target, nodes.toArray(), start, end);
+    }
+
+    /**
+     * @return the tasks active at {@code time}, in no particular order
+     */
+    public int[] activeAt(LocalDateTime time) {
+        return activeAt(position.applyAsLong(time));
+    }
+
+    public int[] activeAt(long time) {
+        IntList result = new IntList(16);
+        for (Tree tree : trees) {
+            if (tree != null) {
+                tree.stab(time, treeOf, result);
+            }
+        }
+        return result.toArray();
+    }
+
+    /**
+     * @return the tasks active at some time in {@code [from, to)}, in no particular order
+     */
+    public int[] activeBetween(LocalDateTime from, LocalDateTime to) {
+        return activeBetween(position.applyAsLong(from), position.applyAsLong(to));
+    }
+
+    public int[] activeBetween(long from, long to) {
+        IntList result = new IntList(16);
+        if (from >= to) {
+            return result.toArray();
+        }
+        for (Tree tree : trees) {
+            if (tree != null) {
+                // a task overlapping the range either covers its first minute or starts inside it
+                tree.stab(from, treeOf, result);
+                tree.collect(tree.sortedStarts, tree.byStart, from + 1, to, treeOf, result);
+            }
+        }
+        return result.toArray();
+    }
+
+    /**
+     * @return the tasks starting in {@code [from, to)}, in no particular order
+     */
+    public int[] startingBetween(LocalDateTime from, LocalDateTime to) {
+        return startingBetween(position.applyAsLong(from), position.applyAsLong(to));
+    }
+
+    public int[] startingBetween(long from, long to) {
+        IntList result = new IntList(16);
+        for (Tree tree : trees) {
+            if (tree != null) {
+                tree.collect(tree.sortedStarts, tree.byStart, from, to, treeOf, result);
+            }
+        }
+        return result.toArray();
+    }
+
+    /**
+     * @return the tasks ending in {@code [from, to)}, in no particular order
+     */
+    public int[] endingBetween(LocalDateTime from, LocalDateTime to) {
+        return endingBetween(position.applyAsLong(from), position.applyAsLong(to));
+    }
+
+    public int[] endingBetween(long from, long to) {
+        IntList result = new IntList(16);
+        for (Tree tree : trees) {
+            if (tree != null) {
+                tree.collect(tree.sortedEnds, tree.byEnd, from, to, treeOf, result);
+            }
+        }
+        return result.toArray();
+    }
+
+    /**
+     * @return the other tasks starting no earlier than {@code node} ends, in no particular order
+     */
+    public int[] startingAfter(int node) {
+        IntList result = new IntList(16);
+        for (int other : startingBetween(end[node], Long.MAX_VALUE)) {
+            if (other != node) {
+                result.add(other);
+            }
+        }
+        return result.toArray();
+    }
+
+    private void build() {
+        Arrays.fill(treeOf, MAIN);
+        changes = 0;
+        trees = new Tree[2];
+        trees[MAIN] = new Tree(MAIN, identity(start.length), start, end);
+    }
+
+    private static long coveredEnd(long start, long end) {
+        return Math.max(end, start + 1);
+    }
+
+    private static int lowerBound(long[] sorted, long key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int[] identity(int size) {
+        int[] nodes = new int[size];
+        for (int node = 0; node < size; node++) {
+            nodes[node] = node;
+        }
+        return nodes;
+    }
+
+    /**
+     * Interval tree and sorted starts and ends over some of the tasks, with their positions
+     * when it was built. Tasks are numbered within the tree by their place in {@link #nodes}.
+     */
+    private static final class Tree {
+
+        private final int id;
+        private final int[] nodes;
+        private final long base;
+        private final long[] builtStart;
+        /**
+         * the end of each task when the tree was built, at least one minute after its start
+         */
+        private final long[] builtCover;
+        private final int[] byStart;
+        private final long[] sortedStarts;
+        private final int[] byEnd;
+        private final long[] sortedEnds;
+        private final int root;
+        private final long[] center;
+        private final int[] left;
+        private final int[] right;
+        private final int[] coveringOffsets;
+        private final int[] coveringByStart;
+        private final int[] coveringByEnd;
+
+        private Tree(int id, int[] nodes, long[] start, long[] end) {
+            this.id = id;
+            this.nodes = nodes;
+            int size = nodes.length;
+            long first = Long.MAX_VALUE;
+            long last = Long.MIN_VALUE;
+            builtStart = new long[size];
+            builtCover = new long[size];
+            long[] builtEnd = new long[size];
+            for (int i = 0; i < size; i++) {
+                builtStart[i] = start[nodes[i]];
+                builtEnd[i] = end[nodes[i]];
+                builtCover[i] = coveredEnd(builtStart[i], builtEnd[i]);
+                first = Math.min(first, Math.min(builtStart[i], builtEnd[i]));
+                last = Math.max(last, builtCover[i]);
+            }
+            if (size > 0 && last - first > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Positions span more than " + Integer.MAX_VALUE + " minutes");
+            }
+            base = first;
+
+            byStart = identity(size);
+            sortBy(builtStart, byStart, 0, size);
+            sortedStarts = new long[size];
+            for (int i = 0; i < size; i++) {
+                sortedStarts[i] = builtStart[byStart[i]];
+            }
+            byEnd = identity(size);
+            sortBy(builtEnd, byEnd, 0, size);
+            sortedEnds = new long[size];
+            for (int i = 0; i < size; i++) {
+                sortedEnds[i] = builtEnd[byEnd[i]];
+            }
+
+            center = new long[size];
+            left = new int[size];
+            right = new int[size];
+            coveringOffsets = new int[size + 1];
+            coveringByStart = new int[size];
+            coveringByEnd = new int[size];
+            root = buildTree(byStart.clone(), 0, size, new int[size], new int[2]);
+        }
+
+        /**
+         * Walks down the tree from the root. Above the center, the covering tasks that start by
+         * {@code time} are active and the rest of the answer lies to the left; from the center
+         * on, those that end after it are active and the rest lies to the right.
+         */
+        private void stab(long time, int[] treeOf, IntList result) {
+            int treeNode = root;
+            while (treeNode != NONE) {
+                int from = coveringOffsets[treeNode];
+                int to = coveringOffsets[treeNode + 1];
+                if (time < center[treeNode]) {
+                    for (int i = from; i < to && builtStart[coveringByStart[i]] <= time; i++) {
+                        addCurrent(coveringByStart[i], treeOf, result);
+                    }
+                    treeNode = left[treeNode];
+                } else {
+                    for (int i = from; i < to && builtCover[coveringByEnd[i]] > time; i++) {
+                        addCurrent(coveringByEnd[i], treeOf, result);
+                    }
+                    treeNode = right[treeNode];
+                }
+            }
+        }
+
+        private void collect(long[] sorted, int[] tasks, long from, long to, int[] treeOf, IntList result) {
+            for (int i = lowerBound(sorted, from); i < sorted.length && sorted[i] < to; i++) {
+                addCurrent(tasks[i], treeOf, result);
+            }
+        }
+
+        private void addCurrent(int task, int[] treeOf, IntList result) {
+            if (treeOf[nodes[task]] == id) {
+                result.add(nodes[task]);
+            }
+        }
+
+        /**
+         * Builds the subtree of the tasks in {@code tasks[from, to)}, which are sorted by start.
+         * The center is the start of the middle task, so at least that task covers it and neither
+         * side keeps more than half of the tasks. Tree nodes and their covering tasks are numbered
+         * in preorder, so the covering tasks of a tree node end where those of the next one begin.
+         *
+         * @param counts the number of tree nodes and covering tasks placed so far
+         * @return the tree node, or {@link #NONE} if there are no tasks
+         */
+        private int buildTree(int[] tasks, int from, int to, int[] buffer, int[] counts) {
+            if (from == to) {
+                return NONE;
+            }
+            long treeCenter = builtStart[tasks[(from + to) >>> 1]];
+            int before = from;
+            int after = 0;
+            int first = counts[1];
+            int covering = first;
+            for (int i = from; i < to; i++) {
+                int task = tasks[i];
+                if (builtCover[task] <= treeCenter) {
+                    tasks[before++] = task;
+                } else if (builtStart[task] > treeCenter) {
+                    buffer[after++] = task;
+                } else {
+                    coveringByStart[covering++] = task;
+                }
+            }
+            System.arraycopy(buffer, 0, tasks, before, after);
+            System.arraycopy(coveringByStart, first, coveringByEnd, first, covering - first);
+            sortBy(builtCover, coveringByEnd, first, covering);
+            for (int i = first, j = covering - 1; i < j; i++, j--) {
+                int swap = coveringByEnd[i];
+                coveringByEnd[i] = coveringByEnd[j];
+                coveringByEnd[j] = swap;
+            }
+
+            int treeNode = counts[0]++;
+            center[treeNode] = treeCenter;
+            coveringOffsets[treeNode] = first;
+            coveringOffsets[treeNode + 1] = covering;
+            counts[1] = covering;
+            left[treeNode] = buildTree(tasks, from, before, buffer, counts);
+            right[treeNode] = buildTree(tasks, before, before + after, buffer, counts);
+            return treeNode;
+        }
+
+        /**
+         * Sorts {@code tasks[from, to)} by ascending position, then task, as
+         * {@code (position - base) << 32 | task}.
+         */
+        private void sortBy(long[] positions, int[] tasks, int from, int to) {
+            long[] keys = new long[to - from];
+            for (int i = from; i < to; i++) {
+                keys[i - from] = positions[tasks[i]] - base << 32 | tasks[i];
+            }
+            Arrays.sort(keys);
+            for (int i = from; i < to; i++) {
+                tasks[i] = (int) keys[i - from];
+            }
+        }
+    }
+}
@@ -0,0 +1,281 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * Wall time and allocation per phase of one schedule run, plus a few counters describing the
+ * graph and how it was resolved.
+ * <p>
+ * Phases are measured with {@link #time(Phase, Work)} around whole steps, never per task, so the
+ * instrumentation costs a handful of clock reads per run. Every phase is also committed as a
+ * {@code critical_path_generator.SchedulePhase} Flight Recorder event, which is free when no
+ * recording is running. Allocated bytes are the growth of the allocation counters of the thread
+ * that runs the phase and of the workers of the pools the run parses and schedules on, so the
+ * work of other threads in the JVM is left out. A pool shared with concurrent runs, such as the
+ * common pool, still counts their work while it overlaps the phase. They are -1 where the JVM
+ * cannot report them, as on virtual threads.
+ */
+public class ScheduleMetrics {
+
+    public enum Phase {
+        PARSE,
+        GRAPH_BUILD,
+        FORWARD_PASS,
+        CRITICAL_PATH,
+        OUTPUT
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    private final ForkJoinPool[] pools;
+    private final long[] nanos = new long[Phase.values().length];
+    private final long[] allocatedBytes = new long[Phase.values().length];
+    private int tasks;
+    private int edges;
+    private int selectors;
+    private int selectorEdges;
+    private int removedEdges;
+    private int resolutionPasses;
+
+    /**
+     * Measures runs that only use the common pool besides the calling thread.
+     */
+    public ScheduleMetrics() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool the pool the run parses and schedules on
+     */
+    public ScheduleMetrics(ForkJoinPool pool) {
+        pools = pool == null || pool == ForkJoinPool.commonPool()
+                ? new ForkJoinPool[]{ForkJoinPool.commonPool()}
+                : new ForkJoinPool[]{ForkJoinPool.commonPool(), pool};
+    }
+
+    /**
+     * Runs one step of a phase and adds its time and allocation to the phase, also when it
+     * throws.
+     *
+     * @return what the step returned
+     */
+    public <T, E extends Exception> T time(Phase phase, Work<T, E> work) throws E {
+        long[] startThreadIds = THREADS == null ? null : threadIds();
+        long[] startAllocatedBytes = THREADS == null ? null : THREADS.getThreadAllocatedBytes(startThreadIds);
+        PhaseEvent event = new PhaseEvent();
+        event.begin();
+        long startNanos = System.nanoTime();
+        try {
+            return work.run();
+        } finally {
+            long elapsed = System.nanoTime() - startNanos;
+            long allocated = allocatedSince(startThreadIds, startAllocatedBytes);
+            nanos[phase.ordinal()] += elapsed;
+            allocatedBytes[phase.ordinal()] = allocated < 0 ? -1 : Math.max(0, allocatedBytes[phase.ordinal()]) + allocated;
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.phase = phase.name();
+                event.tasks = tasks;
+                event.allocatedBytes = allocated;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Runs one step of a phase that returns nothing, see {@link #time(Phase, Work)}.
+     */
+    public <E extends Exception> void time(Phase phase, Action<E> action) throws E {
+        time(phase, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Records the size of the graph: its tasks and edges, and how many group selectors such as
+     * {@code "all"} it has and how many edges their expansion added.
+     */
+    public void recordGraph(TaskGraph graph) {
+        tasks = graph.taskCount();
+        edges = graph.edgeCount();
+        selectors = graph.size() - graph.taskCount();
+        selectorEdges = 0;
+        for (int node = graph.taskCount(); node < graph.size(); node++) {
+            selectorEdges += graph.predecessorEnd(node) - graph.predecessorStart(node);
+        }
+    }
+
+    /**
+     * Records how many edges a transitive reduction of the graph removed; the reduction counts
+     * as graph building.
+     */
+    public void recordReduction(TransitiveReduction reduction) {
+        removedEdges = reduction.getRemovedEdges();
+    }
+
+    /**
+     * Records how many passes over the graph the forward pass made to resolve every
+     * dependency: one in topological order, or one per level when it ran level by level.
+     */
+    public void recordResolutionPasses(int passes) {
+        resolutionPasses = passes;
+    }
+
+    public long getNanos(Phase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    public long getAllocatedBytes(Phase phase) {
+        return allocatedBytes[phase.ordinal()];
+    }
+
+    public int getTasks() {
+        return tasks;
+    }
+
+    public int getEdges() {
+        return edges;
+    }
+
+    public int getSelectors() {
+        return selectors;
+    }
+
+    public int getSelectorEdges() {
+        return selectorEdges;
+    }
+
+    public int getRemovedEdges() {
+        return removedEdges;
+    }
+
+    public int getResolutionPasses() {
+        return resolutionPasses;
+    }
+
+    /**
+     * @return the metrics as a single line of JSON
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\"phases\":{");
+        for (Phase phase : Phase.values()) {
+            if (phase.ordinal() > 0) {
+                json.append(',');
+            }
+            json.append('"').append(phase.name().toLowerCase(Locale.ROOT)).append("\":{\"millis\":")
+                    .append(String.format(Locale.ROOT, "%.3f", nanos[phase.ordinal()] / 1e6))
+                    .append(",\"allocatedBytes\":").append(allocatedBytes[phase.ordinal()])
+                    .append('}');
+        }
+        return json.append("},\"removedEdges\":").append(removedEdges)
+                .append(",\"resolutionPasses\":").append(resolutionPasses)
+                .append(",\"tasks\":").append(tasks)
+                .append(",\"edges\":").append(edges)
+                .append(",\"selectors\":").append(selectors)
+                .append(",\"selectorEdges\":").append(selectorEdges)
+                .append('}')
+                .toString();
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+
+    /**
+     * @return the ids of the calling thread and of the live workers of the pools, ascending
+     */
+    private long[] threadIds() {
+        ThreadGroup root = Thread.currentThread().getThreadGroup();
+        while (root.getParent() != null) {
+            root = root.getParent();
+        }
+        Thread[] threads = new Thread[root.activeCount() + 16];
+        int count = root.enumerate(threads);
+        long[] ids = new long[count + 1];
+        int size = 0;
+        ids[size++] = Thread.currentThread().getId();
+        for (int i = 0; i < count; i++) {
+            if (threads[i] instanceof ForkJoinWorkerThread worker && Arrays.asList(pools).contains(worker.getPool())) {
+                ids[size++] = worker.getId();
+            }
+        }
+        ids = Arrays.copyOf(ids, size);
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+            return bean;
+        }
+        return null;
+    }
+
+    /**
+     * Sums the growth per thread, so workers that stop during the phase do not make the sum
+     * shrink and workers that start during it count from zero.
+     */
+    private long allocatedSince(long[] startThreadIds, long[] startAllocatedBytes) {
+        if (THREADS == null || THREADS.getCurrentThreadAllocatedBytes() < 0) {
+            return -1;
+        }
+        long[] threadIds = threadIds();
+        long[] bytes = THREADS.getThreadAllocatedBytes(threadIds);
+        long total = 0;
+        for (int i = 0; i < threadIds.length; i++) {
+            if (bytes[i] < 0) {
+                continue;
+            }
+            int start = Arrays.binarySearch(startThreadIds, threadIds[i]);
+            long startBytes = start < 0 ? 0 : Math.max(0, startAllocatedBytes[start]);
+            total += Math.max(0, bytes[i] - startBytes);
+        }
+        return total;
+    }
+
+    /**
+     * A step of a phase.
+     */
+    @FunctionalInterface
+    public interface Work<T, E extends Exception> {
+
+        T run() throws E;
+    }
+
+    /**
+     * A step of a phase that returns nothing.
+     */
+    @FunctionalInterface
+    public interface Action<E extends Exception> {
+
+        void run() throws E;
+    }
+
+    @Name("critical_path_generator.SchedulePhase")
+    @Label("Schedule Phase")
+    @Category("Critical Path Generator")
+    static final class PhaseEvent extends Event {
+
+        @Label("Phase")
+        String phase;
+
+        @Label("Tasks")
+        int tasks;
+
+        @Label("Allocated")
+        @DataAmount
+        long allocatedBytes;
+    }
+}
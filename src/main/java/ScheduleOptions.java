@@ -0,0 +1,68 @@
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Settings of a schedule run. Everything but the start date has a default.
+ */
+@Data
+@RequiredArgsConstructor(access = lombok.AccessLevel.PRIVATE)
+public class ScheduleOptions {
+
+    private final LocalDate startDate;
+    private WorkingCalendar calendar = WorkingCalendar.DEFAULT;
+    /**
+     * the most threads that parse an input at the same time, taken from {@link #pool} but for the
+     * calling one; {@link Portfolio} divides them between its projects
+     */
+    private int readerParallelism = Runtime.getRuntime().availableProcessors();
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private int parallelThreshold = TopologicalScheduler.DEFAULT_PARALLEL_THRESHOLD;
+    private boolean criticalPathAnalysis = true;
+    /**
+     * keep a binary snapshot of the parsed graph next to input files, see {@link TaskGraphSnapshot}
+     */
+    private boolean snapshots;
+    /**
+     * with {@link #snapshots}, also compare the CRC32C of the input with the one the snapshot
+     * was built from, instead of only its size and modification time; this reads the input
+     */
+    private boolean snapshotContentHash;
+    /**
+     * drop the dependencies implied by other dependencies before scheduling, see {@link TransitiveReduction}
+     */
+    private boolean transitiveReduction;
+    /**
+     * with {@link #transitiveReduction}, write the reduced dependency lists instead of the input ones
+     */
+    private boolean reducedDependencies;
+    /**
+     * level the nominal schedule on the {@code Resource:} columns of the input with this rule,
+     * see {@link ResourceScheduler}; null for unlimited capacity. Leveled runs do not use snapshots.
+     */
+    private ResourceScheduler.Priority resourceLeveling;
+
+    public static ScheduleOptions of(LocalDate startDate) {
+        return new ScheduleOptions(startDate);
+    }
+
+    /**
+     * @return a copy of these options that starts on another date
+     */
+    public ScheduleOptions withStartDate(LocalDate startDate) {
+        ScheduleOptions copy = of(startDate);
+        copy.calendar = calendar;
+        copy.readerParallelism = readerParallelism;
+        copy.pool = pool;
+        copy.parallelThreshold = parallelThreshold;
+        copy.criticalPathAnalysis = criticalPathAnalysis;
+        copy.snapshots = snapshots;
+        copy.snapshotContentHash = snapshotContentHash;
+        copy.transitiveReduction = transitiveReduction;
+        copy.reducedDependencies = reducedDependencies;
+        copy.resourceLeveling = resourceLeveling;
+        return copy;
+    }
+}
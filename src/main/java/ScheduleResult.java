@@ -0,0 +1,148 @@
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Schedule of one run, with, unless disabled in the {@link ScheduleOptions}, its critical
+ * path analysis. The dates live in the {@link ScheduleStore}; tasks with dates are built on
+ * demand. The metrics cover the phases run so far, including the writes of this result.
+ * Date-range queries go through a {@link ScheduleIndex} per scenario, built on first use.
+ * Duration columns after {@code Min} and {@code Max} are scheduled as
+ * {@link #getExtraScenarios() extra scenarios} and written after the min and max dates.
+ */
+@Data
+public class ScheduleResult {
+
+    private final String[] header;
+    private final ScheduleStore store;
+    private final CriticalPathAnalysis criticalPathAnalysis;
+    private final ScheduleMetrics metrics;
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final ScheduleIndex[] indexes = new ScheduleIndex[Scenario.values().length];
+
+    public TaskGraph getGraph() {
+        return store.getGraph();
+    }
+
+    /**
+     * @return the schedule of the duration columns after {@code Min} and {@code Max}, or null
+     * if the export has none
+     */
+    public ScenarioEngine getExtraScenarios() {
+        return store.getExtraScenarios();
+    }
+
+    /**
+     * @return a copy of the scheduled task with its dates, or null if there is no task with that id
+     */
+    public Task getTask(String id) {
+        int node = store.getGraph().indexOf(id);
+        return node < 0 ? null : store.toTask(node);
+    }
+
+    /**
+     * @return copies of all scheduled tasks with their dates, in input order
+     */
+    public List<Task> getTasks() {
+        int taskCount = store.getGraph().taskCount();
+        List<Task> tasks = new ArrayList<>(taskCount);
+        for (int node = 0; node < taskCount; node++) {
+            tasks.add(store.toTask(node));
+        }
+        return tasks;
+    }
+
+    /**
+     * @return the longest and near-critical paths of the scheduled graph, ranked by the
+     * durations of the scenario
+     */
+    public NearCriticalPaths getNearCriticalPaths(Scenario scenario) {
+        return NearCriticalPaths.of(store.getGraph(), scenario);
+    }
+
+    public synchronized ScheduleIndex getIndex(Scenario scenario) {
+        ScheduleIndex index = indexes[scenario.ordinal()];
+        if (index == null) {
+            index = ScheduleIndex.of(store, scenario);
+            indexes[scenario.ordinal()] = index;
+        }
+        return index;
+    }
+
+    /**
+     * @return copies of the tasks active at that time in the scenario, in input order
+     */
+    public List<Task> getTasksActiveAt(Scenario scenario, LocalDateTime time) {
+        return toTasks(getIndex(scenario).activeAt(time));
+    }
+
+    /**
+     * @return copies of the tasks active at some time in {@code [from, to)} in the scenario, in
+     * input order
+     */
+    public List<Task> getTasksActiveBetween(Scenario scenario, LocalDateTime from, LocalDateTime to) {
+        return toTasks(getIndex(scenario).activeBetween(from, to));
+    }
+
+    /**
+     * @return copies of the tasks ending in {@code [from, to)} in the scenario, in input order
+     */
+    public List<Task> getTasksEndingBetween(Scenario scenario, LocalDateTime from, LocalDateTime to) {
+        return toTasks(getIndex(scenario).endingBetween(from, to));
+    }
+
+    /**
+     * @return copies of the other tasks that start no earlier than the task with that id ends
+     * in the scenario, in input order, or null if there is no task with that id
+     */
+    public List<Task> getTasksStartingAfter(Scenario scenario, String id) {
+        int node = store.getGraph().indexOf(id);
+        return node < 0 || store.getGraph().isBarrier(node) ? null : toTasks(getIndex(scenario).startingAfter(node));
+    }
+
+    private List<Task> toTasks(int[] nodes) {
+        Arrays.sort(nodes);
+        List<Task> tasks = new ArrayList<>(nodes.length);
+        for (int node : nodes) {
+            tasks.add(store.toTask(node));
+        }
+        return tasks;
+    }
+
+    public void write(Path path) throws IOException {
+        try (ScheduleWriter writer = new ScheduleWriter(path)) {
+            write(writer);
+        }
+    }
+
+    /**
+     * Writes the schedule and closes the channel.
+     */
+    public void write(WritableByteChannel channel) throws IOException {
+        try (ScheduleWriter writer = new ScheduleWriter(channel)) {
+            write(writer);
+        }
+    }
+
+    private void write(ScheduleWriter writer) throws IOException {
+        metrics.time(ScheduleMetrics.Phase.OUTPUT, () -> {
+            writer.setCriticalPathAnalysis(criticalPathAnalysis);
+            writer.setExtraScenarios(store.getExtraScenarios());
+            writer.writeHeader(header);
+            writer.writeSchedule(store);
+            writer.flush();
+        });
+    }
+}
@@ -0,0 +1,426 @@
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Schedule of a {@link TaskGraph} kept as primitive columns indexed by node.
+ * <p>
+ * Durations are {@code double[]} and the start and end of every node in each {@link Scenario}
+ * are {@code long[]} positions in working minutes of the project calendar, about 72 bytes per
+ * node instead of six {@code LocalDateTime}s per task. The ends of a node in all scenarios are
+ * adjacent, so the forward pass visits each edge once and takes the max in every scenario
+ * from one run of memory. {@link Task} objects with dates are built on demand by
+ * {@link #toTask(int)}.
+ * <p>
+ * Further duration columns of the export are scheduled by a {@link ScenarioEngine} set with
+ * {@link #setExtraScenarios}, in the same {@link #schedule} call.
+ * <p>
+ * The dates match those of {@link TopologicalScheduler}: tasks without a min or max estimate
+ * that are not roots have no dates of their own in that scenario and pass on their nominal
+ * dates, and nodes that start at the project start only through roots and barriers keep the
+ * project start date even when it is not a working day. A task with a calendar of its own
+ * works on that calendar, and its end moves to the next working time of the project calendar.
+ */
+public final class ScheduleStore {
+
+    private static final int SCENARIOS = Scenario.values().length;
+    private static final int NOMINAL = Scenario.NOMINAL.ordinal();
+    private static final int MIN = Scenario.MIN.ordinal();
+    private static final int MAX = Scenario.MAX.ordinal();
+    private static final Scenario[] ESTIMATES = {Scenario.MIN, Scenario.MAX};
+
+    private final TaskGraph graph;
+    private final WorkingCalendar calendar;
+    private final double[] duration;
+    private final double[] minDuration;
+    private final double[] maxDuration;
+    /**
+     * the calendar of each task that works on its own, see {@link TaskGraph#taskCalendars}
+     */
+    private final WorkingCalendar[] taskCalendar;
+    /**
+     * the start of each node in each scenario, at {@code node * SCENARIOS + scenario.ordinal()}
+     */
+    private final long[] start;
+    private final long[] end;
+    private final boolean[] startsAtProjectStart;
+    /**
+     * the latest end of the predecessors of a node outside this graph, laid out like
+     * {@link #end}, or {@link Long#MIN_VALUE}; null while no node has any
+     */
+    private long[] externalEnd;
+    /**
+     * whether every predecessor of a node outside this graph is a barrier that keeps the
+     * project start date; null while no node has any
+     */
+    private boolean[] externalKeepsProjectStart;
+    private ScenarioEngine extraScenarios;
+    private LocalDateTime projectStart;
+    private int resolutionPasses;
+
+    private ScheduleStore(TaskGraph graph, WorkingCalendar calendar) {
+        this.graph = graph;
+        this.calendar = calendar;
+        int size = graph.size();
+        duration = new double[size];
+        minDuration = new double[size];
+        maxDuration = new double[size];
+        start = new long[Math.multiplyExact(size, SCENARIOS)];
+        end = new long[start.length];
+        startsAtProjectStart = new boolean[size];
+        taskCalendar = graph.taskCalendars(calendar);
+        for (int node = 0; node < graph.taskCount(); node++) {
+            Task task = graph.task(node);
+            duration[node] = task.getDuration();
+            minDuration[node] = task.getMinDuration();
+            maxDuration[node] = task.getMaxDuration();
+        }
+    }
+
+    public static ScheduleStore of(TaskGraph graph, WorkingCalendar calendar) {
+        return new ScheduleStore(graph, calendar);
+    }
+
+    public TaskGraph getGraph() {
+        return graph;
+    }
+
+    public WorkingCalendar getCalendar() {
+        return calendar;
+    }
+
+    /**
+     * @return the schedule of the further duration columns, or null if there are none
+     */
+    public ScenarioEngine getExtraScenarios() {
+        return extraScenarios;
+    }
+
+    /**
+     * Schedules the further duration columns with {@code extraScenarios} in every following
+     * {@link #schedule} call. Set it before adding external predecessors.
+     *
+     * @param extraScenarios an engine over the same graph, or null
+     */
+    public void setExtraScenarios(ScenarioEngine extraScenarios) {
+        if (extraScenarios != null && extraScenarios.getGraph().size() != graph.size()) {
+            throw new IllegalArgumentException("Extra scenarios of " + extraScenarios.getGraph().size() + " nodes for a graph of " + graph.size());
+        }
+        this.extraScenarios = extraScenarios;
+    }
+
+    /**
+     * Adds a predecessor of {@code node} that belongs to another, already scheduled store, such
+     * as a task of another project of a {@link Portfolio}. The node then starts no earlier than
+     * that task ends in each scenario. In an extra scenario that the other store does not
+     * have, that is its nominal end.
+     */
+    public void addExternalPredecessor(int node, ScheduleStore source, int sourceNode) {
+        // the other project may start on another day, so its start date is never passed on
+        addExternalPredecessor(node, Arrays.copyOfRange(source.end, sourceNode * SCENARIOS, (sourceNode + 1) * SCENARIOS), false);
+        if (extraScenarios != null) {
+            ScenarioEngine sourceScenarios = source.extraScenarios;
+            long[] ends = new long[extraScenarios.scenarioCount()];
+            for (int scenario = 0; scenario < ends.length; scenario++) {
+                int sourceScenario = sourceScenarios == null ? -1 : sourceScenarios.scenarioIndex(extraScenarios.scenarioName(scenario));
+                ends[scenario] = sourceScenario < 0
+                        ? source.endMinutes(Scenario.NOMINAL, sourceNode)
+                        : sourceScenarios.endMinutes(sourceScenario, sourceNode);
+            }
+            extraScenarios.addExternalPredecessor(node, ends);
+        }
+    }
+
+    /**
+     * @param ends              the ends of the predecessor by scenario ordinal
+     * @param keepsProjectStart whether the predecessor is a barrier that keeps the project start
+     *                          date, see {@link #keepsProjectStart(int)}
+     */
+    void addExternalPredecessor(int node, long[] ends, boolean keepsProjectStart) {
+        if (externalEnd == null) {
+            externalEnd = new long[end.length];
+            externalKeepsProjectStart = new boolean[graph.size()];
+            clearExternalPredecessors();
+        }
+        for (int scenario = 0; scenario < SCENARIOS; scenario++) {
+            externalEnd[node * SCENARIOS + scenario] = Math.max(externalEnd[node * SCENARIOS + scenario], ends[scenario]);
+        }
+        externalKeepsProjectStart[node] &= keepsProjectStart;
+    }
+
+    void clearExternalPredecessors() {
+        if (externalEnd != null) {
+            Arrays.fill(externalEnd, Long.MIN_VALUE);
+            Arrays.fill(externalKeepsProjectStart, true);
+        }
+        if (extraScenarios != null) {
+            extraScenarios.clearExternalPredecessors();
+        }
+    }
+
+    /**
+     * @return whether the node is a barrier that passes the project start date on to the nodes
+     * that depend on it
+     */
+    boolean keepsProjectStart(int node) {
+        return graph.isBarrier(node) && startsAtProjectStart[node];
+    }
+
+    private boolean hasExternalPredecessor(int node) {
+        return externalEnd != null && externalEnd[node * SCENARIOS] != Long.MIN_VALUE;
+    }
+
+    private boolean isRoot(int node) {
+        return graph.predecessorStart(node) == graph.predecessorEnd(node) && !hasExternalPredecessor(node);
+    }
+
+    public void schedule(LocalDate startDate) {
+        schedule(startDate, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Runs the forward pass, level by level on {@code pool} for graphs with at least
+     * {@code parallelThreshold} nodes.
+     *
+     * @throws SchedulingException if the graph contains a circular dependency
+     */
+    public void schedule(LocalDate startDate, ForkJoinPool pool, int parallelThreshold) {
+        projectStart = startDate.atStartOfDay();
+        long projectStartMinutes = calendar.toWorkingMinutes(projectStart);
+        int[] order = graph.topologicalOrder();
+        Arrays.fill(startsAtProjectStart, false);
+        if (pool != null && graph.size() >= parallelThreshold) {
+            int[][] buckets = TopologicalScheduler.bucketByLevel(graph, order);
+            int[] levelOffsets = buckets[0];
+            for (int i = 0; i + 1 < levelOffsets.length; i++) {
+                pool.invoke(new LevelTask(buckets[1], levelOffsets[i], levelOffsets[i + 1], projectStartMinutes));
+            }
+            resolutionPasses = levelOffsets.length - 1;
+        } else {
+            for (int node : order) {
+                scheduleNode(node, projectStartMinutes);
+            }
+            resolutionPasses = 1;
+        }
+        if (extraScenarios != null) {
+            extraScenarios.schedule(startDate);
+        }
+    }
+
+    /**
+     * @return how many passes over the graph the last forward pass made: one in topological
+     * order, or one per level when it ran level by level
+     */
+    public int getResolutionPasses() {
+        return resolutionPasses;
+    }
+
+    /**
+     * Pulls the start of a node from its predecessors, which are all scheduled already, in one
+     * pass over them for all scenarios.
+     */
+    private void scheduleNode(int node, long projectStartMinutes) {
+        int from = graph.predecessorStart(node);
+        int to = graph.predecessorEnd(node);
+        int base = node * SCENARIOS;
+        boolean root = isRoot(node);
+        boolean external = hasExternalPredecessor(node);
+        boolean atProjectStart = !external || externalKeepsProjectStart[node];
+        long nominal = projectStartMinutes;
+        long min = projectStartMinutes;
+        long max = projectStartMinutes;
+        if (external) {
+            nominal = Math.max(nominal, externalEnd[base + NOMINAL]);
+            min = Math.max(min, externalEnd[base + MIN]);
+            max = Math.max(max, externalEnd[base + MAX]);
+        }
+        for (int k = from; k < to; k++) {
+            int predecessor = graph.predecessor(k);
+            int ends = predecessor * SCENARIOS;
+            nominal = Math.max(nominal, end[ends + NOMINAL]);
+            min = Math.max(min, end[ends + MIN]);
+            max = Math.max(max, end[ends + MAX]);
+            atProjectStart &= graph.isBarrier(predecessor) && startsAtProjectStart[predecessor];
+        }
+        start[base + NOMINAL] = nominal;
+        start[base + MIN] = min;
+        start[base + MAX] = max;
+        startsAtProjectStart[node] = atProjectStart;
+
+        if (graph.isBarrier(node)) {
+            end[base + NOMINAL] = nominal;
+            end[base + MIN] = min;
+            end[base + MAX] = max;
+            return;
+        }
+        long nominalEnd = end(node, nominal, duration[node]);
+        end[base + NOMINAL] = nominalEnd;
+        scheduleEstimate(Scenario.MIN, node, root, nominal, nominalEnd);
+        scheduleEstimate(Scenario.MAX, node, root, nominal, nominalEnd);
+    }
+
+    private void scheduleEstimate(Scenario scenario, int node, boolean root, long nominalStart, long nominalEnd) {
+        int i = node * SCENARIOS + scenario.ordinal();
+        if (root || hasEstimate(scenario, node)) {
+            end[i] = end(node, start[i], scenarioDuration(scenario, node));
+        } else {
+            start[i] = nominalStart;
+            end[i] = nominalEnd;
+        }
+    }
+
+    private long end(int node, long start, double manDays) {
+        long minutes = WorkingCalendar.manDaysToMinutes(manDays);
+        return taskCalendar == null || taskCalendar[node] == null
+                ? start + minutes
+                : calendar.endMinutes(start, minutes, taskCalendar[node]);
+    }
+
+    /**
+     * Replaces the nominal dates with those of a resource-leveled schedule of the same graph,
+     * and so do the min and max dates that follow the nominal ones. The min and max estimates
+     * themselves stay unconstrained.
+     */
+    public void level(ResourceScheduler leveled) {
+        for (int node = 0; node < graph.size(); node++) {
+            int base = node * SCENARIOS;
+            long leveledStart = leveled.startMinutes(node);
+            startsAtProjectStart[node] &= leveledStart == start[base + NOMINAL];
+            start[base + NOMINAL] = leveledStart;
+            end[base + NOMINAL] = leveled.endMinutes(node);
+            for (Scenario scenario : ESTIMATES) {
+                if (!hasDates(scenario, node)) {
+                    start[base + scenario.ordinal()] = leveledStart;
+                    end[base + scenario.ordinal()] = end[base + NOMINAL];
+                }
+            }
+        }
+    }
+
+    /**
+     * @return whether the task has dates of its own in the scenario; otherwise its dates there
+     * are its nominal ones
+     */
+    public boolean hasDates(Scenario scenario, int node) {
+        return scenario == Scenario.NOMINAL || !graph.isBarrier(node) && (isRoot(node) || hasEstimate(scenario, node));
+    }
+
+    private boolean hasEstimate(Scenario scenario, int node) {
+        return switch (scenario) {
+            case NOMINAL -> true;
+            case MIN -> minDuration[node] > -1;
+            case MAX -> maxDuration[node] > -1;
+        };
+    }
+
+    public double scenarioDuration(Scenario scenario, int node) {
+        return switch (scenario) {
+            case NOMINAL -> duration[node];
+            case MIN -> minDuration[node] > -1 ? minDuration[node] : duration[node];
+            case MAX -> maxDuration[node] > -1 ? maxDuration[node] : duration[node];
+        };
+    }
+
+    /**
+     * @return the start in working minutes, the nominal one if the node has no dates of its own
+     * in the scenario
+     */
+    public long startMinutes(Scenario scenario, int node) {
+        return start[node * SCENARIOS + scenario.ordinal()];
+    }
+
+    public long endMinutes(Scenario scenario, int node) {
+        return end[node * SCENARIOS + scenario.ordinal()];
+    }
+
+    /**
+     * @return the start date, or null if the task has no dates of its own in the scenario
+     */
+    public LocalDateTime startDate(Scenario scenario, int node) {
+        if (!hasDates(scenario, node)) {
+            return null;
+        }
+        return startsAtProjectStart[node] ? projectStart : calendar.fromWorkingMinutes(startMinutes(scenario, node));
+    }
+
+    public LocalDateTime endDate(Scenario scenario, int node) {
+        if (!hasDates(scenario, node)) {
+            return null;
+        }
+        return graph.isBarrier(node) && startsAtProjectStart[node]
+                ? projectStart
+                : calendar.fromWorkingMinutes(endMinutes(scenario, node));
+    }
+
+    /**
+     * @return the epoch day of {@link #startDate}, or {@link Long#MIN_VALUE} if there is none,
+     * without building a date
+     */
+    public long startEpochDay(Scenario scenario, int node) {
+        if (!hasDates(scenario, node)) {
+            return Long.MIN_VALUE;
+        }
+        return startsAtProjectStart[node]
+                ? projectStart.toLocalDate().toEpochDay()
+                : calendar.epochDay(startMinutes(scenario, node));
+    }
+
+    public long endEpochDay(Scenario scenario, int node) {
+        if (!hasDates(scenario, node)) {
+            return Long.MIN_VALUE;
+        }
+        return graph.isBarrier(node) && startsAtProjectStart[node]
+                ? projectStart.toLocalDate().toEpochDay()
+                : calendar.epochDay(endMinutes(scenario, node));
+    }
+
+    /**
+     * @return a copy of the task at {@code node} with its scheduled dates set
+     */
+    public Task toTask(int node) {
+        Task source = graph.task(node);
+        Task task = source.withDurations(source.getDuration(), source.getMinDuration(), source.getMaxDuration());
+        task.setStart(startDate(Scenario.NOMINAL, node));
+        task.setEnd(endDate(Scenario.NOMINAL, node));
+        task.setMinStart(startDate(Scenario.MIN, node));
+        task.setMinEnd(endDate(Scenario.MIN, node));
+        task.setMaxStart(startDate(Scenario.MAX, node));
+        task.setMaxEnd(endDate(Scenario.MAX, node));
+        return task;
+    }
+
+    /**
+     * Schedules a range of one level; the nodes of a level do not depend on each other.
+     */
+    private final class LevelTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] nodes;
+        private final int from;
+        private final int to;
+        private final long projectStartMinutes;
+
+        LevelTask(int[] nodes, int from, int to, long projectStartMinutes) {
+            this.nodes = nodes;
+            this.from = from;
+            this.to = to;
+            this.projectStartMinutes = projectStartMinutes;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > TopologicalScheduler.LEVEL_CHUNK_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new LevelTask(nodes, from, middle, projectStartMinutes),
+                        new LevelTask(nodes, middle, to, projectStartMinutes));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                scheduleNode(nodes[i], projectStartMinutes);
+            }
+        }
+    }
+}
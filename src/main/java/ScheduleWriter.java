@@ -0,0 +1,434 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.IntFunction;
+
+/**
+ * Writes the computed schedule in the same format as {@link Task#toCSVLine()}, but straight
+ * into a large byte buffer that is flushed to a channel.
+ * <p>
+ * Dates are rendered once per epoch day and durations once per distinct value, and rows are
+ * ordered by numeric keys computed once per task instead of parsing ids on every comparison.
+ * <p>
+ * When a {@link ScenarioEngine} of extra scenarios is set, the start and end of every task in
+ * each of its scenarios follow the min and max dates, as {@code <name>-start-date} and
+ * {@code <name>-end-date}. When a {@link CriticalPathAnalysis} is set, the nominal late start,
+ * late end, total float, free float (in working days) and critical flag are appended to every
+ * row.
+ * <p>
+ * A {@link ScheduleStore} is written straight from its columns, without materializing dates.
+ */
+public class ScheduleWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int DATE_LENGTH = 10;
+    private static final int DURATION_CACHE_SIZE = 1024;
+
+    private final WritableByteChannel channel;
+    private final byte separator;
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private CriticalPathAnalysis criticalPathAnalysis;
+    private ScenarioEngine extraScenarios;
+
+    private long firstCachedDay;
+    private byte[] dateCache = new byte[0];
+    private final long[] durationCacheKeys = new long[DURATION_CACHE_SIZE];
+    private final byte[][] durationCacheValues = new byte[DURATION_CACHE_SIZE][];
+
+    public ScheduleWriter(Path path) throws IOException {
+        this(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    public ScheduleWriter(WritableByteChannel channel) {
+        this.channel = channel;
+        this.separator = (byte) TaskScheduler.SEPARATOR.charAt(0);
+    }
+
+    public void setCriticalPathAnalysis(CriticalPathAnalysis criticalPathAnalysis) {
+        this.criticalPathAnalysis = criticalPathAnalysis;
+    }
+
+    /**
+     * @param extraScenarios the schedule of the duration columns after min and max, or null
+     */
+    public void setExtraScenarios(ScenarioEngine extraScenarios) {
+        this.extraScenarios = extraScenarios;
+    }
+
+    public void writeHeader(String[] header) throws IOException {
+        for (int i = 0; i < header.length; i++) {
+            if (i > 0) {
+                put(separator);
+            }
+            putString(header[i]);
+        }
+        put(separator);
+        putString("start-date");
+        put(separator);
+        putString("end-date");
+        if (extraScenarios != null) {
+            for (int scenario = 0; scenario < extraScenarios.scenarioCount(); scenario++) {
+                put(separator);
+                putString(extraScenarios.scenarioName(scenario) + "-start-date");
+                put(separator);
+                putString(extraScenarios.scenarioName(scenario) + "-end-date");
+            }
+        }
+        if (criticalPathAnalysis != null) {
+            for (String column : new String[]{"late-start", "late-end", "total-float", "free-float", "critical"}) {
+                put(separator);
+                putString(column);
+            }
+        }
+        put((byte) '\n');
+    }
+
+    /**
+     * Writes the tasks ordered by their numeric id.
+     */
+    public void writeTasks(Collection<Task> tasks) throws IOException {
+        for (Task task : sortById(tasks)) {
+            writeTask(task);
+        }
+    }
+
+    public void writeTask(Task task) throws IOException {
+        writeTaskColumns(task);
+        putQuotedDate(task.getStart());
+        put(separator);
+        putQuotedDate(task.getEnd());
+
+        // same column order as Task.toCSVLine: the max dates follow the min estimate and vice versa
+        if (task.getMinDuration() > -1) {
+            put(separator);
+            putQuotedDate(task.getMaxStart());
+            put(separator);
+            putQuotedDate(task.getMaxEnd());
+        }
+        if (task.getMaxDuration() > -1) {
+            put(separator);
+            putQuotedDate(task.getMinStart());
+            put(separator);
+            putQuotedDate(task.getMinEnd());
+        }
+        if (criticalPathAnalysis != null) {
+            writeCriticalPathColumns(criticalPathAnalysis.getGraph().indexOf(task.getId()));
+        }
+        put((byte) '\n');
+    }
+
+    /**
+     * Writes the tasks of a scheduled store ordered by their numeric id, in the same format as
+     * {@link #writeTasks(Collection)}.
+     */
+    public void writeSchedule(ScheduleStore store) throws IOException {
+        TaskGraph graph = store.getGraph();
+        List<Task> tasks = new ArrayList<>(graph.taskCount());
+        for (int node = 0; node < graph.taskCount(); node++) {
+            tasks.add(graph.task(node));
+        }
+        long[] startEpochDays = new long[Scenario.values().length];
+        long[] endEpochDays = new long[Scenario.values().length];
+        for (Task task : sortById(tasks)) {
+            int node = graph.indexOf(task.getId());
+            for (Scenario scenario : Scenario.values()) {
+                startEpochDays[scenario.ordinal()] = store.startEpochDay(scenario, node);
+                endEpochDays[scenario.ordinal()] = store.endEpochDay(scenario, node);
+            }
+            writeTaskColumns(task);
+            writeDates(task, startEpochDays, endEpochDays);
+            if (extraScenarios != null) {
+                writeExtraScenarioColumns(node);
+            }
+            if (criticalPathAnalysis != null) {
+                writeCriticalPathColumns(node);
+            }
+            put((byte) '\n');
+        }
+    }
+
+    /**
+     * Writes one row, without critical path columns, in the same format as
+     * {@link #writeTask(Task)}.
+     *
+     * @param startEpochDays the start day of the task in each {@link Scenario}, by ordinal, or
+     *                       {@link Long#MIN_VALUE} where it has no dates of its own
+     */
+    public void writeTask(Task task, long[] startEpochDays, long[] endEpochDays) throws IOException {
+        writeTaskColumns(task);
+        writeDates(task, startEpochDays, endEpochDays);
+        put((byte) '\n');
+    }
+
+    private void writeDates(Task task, long[] startEpochDays, long[] endEpochDays) throws IOException {
+        putQuotedEpochDay(startEpochDays[Scenario.NOMINAL.ordinal()]);
+        put(separator);
+        putQuotedEpochDay(endEpochDays[Scenario.NOMINAL.ordinal()]);
+        if (task.getMinDuration() > -1) {
+            put(separator);
+            putQuotedEpochDay(startEpochDays[Scenario.MAX.ordinal()]);
+            put(separator);
+            putQuotedEpochDay(endEpochDays[Scenario.MAX.ordinal()]);
+        }
+        if (task.getMaxDuration() > -1) {
+            put(separator);
+            putQuotedEpochDay(startEpochDays[Scenario.MIN.ordinal()]);
+            put(separator);
+            putQuotedEpochDay(endEpochDays[Scenario.MIN.ordinal()]);
+        }
+    }
+
+    /**
+     * Writes the id, dependencies and duration columns, and the separator before the dates.
+     */
+    private void writeTaskColumns(Task task) throws IOException {
+        putQuoted(task.getId());
+        put(separator);
+        putQuoted(task.getDependencies());
+        put(separator);
+        put((byte) '"');
+        putDuration(task.getDuration());
+        put((byte) '"');
+        put(separator);
+    }
+
+    private void writeExtraScenarioColumns(int node) throws IOException {
+        for (int scenario = 0; scenario < extraScenarios.scenarioCount(); scenario++) {
+            put(separator);
+            putQuotedEpochDay(extraScenarios.startEpochDay(scenario, node));
+            put(separator);
+            putQuotedEpochDay(extraScenarios.endEpochDay(scenario, node));
+        }
+    }
+
+    private void writeCriticalPathColumns(int node) throws IOException {
+        put(separator);
+        putQuotedDate(criticalPathAnalysis.lateStart(Scenario.NOMINAL, node));
+        put(separator);
+        putQuotedDate(criticalPathAnalysis.lateFinish(Scenario.NOMINAL, node));
+        put(separator);
+        put((byte) '"');
+        putDuration(criticalPathAnalysis.totalFloat(Scenario.NOMINAL, node));
+        put((byte) '"');
+        put(separator);
+        put((byte) '"');
+        putDuration(criticalPathAnalysis.freeFloat(Scenario.NOMINAL, node));
+        put((byte) '"');
+        put(separator);
+        putQuoted(criticalPathAnalysis.isCritical(Scenario.NOMINAL, node) ? "true" : "false");
+    }
+
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Sorts by numeric id, see {@link #orderById(int, IntFunction)}.
+     */
+    static List<Task> sortById(Collection<Task> tasks) {
+        Task[] taskArray = tasks.toArray(Task[]::new);
+        List<Task> sorted = new ArrayList<>(taskArray.length);
+        for (int index : orderById(taskArray.length, i -> taskArray[i].getId())) {
+            sorted.add(taskArray[index]);
+        }
+        return sorted;
+    }
+
+    /**
+     * Orders {@code count} ids by numeric id. Ids that fit in an int are packed together with
+     * their position into a single long so the sort runs on primitives; other ids fall back to
+     * a comparator.
+     *
+     * @return the positions of the ids in the order their rows are written
+     */
+    static int[] orderById(int count, IntFunction<String> ids) {
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            long id = numericId(ids.apply(i));
+            if (id < 0 || id > Integer.MAX_VALUE) {
+                return orderByIdWithComparator(count, ids);
+            }
+            keys[i] = id << 32 | i;
+        }
+        Arrays.sort(keys);
+
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = (int) keys[i];
+        }
+        return order;
+    }
+
+    private static int[] orderByIdWithComparator(int count, IntFunction<String> ids) {
+        long[] numericIds = new long[count];
+        Integer[] indexes = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            numericIds[i] = numericId(ids.apply(i));
+            indexes[i] = i;
+        }
+        // numeric ids first, in numeric order, then the others by their text
+        Arrays.sort(indexes, Comparator
+                .comparing((Integer i) -> numericIds[i] < 0)
+                .thenComparingLong(i -> numericIds[i])
+                .thenComparing(ids::apply));
+
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = indexes[i];
+        }
+        return order;
+    }
+
+    /**
+     * @return the id as a non-negative number, or -1 if it is not made of (at most 18) digits
+     */
+    static long numericId(String id) {
+        if (id.isEmpty() || id.length() > 18) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private void putQuoted(String value) throws IOException {
+        put((byte) '"');
+        putString(value);
+        put((byte) '"');
+    }
+
+    private void putString(String value) throws IOException {
+        if (value == null) {
+            putString("null");
+            return;
+        }
+        int length = value.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                put(value.getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            buffer.put((byte) value.charAt(i));
+        }
+    }
+
+    private void putDuration(double duration) throws IOException {
+        long bits = Double.doubleToLongBits(duration);
+        int slot = (int) (bits ^ bits >>> 32) * 0x9E3779B9 >>> 22;
+        byte[] rendered = durationCacheValues[slot];
+        if (rendered == null || durationCacheKeys[slot] != bits) {
+            rendered = Double.toString(duration).getBytes(StandardCharsets.US_ASCII);
+            durationCacheKeys[slot] = bits;
+            durationCacheValues[slot] = rendered;
+        }
+        put(rendered);
+    }
+
+    private void putQuotedDate(LocalDateTime dateTime) throws IOException {
+        putQuotedEpochDay(dateTime == null ? Long.MIN_VALUE : dateTime.toLocalDate().toEpochDay());
+    }
+
+    /**
+     * @param epochDay the day to write, or {@link Long#MIN_VALUE} for an empty value
+     */
+    private void putQuotedEpochDay(long epochDay) throws IOException {
+        put((byte) '"');
+        if (epochDay != Long.MIN_VALUE) {
+            int offset = cachedDateOffset(epochDay);
+            ensureCapacity(DATE_LENGTH);
+            buffer.put(dateCache, offset, DATE_LENGTH);
+        }
+        put((byte) '"');
+    }
+
+    /**
+     * @return the offset of the rendered {@code yyyy-MM-dd} date in the cache, growing the
+     * cached range of days when needed
+     */
+    private int cachedDateOffset(long epochDay) {
+        int cachedDays = dateCache.length / DATE_LENGTH;
+        if (cachedDays == 0 || epochDay < firstCachedDay || epochDay >= firstCachedDay + cachedDays) {
+            long from = cachedDays == 0 ? epochDay : Math.min(firstCachedDay, epochDay);
+            long to = cachedDays == 0 ? epochDay + 1 : Math.max(firstCachedDay + cachedDays, epochDay + 1);
+            // leave some room on both sides, schedules tend to drift forward
+            from -= 31;
+            to += 366;
+            renderDates(from, to);
+        }
+        return (int) (epochDay - firstCachedDay) * DATE_LENGTH;
+    }
+
+    private void renderDates(long fromEpochDay, long toEpochDay) {
+        byte[] cache = new byte[Math.toIntExact((toEpochDay - fromEpochDay) * DATE_LENGTH)];
+        LocalDate date = LocalDate.ofEpochDay(fromEpochDay);
+        for (int offset = 0; offset < cache.length; offset += DATE_LENGTH) {
+            int year = date.getYear();
+            int month = date.getMonthValue();
+            int day = date.getDayOfMonth();
+            cache[offset] = (byte) ('0' + year / 1000 % 10);
+            cache[offset + 1] = (byte) ('0' + year / 100 % 10);
+            cache[offset + 2] = (byte) ('0' + year / 10 % 10);
+            cache[offset + 3] = (byte) ('0' + year % 10);
+            cache[offset + 4] = '-';
+            cache[offset + 5] = (byte) ('0' + month / 10);
+            cache[offset + 6] = (byte) ('0' + month % 10);
+            cache[offset + 7] = '-';
+            cache[offset + 8] = (byte) ('0' + day / 10);
+            cache[offset + 9] = (byte) ('0' + day % 10);
+            date = date.plusDays(1);
+        }
+        firstCachedDay = fromEpochDay;
+        dateCache = cache;
+    }
+
+    private void put(byte b) throws IOException {
+        ensureCapacity(1);
+        buffer.put(b);
+    }
+
+    private void put(byte[] bytes) throws IOException {
+        ensureCapacity(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private void ensureCapacity(int length) throws IOException {
+        if (buffer.remaining() < length) {
+            flush();
+            if (buffer.capacity() < length) {
+                buffer = ByteBuffer.allocate(length);
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+import java.util.List;
+
+/**
+ * Thrown when a task graph cannot be scheduled, e.g. because of a circular dependency
+ * or a dependency on a task id that does not exist.
+ */
+public class SchedulingException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<String> taskIds;
+
+    public SchedulingException(String message, List<String> taskIds) {
+        super(message + ": " + String.join(", ", taskIds));
+        this.taskIds = List.copyOf(taskIds);
+    }
+
+    public List<String> getTaskIds() {
+        return taskIds;
+    }
+}
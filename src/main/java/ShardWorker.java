@@ -0,0 +1,171 @@
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Worker process of a {@link ShardedScheduler}: reads the rows of its shard from the export
+ * itself, runs the forward pass of the shard once, and writes the scheduled rows of the shard
+ * to a part file that the coordinator merges into the result.
+ * <pre>
+ *   ShardWorker port shard
+ * </pre>
+ * <p>
+ * Messages are {@link DataOutputStream} values over a local socket. The coordinator first
+ * sends the start date, the calendar, the paths, the row numbers of the shard and its local
+ * edges. Once the shards before it are scheduled, it sends {@link #ROUND} with the ends of the
+ * predecessors in other shards and gets back the ends that later shards depend on. Last, it
+ * sends {@link #FINISH} with the order of the rows in the result, and gets {@link #FINISH}
+ * back once the part file is written.
+ */
+@Slf4j
+public final class ShardWorker {
+
+    static final byte ROUND = 1;
+    static final byte FINISH = 2;
+    static final int SCENARIOS = Scenario.values().length;
+
+    private final LocalDate startDate;
+    private final Path part;
+    private final ScheduleStore store;
+    private final int sourceCount;
+    private final int[] inputNodes;
+    private final int[] inputSources;
+    private final int[] exports;
+
+    private ShardWorker(DataInputStream in) throws IOException {
+        startDate = LocalDate.ofEpochDay(in.readLong());
+        WorkingCalendar calendar = WorkingCalendar.read(in);
+        Path input = Path.of(in.readUTF());
+        part = Path.of(in.readUTF());
+        int[] rows = readInts(in, in.readInt());
+        int barrierCount = in.readInt();
+        int size = rows.length + barrierCount;
+        int[] offsets = readInts(in, size + 1);
+        int[] predecessors = readInts(in, offsets[size]);
+        sourceCount = in.readInt();
+        int inputCount = in.readInt();
+        inputNodes = new int[inputCount];
+        inputSources = new int[inputCount];
+        for (int i = 0; i < inputCount; i++) {
+            inputNodes[i] = in.readInt();
+            inputSources[i] = in.readInt();
+        }
+        exports = readInts(in, in.readInt());
+
+        // barriers are never looked up by selector here, only by node
+        String[] barrierSelectors = new String[barrierCount];
+        Arrays.fill(barrierSelectors, "");
+        TaskGraph graph = TaskGraph.of(readRows(input, rows), barrierSelectors, offsets, predecessors);
+        store = ScheduleStore.of(graph, calendar);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            log.error("Usage: ShardWorker port shard");
+            return;
+        }
+        int shard = Integer.parseInt(args[1]);
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(args[0]));
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            out.writeInt(shard);
+            out.flush();
+            ShardWorker worker = new ShardWorker(in);
+            log.info("Shard {} holds {} nodes, {} outside predecessors and {} exported ends", shard,
+                    worker.store.getGraph().size(), worker.sourceCount, worker.exports.length);
+            worker.run(in, out);
+        }
+    }
+
+    /**
+     * @param rows the numbers of the rows to keep, ascending, counting from 0 after the header
+     */
+    private static Task[] readRows(Path input, int[] rows) throws IOException {
+        Task[] tasks = new Task[rows.length];
+        int kept = 0;
+        try (TaskFileReader.RowCursor cursor = new TaskFileReader(1).stream(input)) {
+            int row = 0;
+            for (Task task = cursor.next(); task != null && kept < rows.length; task = cursor.next(), row++) {
+                if (row == rows[kept]) {
+                    tasks[kept++] = task;
+                }
+            }
+        }
+        if (kept < rows.length) {
+            throw new IOException(input + " has fewer rows than when it was partitioned");
+        }
+        return tasks;
+    }
+
+    private void run(DataInputStream in, DataOutputStream out) throws IOException {
+        expect(in, ROUND);
+        long[][] sourceEnds = new long[sourceCount][];
+        boolean[] sourceKeepsProjectStart = new boolean[sourceCount];
+        for (int source = 0; source < sourceCount; source++) {
+            sourceEnds[source] = readLongs(in, SCENARIOS);
+            sourceKeepsProjectStart[source] = in.readBoolean();
+        }
+        for (int i = 0; i < inputNodes.length; i++) {
+            store.addExternalPredecessor(inputNodes[i], sourceEnds[inputSources[i]], sourceKeepsProjectStart[inputSources[i]]);
+        }
+        store.schedule(startDate, null, Integer.MAX_VALUE);
+        for (int node : exports) {
+            for (Scenario scenario : Scenario.values()) {
+                out.writeLong(store.endMinutes(scenario, node));
+            }
+            out.writeBoolean(store.keepsProjectStart(node));
+        }
+        out.flush();
+
+        expect(in, FINISH);
+        writePart(readInts(in, store.getGraph().taskCount()));
+        out.writeByte(FINISH);
+        out.flush();
+    }
+
+    /**
+     * @param order the tasks of the shard in the order of the result
+     */
+    private void writePart(int[] order) throws IOException {
+        TaskGraph graph = store.getGraph();
+        long[] startEpochDays = new long[SCENARIOS];
+        long[] endEpochDays = new long[SCENARIOS];
+        try (ScheduleWriter writer = new ScheduleWriter(part)) {
+            for (int node : order) {
+                for (Scenario scenario : Scenario.values()) {
+                    startEpochDays[scenario.ordinal()] = store.startEpochDay(scenario, node);
+                    endEpochDays[scenario.ordinal()] = store.endEpochDay(scenario, node);
+                }
+                writer.writeTask(graph.task(node), startEpochDays, endEpochDays);
+            }
+        }
+    }
+
+    private static void expect(DataInputStream in, byte message) throws IOException {
+        byte received = in.readByte();
+        if (received != message) {
+            throw new IOException("Expected message " + message + ", got " + received);
+        }
+    }
+
+    private static int[] readInts(DataInputStream in, int count) throws IOException {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    private static long[] readLongs(DataInputStream in, int count) throws IOException {
+        long[] values = new long[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = in.readLong();
+        }
+        return values;
+    }
+}
@@ -0,0 +1,511 @@
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules an export with its forward pass split over {@link ShardWorker} processes on this
+ * host, for plans whose tasks do not fit comfortably in one JVM.
+ * <p>
+ * The coordinator only holds the ids and the dependency structure: it streams the export
+ * twice, once to number the ids in an {@link IdIndex} and once to read the dependencies, and
+ * splits the graph with a {@link GraphPartition}. Each worker gets the row numbers and the
+ * local edges of its shard over a loopback socket and reads its own rows from the export, so
+ * the tasks themselves and their dates only ever live in the worker of their shard.
+ * <p>
+ * Every cut edge goes from a lower shard to a higher one, so the shards are scheduled once
+ * each, in shard order: the coordinator sends a shard the ends of its predecessors in lower
+ * shards and keeps the ends it sends back for the shards after it. The workers then write
+ * their rows to part files in the order of the result, which the coordinator merges after the
+ * header. The output is that of {@link TaskScheduler} without critical path analysis; runs
+ * that need the whole plan (critical path analysis, resource leveling, reduced dependency
+ * lists, duration columns after {@code Min} and {@code Max}) are rejected. Transitive
+ * reduction only drops edges that change no date in any scenario, see
+ * {@link TransitiveReduction}, so it is not applied.
+ */
+@Slf4j
+public final class ShardedScheduler {
+
+    static final int WORKER_TIMEOUT_MILLIS = 60_000;
+    private static final int SCENARIOS = ShardWorker.SCENARIOS;
+
+    private final ScheduleOptions options;
+    private final int shards;
+    private final List<String> workerJvmOptions;
+    private int cutEdges;
+
+    private ShardedScheduler(ScheduleOptions options, int shards, List<String> workerJvmOptions) {
+        if (options.isCriticalPathAnalysis()) {
+            throw new IllegalArgumentException("Critical path analysis needs the whole plan in one process");
+        }
+        if (options.getResourceLeveling() != null) {
+            throw new IllegalArgumentException("Resource leveling needs the whole plan in one process");
+        }
+        if (options.isTransitiveReduction() && options.isReducedDependencies()) {
+            throw new IllegalArgumentException("Reduced dependency lists need the whole plan in one process");
+        }
+        this.options = options;
+        this.shards = shards;
+        this.workerJvmOptions = List.copyOf(workerJvmOptions);
+    }
+
+    public static ShardedScheduler of(ScheduleOptions options, int shards) {
+        return of(options, shards, List.of());
+    }
+
+    /**
+     * @param workerJvmOptions options for each worker JVM, such as {@code -Xmx2g}
+     */
+    public static ShardedScheduler of(ScheduleOptions options, int shards, List<String> workerJvmOptions) {
+        return new ShardedScheduler(options, shards, workerJvmOptions);
+    }
+
+    /**
+     * @return the number of dependencies between shards in the last run
+     */
+    public int getCutEdges() {
+        return cutEdges;
+    }
+
+    /**
+     * Schedules {@code input} into {@code output}.
+     *
+     * @throws SchedulingException      if a dependency is unknown or the dependencies form a
+     *                                  cycle, before any worker is started
+     * @throws IllegalArgumentException if the input has duration columns after min and max
+     * @throws IOException              if the input cannot be read, the output cannot be
+     *                                  written or a worker fails
+     */
+    public void schedule(Path input, Path output) throws IOException {
+        long startNanos = System.nanoTime();
+        Structure structure = Structure.read(input);
+        if (ScenarioEngine.hasExtraColumns(structure.header)) {
+            throw new IllegalArgumentException("Extra duration columns need the whole plan in one process");
+        }
+        GraphPartition partition = GraphPartition.of(structure.offsets, structure.predecessors, shards,
+                node -> node < structure.taskCount() ? structure.ids.id(node) : null);
+        cutEdges = partition.getCutEdges();
+        Shard[] shardViews = split(structure, partition);
+
+        Path directory = output.toAbsolutePath().getParent();
+        for (int shard = 0; shard < shards; shard++) {
+            shardViews[shard].part = Files.createTempFile(directory, "shard-" + shard + "-", ".csv");
+        }
+        int[] order = ScheduleWriter.orderById(structure.taskCount(), structure.ids::id);
+        try {
+            run(structure, partition, shardViews, order, input);
+            merge(structure, partition, shardViews, order, output);
+        } finally {
+            for (Shard shard : shardViews) {
+                Files.deleteIfExists(shard.part);
+            }
+        }
+        log.info("Scheduled {} tasks in {} shards over {} cut edges in {} ms", structure.taskCount(), shards, cutEdges,
+                String.format("%.1f", (System.nanoTime() - startNanos) / 1e6));
+    }
+
+    /**
+     * Lists the nodes of each shard, its tasks by row number and then its barriers, which is
+     * the local numbering of its worker, and the nodes that later shards depend on.
+     */
+    private Shard[] split(Structure structure, GraphPartition partition) {
+        int size = structure.size();
+        Shard[] shardViews = new Shard[shards];
+        long[][] rowKeys = new long[shards][];
+        int[] filled = new int[shards];
+        for (int shard = 0; shard < shards; shard++) {
+            shardViews[shard] = new Shard();
+            rowKeys[shard] = new long[partition.shardSize(shard)];
+        }
+        for (int node = 0; node < structure.taskCount(); node++) {
+            int shard = partition.shard(node);
+            rowKeys[shard][filled[shard]++] = (long) structure.lastRow[node] << 32 | node;
+        }
+        for (int shard = 0; shard < shards; shard++) {
+            Arrays.sort(rowKeys[shard], 0, filled[shard]);
+            for (int i = 0; i < filled[shard]; i++) {
+                shardViews[shard].nodes.add((int) rowKeys[shard][i]);
+                shardViews[shard].rows.add((int) (rowKeys[shard][i] >>> 32));
+            }
+        }
+        for (int node = structure.taskCount(); node < size; node++) {
+            shardViews[partition.shard(node)].nodes.add(node);
+        }
+
+        boolean[] exported = new boolean[size];
+        for (int node = 0; node < size; node++) {
+            for (int k = structure.offsets[node]; k < structure.offsets[node + 1]; k++) {
+                int predecessor = structure.predecessors[k];
+                exported[predecessor] |= partition.shard(predecessor) != partition.shard(node);
+            }
+        }
+        for (int node = 0; node < size; node++) {
+            if (exported[node]) {
+                shardViews[partition.shard(node)].exports.add(node);
+            }
+        }
+        return shardViews;
+    }
+
+    /**
+     * @param order the tasks in the order of the result
+     */
+    private void run(Structure structure, GraphPartition partition, Shard[] shardViews, int[] order, Path input)
+            throws IOException {
+        int size = structure.size();
+        int[] localIndex = new int[size];
+        for (Shard shard : shardViews) {
+            for (int i = 0; i < shard.nodes.size(); i++) {
+                localIndex[shard.nodes.get(i)] = i;
+            }
+        }
+        // the ends of the exported nodes, by node, once their shard is scheduled
+        long[][] exportedEnds = new long[size][];
+        boolean[] exportedKeepsProjectStart = new boolean[size];
+
+        List<Process> processes = new ArrayList<>(shards);
+        Path[] workerLogs = new Path[shards];
+        Socket[] sockets = new Socket[shards];
+        boolean finished = false;
+        try (ServerSocket server = new ServerSocket(0, shards, InetAddress.getLoopbackAddress())) {
+            server.setSoTimeout(WORKER_TIMEOUT_MILLIS);
+            for (int shard = 0; shard < shards; shard++) {
+                workerLogs[shard] = Files.createTempFile("shard-" + shard + "-", ".log");
+                processes.add(startWorker(server.getLocalPort(), shard, workerLogs[shard]));
+            }
+            for (int i = 0; i < shards; i++) {
+                Socket socket = server.accept();
+                sockets[i] = socket;
+                Shard shard = shardViews[new DataInputStream(socket.getInputStream()).readInt()];
+                shard.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                shard.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            }
+            for (Shard shard : shardViews) {
+                sendShard(shard, structure, partition, localIndex, input);
+            }
+
+            for (Shard shard : shardViews) {
+                shard.out.writeByte(ShardWorker.ROUND);
+                for (int i = 0; i < shard.sources.size(); i++) {
+                    int source = shard.sources.get(i);
+                    for (int scenario = 0; scenario < SCENARIOS; scenario++) {
+                        shard.out.writeLong(exportedEnds[source][scenario]);
+                    }
+                    shard.out.writeBoolean(exportedKeepsProjectStart[source]);
+                }
+                shard.out.flush();
+                for (int i = 0; i < shard.exports.size(); i++) {
+                    int node = shard.exports.get(i);
+                    exportedEnds[node] = new long[SCENARIOS];
+                    for (int scenario = 0; scenario < SCENARIOS; scenario++) {
+                        exportedEnds[node][scenario] = shard.in.readLong();
+                    }
+                    exportedKeepsProjectStart[node] = shard.in.readBoolean();
+                }
+            }
+
+            for (Shard shard : shardViews) {
+                shard.out.writeByte(ShardWorker.FINISH);
+            }
+            for (int node : order) {
+                shardViews[partition.shard(node)].out.writeInt(localIndex[node]);
+            }
+            for (Shard shard : shardViews) {
+                shard.out.flush();
+            }
+            for (Shard shard : shardViews) {
+                if (shard.in.readByte() != ShardWorker.FINISH) {
+                    throw new IOException("A shard worker did not finish its part");
+                }
+            }
+            finished = true;
+        } finally {
+            for (Socket socket : sockets) {
+                if (socket != null) {
+                    socket.close();
+                }
+            }
+            stopWorkers(processes);
+            for (Path workerLog : workerLogs) {
+                if (workerLog == null) {
+                    continue;
+                }
+                if (finished) {
+                    Files.deleteIfExists(workerLog);
+                } else {
+                    log.error("Shard worker output kept in {}", workerLog);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends the shard its rows and local edges, numbered tasks first as in a
+     * {@link TaskGraph}, then its outside predecessors and the nodes it exports.
+     */
+    private void sendShard(Shard shard, Structure structure, GraphPartition partition, int[] localIndex,
+                           Path input) throws IOException {
+        DataOutputStream out = shard.out;
+        out.writeLong(options.getStartDate().toEpochDay());
+        options.getCalendar().write(out);
+        out.writeUTF(input.toAbsolutePath().toString());
+        out.writeUTF(shard.part.toString());
+        out.writeInt(shard.rows.size());
+        for (int i = 0; i < shard.rows.size(); i++) {
+            out.writeInt(shard.rows.get(i));
+        }
+        int size = shard.nodes.size();
+        out.writeInt(size - shard.rows.size());
+
+        IntList offsets = new IntList(size + 1);
+        IntList predecessors = new IntList(size);
+        IntList inputNodes = new IntList(16);
+        IntList inputSources = new IntList(16);
+        Map<Integer, Integer> sourceIndex = new HashMap<>();
+        offsets.add(0);
+        for (int i = 0; i < size; i++) {
+            int node = shard.nodes.get(i);
+            for (int k = structure.offsets[node]; k < structure.offsets[node + 1]; k++) {
+                int predecessor = structure.predecessors[k];
+                if (partition.shard(predecessor) == partition.shard(node)) {
+                    predecessors.add(localIndex[predecessor]);
+                    continue;
+                }
+                int source = sourceIndex.computeIfAbsent(predecessor, key -> {
+                    shard.sources.add(key);
+                    return shard.sources.size() - 1;
+                });
+                inputNodes.add(i);
+                inputSources.add(source);
+            }
+            offsets.add(predecessors.size());
+        }
+        for (int i = 0; i <= size; i++) {
+            out.writeInt(offsets.get(i));
+        }
+        for (int i = 0; i < predecessors.size(); i++) {
+            out.writeInt(predecessors.get(i));
+        }
+        out.writeInt(shard.sources.size());
+        out.writeInt(inputNodes.size());
+        for (int i = 0; i < inputNodes.size(); i++) {
+            out.writeInt(inputNodes.get(i));
+            out.writeInt(inputSources.get(i));
+        }
+        out.writeInt(shard.exports.size());
+        for (int i = 0; i < shard.exports.size(); i++) {
+            out.writeInt(localIndex[shard.exports.get(i)]);
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the header, then takes the next row of the part of each task's shard in the order
+     * of the result.
+     */
+    private static void merge(Structure structure, GraphPartition partition, Shard[] shardViews, int[] order,
+                              Path output) throws IOException {
+        try (ScheduleWriter writer = new ScheduleWriter(output)) {
+            writer.writeHeader(structure.header);
+        }
+        InputStream[] parts = new InputStream[shardViews.length];
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(output, StandardOpenOption.APPEND), 1 << 20)) {
+            for (int shard = 0; shard < shardViews.length; shard++) {
+                parts[shard] = new BufferedInputStream(Files.newInputStream(shardViews[shard].part), 1 << 16);
+            }
+            for (int node : order) {
+                InputStream part = parts[partition.shard(node)];
+                for (int b = part.read(); b != '\n'; b = part.read()) {
+                    if (b < 0) {
+                        throw new IOException("A shard part ended early");
+                    }
+                    out.write(b);
+                }
+                out.write('\n');
+            }
+        } finally {
+            for (InputStream part : parts) {
+                if (part != null) {
+                    part.close();
+                }
+            }
+        }
+    }
+
+    private Process startWorker(int port, int shard, Path workerLog) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(workerJvmOptions);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ShardWorker.class.getName());
+        command.add(String.valueOf(port));
+        command.add(String.valueOf(shard));
+        // not inherited: the coordinator's standard streams may be a protocol channel, as under surefire
+        return new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(workerLog.toFile()).start();
+    }
+
+    private static void stopWorkers(List<Process> processes) {
+        for (Process process : processes) {
+            try {
+                if (!process.waitFor(WORKER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * The ids and dependencies of an export, without its tasks. Tasks are numbered by their
+     * first row and take the dependencies of their last row, as in
+     * {@link TaskScheduler#uniqueById}; barriers come after the tasks, as in {@link TaskGraph}.
+     */
+    private static final class Structure {
+
+        private final String[] header;
+        private final IdIndex ids;
+        // the row of each task whose dependencies and durations are kept
+        private final int[] lastRow;
+        private final int barrierCount;
+        private final int[] offsets;
+        private final int[] predecessors;
+
+        private Structure(String[] header, IdIndex ids, int[] lastRow, int barrierCount, int[] offsets,
+                          int[] predecessors) {
+            this.header = header;
+            this.ids = ids;
+            this.lastRow = lastRow;
+            this.barrierCount = barrierCount;
+            this.offsets = offsets;
+            this.predecessors = predecessors;
+        }
+
+        /**
+         * @throws SchedulingException if a dependency is not a task id or a selector
+         */
+        static Structure read(Path input) throws IOException {
+            String[] header;
+            IdIndex ids = new IdIndex();
+            IntList lastRow = new IntList(1024);
+            try (TaskFileReader.RowCursor cursor = new TaskFileReader(1).stream(input)) {
+                header = cursor.getHeader();
+                int row = 0;
+                for (Task task = cursor.next(); task != null; task = cursor.next(), row++) {
+                    int node = ids.add(task.getId());
+                    if (node == lastRow.size()) {
+                        lastRow.add(row);
+                    } else {
+                        lastRow.set(node, row);
+                    }
+                }
+            }
+
+            int taskCount = ids.size();
+            // edges as (node, predecessor) pairs, in row order
+            IntList edgeNodes = new IntList(taskCount * 2);
+            IntList edgePredecessors = new IntList(taskCount * 2);
+            Map<String, Integer> barrierBySelector = new LinkedHashMap<>();
+            List<BitSet> barrierUsers = new ArrayList<>();
+            List<String> tasksWithUnknownDependencies = new ArrayList<>();
+            try (TaskFileReader.RowCursor cursor = new TaskFileReader(1).stream(input)) {
+                int row = 0;
+                for (Task task = cursor.next(); task != null; task = cursor.next(), row++) {
+                    int node = ids.indexOf(task.getId());
+                    if (lastRow.get(node) != row || task.getDependencies() == null) {
+                        continue;
+                    }
+                    boolean known = true;
+                    for (String token : task.getDependencies().split(TaskScheduler.SEPARATOR)) {
+                        String dependencyId = token.strip();
+                        if (dependencyId.isEmpty()) {
+                            continue;
+                        }
+                        int dependency = ids.indexOf(dependencyId);
+                        if (dependency < 0 && TaskGraph.isSelector(dependencyId)) {
+                            int barrier = barrierBySelector.computeIfAbsent(dependencyId, selector -> {
+                                barrierUsers.add(new BitSet(taskCount));
+                                return barrierUsers.size() - 1;
+                            });
+                            barrierUsers.get(barrier).set(node);
+                            dependency = taskCount + barrier;
+                        }
+                        if (dependency < 0) {
+                            known = false;
+                            continue;
+                        }
+                        edgeNodes.add(node);
+                        edgePredecessors.add(dependency);
+                    }
+                    if (!known) {
+                        tasksWithUnknownDependencies.add(task.getId());
+                    }
+                }
+            }
+            if (!tasksWithUnknownDependencies.isEmpty()) {
+                throw new SchedulingException("Tasks depend on unknown task ids", tasksWithUnknownDependencies);
+            }
+
+            int barrier = 0;
+            for (String selector : barrierBySelector.keySet()) {
+                BitSet users = barrierUsers.get(barrier);
+                boolean all = selector.equals(TopologicalScheduler.ALL_DEPENDENCIES);
+                for (int node = 0; node < taskCount; node++) {
+                    if (!users.get(node) && (all || TaskGraph.matches(selector, ids.id(node)))) {
+                        edgeNodes.add(taskCount + barrier);
+                        edgePredecessors.add(node);
+                    }
+                }
+                barrier++;
+            }
+
+            int size = taskCount + barrierBySelector.size();
+            int[] offsets = new int[size + 1];
+            for (int i = 0; i < edgeNodes.size(); i++) {
+                offsets[edgeNodes.get(i) + 1]++;
+            }
+            for (int node = 0; node < size; node++) {
+                offsets[node + 1] += offsets[node];
+            }
+            int[] next = Arrays.copyOf(offsets, size);
+            int[] predecessors = new int[edgeNodes.size()];
+            for (int i = 0; i < edgeNodes.size(); i++) {
+                predecessors[next[edgeNodes.get(i)]++] = edgePredecessors.get(i);
+            }
+            return new Structure(header, ids, lastRow.toArray(), barrierBySelector.size(), offsets, predecessors);
+        }
+
+        int taskCount() {
+            return lastRow.length;
+        }
+
+        int size() {
+            return lastRow.length + barrierCount;
+        }
+    }
+
+    /**
+     * The nodes of one shard in its local numbering, the rows of its tasks, and its connection
+     * to the worker.
+     */
+    private static final class Shard {
+
+        private final IntList nodes = new IntList(1024);
+        private final IntList rows = new IntList(1024);
+        // the nodes of lower shards it depends on, by local source number
+        private final IntList sources = new IntList(16);
+        private final IntList exports = new IntList(16);
+        private Path part;
+        private DataInputStream in;
+        private DataOutputStream out;
+    }
+}
@@ -0,0 +1,78 @@
+import java.time.LocalDateTime;
+
+/**
+ * End date distributions and criticality indexes produced by a {@link MonteCarloSimulation}.
+ * <p>
+ * Percentiles are read from per-task histograms spanning the all-min to all-max end of each
+ * task, so they are accurate to one bin, i.e. a hundredth of that range by default. Large
+ * plans may get fewer bins, see {@link #getBins()}.
+ */
+public class SimulationResult {
+
+    private final TaskGraph graph;
+    private final WorkingCalendar calendar;
+    private final int iterations;
+    private final int bins;
+    private final double[] lowest;
+    private final double[] highest;
+    private final int[] histogram;
+    private final long[] critical;
+
+    SimulationResult(TaskGraph graph, WorkingCalendar calendar, int iterations, int bins,
+                     double[] lowest, double[] highest, int[] histogram, long[] critical) {
+        this.graph = graph;
+        this.calendar = calendar;
+        this.iterations = iterations;
+        this.bins = bins;
+        this.lowest = lowest;
+        this.highest = highest;
+        this.histogram = histogram;
+        this.critical = critical;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * @return the histogram bins per task, fewer than requested if the plan is too large for them
+     */
+    public int getBins() {
+        return bins;
+    }
+
+    /**
+     * @param percentile between 0 and 100, e.g. 80 for the P80 end date
+     * @return the date by which the task ended in at least that share of the iterations
+     */
+    public LocalDateTime endPercentile(String id, double percentile) {
+        int node = node(id);
+        long threshold = (long) Math.ceil(iterations * percentile / 100);
+        long cumulative = 0;
+        int bin = 0;
+        for (; bin < bins - 1; bin++) {
+            cumulative += histogram[node * bins + bin];
+            if (cumulative >= threshold) {
+                break;
+            }
+        }
+        double range = highest[node] - lowest[node];
+        double end = range <= 0 ? highest[node] : lowest[node] + range * (bin + 1) / bins;
+        return calendar.fromWorkingMinutes(Math.round(end * WorkingCalendar.MINUTES_PER_DAY));
+    }
+
+    /**
+     * @return the share of iterations, between 0 and 1, in which the task was on the critical path
+     */
+    public double criticalityIndex(String id) {
+        return iterations == 0 ? 0 : (double) critical[node(id)] / iterations;
+    }
+
+    private int node(String id) {
+        int node = graph.indexOf(id);
+        if (node < 0) {
+            throw new IllegalArgumentException("Unknown task id: " + id);
+        }
+        return node;
+    }
+}
@@ -0,0 +1,296 @@
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Schedules an export whose rows are already in dependency order, and in the order of their
+ * ids, in one pass: each row is scheduled as soon as it is read and written right away.
+ * <p>
+ * Only the ends of the most recently used tasks are kept, in a least-recently-used cache of
+ * {@code window} tasks, so memory follows the tasks that are still being depended on rather
+ * than the size of the plan. Each id seen is also kept as a 64-bit hash to catch an id that
+ * is defined twice.
+ * <p>
+ * Whenever the stream cannot give the same output as {@link TaskScheduler}, the run starts
+ * over with the buffered engine, which rewrites the output: on a dependency that is not in
+ * the cache (a forward reference, an unknown id or an end that was evicted), a selector such
+ * as {@code all}, an id defined twice, or rows out of id order. Runs that need the whole plan
+ * (critical path analysis, resource leveling, reduced dependency lists) always use the buffered
+ * engine.
+ */
+@Slf4j
+public final class StreamingScheduler {
+
+    public static final int DEFAULT_WINDOW = 1 << 20;
+    private static final int SCENARIOS = Scenario.values().length;
+    private static final Scenario[] ESTIMATES = {Scenario.MIN, Scenario.MAX};
+
+    private final ScheduleOptions options;
+    private final int window;
+    private final Map<String, long[]> ends;
+    private long[] seenIds = new long[1024];
+    private int seenCount;
+    private boolean streamed;
+    private int tasks;
+    private int peakCachedTasks;
+    private String fallbackReason;
+
+    private StreamingScheduler(ScheduleOptions options, int window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("Expected a window of at least one task, got " + window);
+        }
+        this.options = options;
+        this.window = window;
+        ends = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, long[]> eldest) {
+                return size() > StreamingScheduler.this.window;
+            }
+        };
+    }
+
+    public static StreamingScheduler of(ScheduleOptions options) {
+        return of(options, DEFAULT_WINDOW);
+    }
+
+    /**
+     * @param window the number of tasks whose ends are kept
+     */
+    public static StreamingScheduler of(ScheduleOptions options, int window) {
+        return new StreamingScheduler(options, window);
+    }
+
+    /**
+     * Schedules {@code input} into {@code output}, streaming if it can and with the buffered
+     * engine otherwise.
+     *
+     * @return whether the run was streamed
+     * @throws SchedulingException as {@link TaskScheduler} does, from the buffered engine
+     */
+    public boolean schedule(Path input, Path output) throws IOException {
+        long startNanos = System.nanoTime();
+        fallbackReason = bufferedOnlyReason();
+        if (fallbackReason == null) {
+            fallbackReason = stream(input, output);
+        }
+        streamed = fallbackReason == null;
+        if (streamed) {
+            log.info("Streamed {} tasks in {} ms, keeping at most {} ends", tasks,
+                    String.format("%.1f", (System.nanoTime() - startNanos) / 1e6), peakCachedTasks);
+            return true;
+        }
+        log.info("Scheduling {} with the buffered engine: {}", input, fallbackReason);
+        TaskScheduler.schedule(input, options).write(output);
+        return false;
+    }
+
+    public boolean isStreamed() {
+        return streamed;
+    }
+
+    /**
+     * @return the number of tasks written by the last streamed run
+     */
+    public int getTasks() {
+        return tasks;
+    }
+
+    /**
+     * @return the largest number of task ends kept at once during the last run
+     */
+    public int getPeakCachedTasks() {
+        return peakCachedTasks;
+    }
+
+    /**
+     * @return why the last run used the buffered engine, or null if it was streamed
+     */
+    public String getFallbackReason() {
+        return fallbackReason;
+    }
+
+    private String bufferedOnlyReason() {
+        if (options.isCriticalPathAnalysis()) {
+            return "critical path analysis needs the whole plan";
+        }
+        if (options.getResourceLeveling() != null) {
+            return "resource leveling needs the whole plan";
+        }
+        if (options.isTransitiveReduction() && options.isReducedDependencies()) {
+            return "reduced dependency lists need the whole plan";
+        }
+        return null;
+    }
+
+    /**
+     * @return why the stream stopped, or null if every row was written
+     */
+    private String stream(Path input, Path output) throws IOException {
+        ends.clear();
+        seenIds = new long[1024];
+        seenCount = 0;
+        tasks = 0;
+        peakCachedTasks = 0;
+        WorkingCalendar calendar = options.getCalendar();
+        LocalDate startDate = options.getStartDate();
+        long projectStart = calendar.toWorkingMinutes(startDate.atStartOfDay());
+        long[] start = new long[SCENARIOS];
+        long[] startEpochDays = new long[SCENARIOS];
+        long[] endEpochDays = new long[SCENARIOS];
+
+        try (TaskFileReader.RowCursor cursor = new TaskFileReader(1).stream(input);
+             ScheduleWriter writer = new ScheduleWriter(output)) {
+            if (ScenarioEngine.hasExtraColumns(cursor.getHeader())) {
+                return "extra duration columns are scheduled by the buffered engine";
+            }
+            writer.writeHeader(cursor.getHeader());
+            String previousId = null;
+            for (Task task = cursor.next(); task != null; task = cursor.next()) {
+                String id = task.getId();
+                if (previousId != null && compareIds(previousId, id) >= 0) {
+                    return "task " + id + " comes after " + previousId;
+                }
+                if (!addSeenId(id)) {
+                    return "task " + id + " is defined more than once";
+                }
+                previousId = id;
+
+                String reason = pullStart(task, projectStart, start);
+                if (reason != null) {
+                    return reason;
+                }
+                boolean root = start[0] == Long.MIN_VALUE;
+                long[] taskEnds = new long[SCENARIOS];
+                if (root) {
+                    for (int scenario = 0; scenario < SCENARIOS; scenario++) {
+                        taskEnds[scenario] = projectStart + WorkingCalendar.manDaysToMinutes(Scenario.values()[scenario].duration(task));
+                        startEpochDays[scenario] = startDate.toEpochDay();
+                        endEpochDays[scenario] = calendar.epochDay(taskEnds[scenario]);
+                    }
+                } else {
+                    scheduleAfterPredecessors(task, start, taskEnds, calendar, startEpochDays, endEpochDays);
+                }
+                ends.put(id, taskEnds);
+                peakCachedTasks = Math.max(peakCachedTasks, ends.size());
+                writer.writeTask(task, startEpochDays, endEpochDays);
+                tasks++;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Sets {@code start} to the latest predecessor end in each scenario, not before the project
+     * start, or to {@link Long#MIN_VALUE} for a task without dependencies.
+     *
+     * @return why the task cannot be streamed, or null
+     */
+    private String pullStart(Task task, long projectStart, long[] start) {
+        Arrays.fill(start, Long.MIN_VALUE);
+        String dependencies = task.getDependencies();
+        if (dependencies == null) {
+            return null;
+        }
+        for (String token : dependencies.split(TaskScheduler.SEPARATOR)) {
+            String dependency = token.strip();
+            if (dependency.isEmpty()) {
+                continue;
+            }
+            long[] dependencyEnds = ends.get(dependency);
+            if (dependencyEnds == null) {
+                return TaskGraph.isSelector(dependency)
+                        ? "task " + task.getId() + " uses the selector " + dependency
+                        : "task " + task.getId() + " depends on " + dependency + ", which is not a recent earlier task";
+            }
+            for (int scenario = 0; scenario < SCENARIOS; scenario++) {
+                start[scenario] = Math.max(start[scenario], Math.max(projectStart, dependencyEnds[scenario]));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Same rules as {@link ScheduleStore}: without a min or max estimate, a task with
+     * dependencies has no dates of its own in that scenario and passes on its nominal dates.
+     */
+    private static void scheduleAfterPredecessors(Task task, long[] start, long[] taskEnds, WorkingCalendar calendar,
+                                                  long[] startEpochDays, long[] endEpochDays) {
+        int nominal = Scenario.NOMINAL.ordinal();
+        taskEnds[nominal] = start[nominal] + WorkingCalendar.manDaysToMinutes(task.getDuration());
+        startEpochDays[nominal] = calendar.epochDay(start[nominal]);
+        endEpochDays[nominal] = calendar.epochDay(taskEnds[nominal]);
+        for (Scenario scenario : ESTIMATES) {
+            int s = scenario.ordinal();
+            boolean estimated = scenario == Scenario.MIN ? task.getMinDuration() > -1 : task.getMaxDuration() > -1;
+            if (estimated) {
+                taskEnds[s] = start[s] + WorkingCalendar.manDaysToMinutes(scenario.duration(task));
+                startEpochDays[s] = calendar.epochDay(start[s]);
+                endEpochDays[s] = calendar.epochDay(taskEnds[s]);
+            } else {
+                taskEnds[s] = taskEnds[nominal];
+                startEpochDays[s] = Long.MIN_VALUE;
+                endEpochDays[s] = Long.MIN_VALUE;
+            }
+        }
+    }
+
+    /**
+     * Same order as {@link ScheduleWriter}: numeric ids by value, then the others by text.
+     */
+    private static int compareIds(String left, String right) {
+        long leftNumber = ScheduleWriter.numericId(left);
+        long rightNumber = ScheduleWriter.numericId(right);
+        if ((leftNumber < 0) != (rightNumber < 0)) {
+            return leftNumber < 0 ? 1 : -1;
+        }
+        int byNumber = Long.compare(leftNumber, rightNumber);
+        return byNumber != 0 ? byNumber : left.compareTo(right);
+    }
+
+    /**
+     * @return false if an id with the same 64-bit hash was seen before
+     */
+    private boolean addSeenId(String id) {
+        if (seenCount * 2 >= seenIds.length) {
+            long[] old = seenIds;
+            seenIds = new long[old.length * 2];
+            seenCount = 0;
+            for (long hash : old) {
+                if (hash != 0) {
+                    addSeenHash(hash);
+                }
+            }
+        }
+        return addSeenHash(hash(id));
+    }
+
+    private boolean addSeenHash(long hash) {
+        int mask = seenIds.length - 1;
+        for (int slot = (int) (hash ^ hash >>> 32) & mask; ; slot = slot + 1 & mask) {
+            if (seenIds[slot] == 0) {
+                seenIds[slot] = hash;
+                seenCount++;
+                return true;
+            }
+            if (seenIds[slot] == hash) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a of the id, never 0, which marks an empty slot
+     */
+    private static long hash(String id) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            hash = (hash ^ id.charAt(i)) * 0x100000001b3L;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+}
@@ -1,16 +1,16 @@
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 
-import java.time.DayOfWeek;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
-import java.util.Comparator;
 
 @Data
 @RequiredArgsConstructor(access = lombok.AccessLevel.PRIVATE)
 public class Task implements Comparable<Task> {
 
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
     private final String id;
     private final String dependencies;
     private final double duration;
@@ -22,6 +22,10 @@ public class Task implements Comparable<Task> {
     private LocalDateTime minEnd;
     private LocalDateTime maxStart;
     private LocalDateTime maxEnd;
+    /**
+     * the calendar this task works on, or null to work on the calendar of the schedule
+     */
+    private WorkingCalendar calendar;
 
     public static Task of(String id, String dependencies, double duration) {
         return new Task(id, dependencies, duration, -1, -1);
@@ -30,6 +34,18 @@ public class Task implements Comparable<Task> {
         return new Task(id, dependencies, duration, minDuration, maxDuration);
     }
 
+    public Task withDurations(double duration, double minDuration, double maxDuration) {
+        Task task = new Task(id, dependencies, duration, minDuration, maxDuration);
+        task.setCalendar(calendar);
+        return task;
+    }
+
+    public Task withDependencies(String dependencies) {
+        Task task = new Task(id, dependencies, duration, minDuration, maxDuration);
+        task.setCalendar(calendar);
+        return task;
+    }
+
     public boolean hasDependencies() {
         return dependencies != null && !dependencies.trim().isEmpty();
     }
@@ -38,34 +54,44 @@ public class Task implements Comparable<Task> {
         return Arrays.stream(dependencies.split(",")).map(String::trim).toArray(String[]::new);
     }
 
+    /**
+     * Sets the start and computes the end on a schedule calendar of {@link WorkingCalendar#DEFAULT}.
+     */
     public void setStartAndEndDate(LocalDateTime start) {
-        this.start = start;
-        this.end = computeEnd(start);
+        setStartAndEndDate(start, WorkingCalendar.DEFAULT);
     }
 
-    private LocalDateTime computeEnd(LocalDateTime start) {
-        long hours = manDaysToHours(duration);
-
-        int noOfWeekends = (int) duration / 7;
-        var end = start.plusHours(hours).plusDays(noOfWeekends * 2);
-
-        DayOfWeek dayOfWeek = end.getDayOfWeek();
-        end = switch (dayOfWeek) {
-            case SATURDAY -> end.plusDays(2);
-            case SUNDAY -> end.plusDays(1);
-            default -> end;
-        };
-        return end;
+    /**
+     * Sets the start and computes the end with the task's own calendar, if it has one, and
+     * moves it to the working time of the schedule calendar, as {@link ScheduleStore} does.
+     */
+    public void setStartAndEndDate(LocalDateTime start, WorkingCalendar scheduleCalendar) {
+        this.start = start;
+        this.end = endDate(start, duration, scheduleCalendar);
     }
 
     public void setMinStartAndEndDate(LocalDateTime start) {
+        setMinStartAndEndDate(start, WorkingCalendar.DEFAULT);
+    }
+
+    public void setMinStartAndEndDate(LocalDateTime start, WorkingCalendar scheduleCalendar) {
         this.minStart = start;
-        this.minEnd = computeEnd(start);
+        this.minEnd = endDate(start, minDuration > -1 ? minDuration : duration, scheduleCalendar);
     }
 
     public void setMaxStartAndEndDate(LocalDateTime start) {
+        setMaxStartAndEndDate(start, WorkingCalendar.DEFAULT);
+    }
+
+    public void setMaxStartAndEndDate(LocalDateTime start, WorkingCalendar scheduleCalendar) {
         this.maxStart = start;
-        this.maxEnd = computeEnd(start);
+        this.maxEnd = endDate(start, maxDuration > -1 ? maxDuration : duration, scheduleCalendar);
+    }
+
+    private LocalDateTime endDate(LocalDateTime start, double manDays, WorkingCalendar scheduleCalendar) {
+        long end = scheduleCalendar.endMinutes(scheduleCalendar.toWorkingMinutes(start),
+                WorkingCalendar.manDaysToMinutes(manDays), calendar == null ? scheduleCalendar : calendar);
+        return scheduleCalendar.fromWorkingMinutes(end);
     }
 
     public String toCSVLine() {
@@ -84,7 +110,7 @@ public class Task implements Comparable<Task> {
     }
 
     private String formatDate(LocalDateTime start) {
-        return start.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+        return start.format(DATE_FORMATTER);
     }
 
     @Override
@@ -104,13 +130,8 @@ public class Task implements Comparable<Task> {
                 '}';
     }
 
-    private static long manDaysToHours(double duration) {
-        return Math.round(24 * duration);
-    }
-
     @Override
     public int compareTo(Task o) {
-        return Comparator.comparing((Task task) -> Integer.parseInt(task.getId()), Comparator.naturalOrder())
-                .compare(this, o);
+        return Integer.compare(Integer.parseInt(id), Integer.parseInt(o.id));
     }
 }
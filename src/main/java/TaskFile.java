@@ -0,0 +1,19 @@
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Header and task rows of a parsed task export.
+ */
+@Data
+public class TaskFile {
+
+    private final String[] header;
+    private final List<Task> tasks;
+
+    /**
+     * Values of the duration columns after the max duration, row by row with one value per
+     * extra header column, or null if there are none. Blank cells are -1.
+     */
+    private double[] extraDurations;
+}
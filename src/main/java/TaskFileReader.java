@@ -0,0 +1,578 @@
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Reads task exports straight from a memory-mapped file.
+ * <p>
+ * The quoted id/dependencies/duration/min/max columns are parsed directly from the mapped
+ * bytes: no per-row {@code String[]}, no trimming copies and no {@code Double.parseDouble}
+ * on the common plain-decimal path. Duration columns after the max duration, one per extra
+ * header column, are kept as {@link TaskFile#getExtraDurations()}, with -1 for a blank or
+ * non-numeric cell. Large files are split at line boundaries into one chunk per unit of
+ * parallelism, and at most that many chunks are parsed at a time: one on the calling thread,
+ * the others on the pool. Rows must therefore not contain embedded line breaks.
+ * Streams and readers are read into memory first and then parsed the same way. A
+ * {@link RowCursor} instead parses a file one block at a time, in file order.
+ */
+@Slf4j
+public class TaskFileReader {
+
+    private static final int MAX_CHUNK_SIZE = 1 << 30;
+    private static final int MIN_PARALLEL_CHUNK_SIZE = 4 << 20;
+    private static final int STREAM_BLOCK_SIZE = 1 << 20;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final byte separator;
+    private final int parallelism;
+    private final ForkJoinPool pool;
+
+    public TaskFileReader() {
+        this(1);
+    }
+
+    public TaskFileReader(int parallelism) {
+        this(parallelism, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param parallelism the most threads that parse at the same time, the calling one included
+     * @param pool        pool the other threads are taken from
+     */
+    public TaskFileReader(int parallelism, ForkJoinPool pool) {
+        this.separator = (byte) TaskScheduler.SEPARATOR.charAt(0);
+        this.parallelism = Math.max(1, parallelism);
+        this.pool = pool;
+    }
+
+    public TaskFile read(Path path) throws IOException {
+        long startNanos = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long[] bounds = chunkBounds(channel, size);
+
+            String[] header = readHeader(channel, size);
+            int extraColumns = extraColumns(header);
+            List<Rows> chunks = parseChunks(bounds.length - 1,
+                    chunk -> parseChunk(channel, bounds[chunk], bounds[chunk + 1], extraColumns));
+
+            TaskFile taskFile = merge(header, chunks, extraColumns);
+            List<Task> tasks = taskFile.getTasks();
+
+            double seconds = (System.nanoTime() - startNanos) / 1e9;
+            double megabytes = size / (1024.0 * 1024.0);
+            log.info("Read {} tasks ({} MB in {} chunks) in {} ms, {} MB/s", tasks.size(),
+                    String.format("%.1f", megabytes), bounds.length - 1,
+                    String.format("%.1f", seconds * 1000), String.format("%.1f", megabytes / seconds));
+            return taskFile;
+        }
+    }
+
+    /**
+     * Opens the file for reading task by task. Only one block of rows is mapped and parsed at
+     * a time, so memory does not grow with the file.
+     */
+    public RowCursor stream(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new RowCursor(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public TaskFile read(InputStream input) throws IOException {
+        return read(ByteBuffer.wrap(input.readAllBytes()));
+    }
+
+    public TaskFile read(Reader reader) throws IOException {
+        StringWriter content = new StringWriter();
+        reader.transferTo(content);
+        return read(ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private TaskFile read(ByteBuffer bytes) {
+        long startNanos = System.nanoTime();
+        int size = bytes.limit();
+        int dataStart = lineEnd(bytes, 0, size);
+        String[] header = parseHeader(bytes, dataStart);
+        int extraColumns = extraColumns(header);
+
+        int chunkSize = (int) Math.min(MAX_CHUNK_SIZE, Math.max(MIN_PARALLEL_CHUNK_SIZE, (size - dataStart) / parallelism + 1L));
+        IntList bounds = new IntList(parallelism + 1);
+        bounds.add(dataStart);
+        for (int position = dataStart; position < size; ) {
+            position = size - position <= chunkSize ? size : lineEnd(bytes, position + chunkSize, size);
+            bounds.add(position);
+        }
+        List<Rows> chunks = parseChunks(bounds.size() - 1, chunk -> {
+            int from = bounds.get(chunk);
+            int length = bounds.get(chunk + 1) - from;
+            return parseRows(bytes.slice(from, length), length, extraColumns);
+        });
+
+        TaskFile taskFile = merge(header, chunks, extraColumns);
+        log.info("Read {} tasks ({} bytes) in {} ms", taskFile.getTasks().size(), size,
+                String.format("%.1f", (System.nanoTime() - startNanos) / 1e6));
+        return taskFile;
+    }
+
+    /**
+     * Parses the chunks with at most {@link #parallelism} threads: the calling thread and up to
+     * {@code parallelism - 1} tasks on the pool each take the next chunk until none is left.
+     */
+    private List<Rows> parseChunks(int count, IntFunction<Rows> parser) {
+        Rows[] chunks = new Rows[count];
+        AtomicInteger next = new AtomicInteger();
+        Runnable worker = () -> {
+            for (int chunk = next.getAndIncrement(); chunk < count; chunk = next.getAndIncrement()) {
+                chunks[chunk] = parser.apply(chunk);
+            }
+        };
+        List<ForkJoinTask<?>> helpers = new ArrayList<>();
+        for (int i = 1; i < Math.min(parallelism, count); i++) {
+            helpers.add(pool.submit(worker));
+        }
+        worker.run();
+        helpers.forEach(ForkJoinTask::join);
+        return Arrays.asList(chunks);
+    }
+
+    private static int extraColumns(String[] header) {
+        return Math.max(0, header.length - TaskScheduler.COLUMN_MAX_DURATION - 1);
+    }
+
+    private static TaskFile merge(String[] header, List<Rows> chunks, int extraColumns) {
+        List<Task> tasks = new ArrayList<>();
+        chunks.forEach(chunk -> tasks.addAll(chunk.tasks));
+        TaskFile taskFile = new TaskFile(header, tasks);
+        if (extraColumns > 0) {
+            double[] extraDurations = new double[tasks.size() * extraColumns];
+            int position = 0;
+            for (Rows chunk : chunks) {
+                System.arraycopy(chunk.extraDurations, 0, extraDurations, position, chunk.extraSize);
+                position += chunk.extraSize;
+            }
+            taskFile.setExtraDurations(extraDurations);
+        }
+        return taskFile;
+    }
+
+    private static int lineEnd(ByteBuffer buffer, int from, int size) {
+        for (int position = from; position < size; position++) {
+            if (buffer.get(position) == '\n') {
+                return position + 1;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Splits the data rows into chunks that end on a line break. The first chunk starts
+     * after the header line.
+     */
+    private long[] chunkBounds(FileChannel channel, long size) throws IOException {
+        long dataStart = lineEnd(channel, 0, size);
+        long dataSize = size - dataStart;
+        long chunkSize = Math.max(MIN_PARALLEL_CHUNK_SIZE, dataSize / parallelism + 1);
+        chunkSize = Math.min(chunkSize, MAX_CHUNK_SIZE);
+
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(dataStart);
+        long position = dataStart;
+        while (position < size) {
+            long next = position + chunkSize >= size ? size : lineEnd(channel, position + chunkSize, size);
+            bounds.add(next);
+            position = next;
+        }
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * @return the position right after the next line break at or after {@code from}
+     */
+    private static long lineEnd(FileChannel channel, long from, long size) throws IOException {
+        long position = from;
+        while (position < size) {
+            int length = (int) Math.min(64 * 1024, size - position);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            for (int i = 0; i < length; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += length;
+        }
+        return size;
+    }
+
+    private String[] readHeader(FileChannel channel, long size) throws IOException {
+        long headerEnd = lineEnd(channel, 0, size);
+        return parseHeader(channel.map(FileChannel.MapMode.READ_ONLY, 0, headerEnd), (int) headerEnd);
+    }
+
+    private String[] parseHeader(ByteBuffer buffer, int headerEnd) {
+        List<String> fields = new ArrayList<>();
+        Row row = new Row(buffer, new byte[256]);
+        int position = 0;
+        int end = lineContentEnd(buffer, 0, headerEnd);
+        while (position <= end) {
+            position = row.nextField(position, end, separator);
+            fields.add(row.fieldAsString(false));
+            if (position == end) {
+                break;
+            }
+            position++;
+        }
+        return fields.toArray(String[]::new);
+    }
+
+    private Rows parseChunk(FileChannel channel, long from, long to, int extraColumns) {
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+            return parseRows(buffer, (int) (to - from), extraColumns);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Rows parseRows(ByteBuffer buffer, int limit, int extraColumns) {
+        Rows rows = new Rows(extraColumns);
+        Row row = new Row(buffer, new byte[256]);
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int contentEnd = lineContentEnd(buffer, lineStart, lineEnd);
+            if (contentEnd > lineStart) {
+                rows.tasks.add(parseTask(row, lineStart, contentEnd, rows));
+            }
+            lineStart = lineEnd + 1;
+        }
+        return rows;
+    }
+
+    private Task parseTask(Row row, int position, int end, Rows rows) {
+        position = row.nextField(position, end, separator);
+        String id = row.fieldAsString(true);
+        position = row.nextField(position + 1, end, separator);
+        String dependencies = row.fieldAsString(false);
+        position = row.nextField(position + 1, end, separator);
+        double duration = row.fieldAsDouble();
+
+        Task task;
+        if (position < end) {
+            position = row.nextField(position + 1, end, separator);
+            double minDuration = row.fieldAsDouble();
+            position = row.nextField(position + 1, end, separator);
+            double maxDuration = row.fieldAsDouble();
+            task = Task.of(id, dependencies, duration, minDuration, maxDuration);
+        } else {
+            task = Task.of(id, dependencies, duration);
+        }
+        for (int column = 0; column < rows.extraColumns; column++) {
+            position = row.nextField(position + 1, end, separator);
+            rows.addExtraDuration(row.fieldAsExtraDuration());
+        }
+        return task;
+    }
+
+    /**
+     * @return the end of the line content, excluding a trailing carriage return
+     */
+    private static int lineContentEnd(ByteBuffer buffer, int lineStart, int lineEnd) {
+        int end = lineEnd;
+        if (end > lineStart && buffer.get(end - 1) == '\n') {
+            end--;
+        }
+        if (end > lineStart && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Tasks of a file in file order, parsed a block of about {@link #STREAM_BLOCK_SIZE} bytes
+     * at a time. Extra duration columns are skipped.
+     */
+    public final class RowCursor implements Closeable {
+
+        private final FileChannel channel;
+        private final long size;
+        private final String[] header;
+        private final int extraColumns;
+        private long position;
+        private List<Task> block = List.of();
+        private int next;
+
+        private RowCursor(FileChannel channel) throws IOException {
+            this.channel = channel;
+            size = channel.size();
+            header = readHeader(channel, size);
+            extraColumns = extraColumns(header);
+            position = lineEnd(channel, 0, size);
+        }
+
+        public String[] getHeader() {
+            return header;
+        }
+
+        /**
+         * @return the next task, or null at the end of the file
+         */
+        public Task next() throws IOException {
+            while (next == block.size()) {
+                if (position >= size) {
+                    return null;
+                }
+                long to = position + STREAM_BLOCK_SIZE >= size ? size : lineEnd(channel, position + STREAM_BLOCK_SIZE, size);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, to - position);
+                block = parseRows(buffer, (int) (to - position), extraColumns).tasks;
+                next = 0;
+                position = to;
+            }
+            return block.get(next++);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Tasks of one chunk and the values of its extra duration columns, row by row.
+     */
+    private static final class Rows {
+
+        private final List<Task> tasks = new ArrayList<>();
+        private final int extraColumns;
+        private double[] extraDurations;
+        private int extraSize;
+
+        Rows(int extraColumns) {
+            this.extraColumns = extraColumns;
+            this.extraDurations = new double[extraColumns * 1024];
+        }
+
+        void addExtraDuration(double value) {
+            if (extraSize == extraDurations.length) {
+                extraDurations = Arrays.copyOf(extraDurations, extraSize * 2);
+            }
+            extraDurations[extraSize++] = value;
+        }
+    }
+
+    /**
+     * Cursor over the fields of one line. A field is either a plain range of the buffer or,
+     * when it contains escaped quotes, a copy in the scratch array.
+     */
+    private static final class Row {
+
+        private final ByteBuffer buffer;
+        private byte[] scratch;
+        private int fieldStart;
+        private int fieldEnd;
+        private boolean unescaped;
+
+        Row(ByteBuffer buffer, byte[] scratch) {
+            this.buffer = buffer;
+            this.scratch = scratch;
+        }
+
+        /**
+         * Locates the field starting at {@code position}.
+         *
+         * @return the position of the separator ending the field, or {@code end}
+         */
+        int nextField(int position, int end, byte separator) {
+            unescaped = false;
+            if (position > end) {
+                fieldStart = end;
+                fieldEnd = end;
+                return end;
+            }
+
+            int quote = position;
+            while (quote < end && buffer.get(quote) == ' ') {
+                quote++;
+            }
+            if (quote == end || buffer.get(quote) != '"') {
+                int i = position;
+                while (i < end && buffer.get(i) != separator) {
+                    i++;
+                }
+                fieldStart = position;
+                fieldEnd = i;
+                return i;
+            }
+
+            int i = quote + 1;
+            fieldStart = i;
+            int copied = 0;
+            while (i < end) {
+                byte b = buffer.get(i);
+                if (b == '"') {
+                    if (i + 1 < end && buffer.get(i + 1) == '"') {
+                        if (!unescaped) {
+                            copied = copyToScratch(fieldStart, i);
+                            unescaped = true;
+                        }
+                        copied = appendToScratch(copied, (byte) '"');
+                        i += 2;
+                        continue;
+                    }
+                    break;
+                }
+                if (unescaped) {
+                    copied = appendToScratch(copied, b);
+                }
+                i++;
+            }
+            fieldEnd = unescaped ? copied : i;
+            while (i < end && buffer.get(i) != separator) {
+                i++;
+            }
+            return i;
+        }
+
+        String fieldAsString(boolean trim) {
+            int from = unescaped ? 0 : fieldStart;
+            int to = fieldEnd;
+            if (trim) {
+                while (from < to && byteAt(from) <= ' ') {
+                    from++;
+                }
+                while (to > from && byteAt(to - 1) <= ' ') {
+                    to--;
+                }
+            }
+            if (unescaped) {
+                return new String(scratch, from, to - from, StandardCharsets.UTF_8);
+            }
+            byte[] bytes = to - from <= scratch.length ? scratch : new byte[to - from];
+            buffer.get(from, bytes, 0, to - from);
+            return new String(bytes, 0, to - from, StandardCharsets.UTF_8);
+        }
+
+        boolean isFieldBlank() {
+            int from = unescaped ? 0 : fieldStart;
+            for (int i = from; i < fieldEnd; i++) {
+                if (byteAt(i) > ' ') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return the duration in a column after the max duration, or -1 if the cell is blank or
+         * not a number, as in a text column such as an owner
+         */
+        double fieldAsExtraDuration() {
+            int from = unescaped ? 0 : fieldStart;
+            while (from < fieldEnd && byteAt(from) <= ' ') {
+                from++;
+            }
+            if (from == fieldEnd) {
+                return -1;
+            }
+            byte first = byteAt(from);
+            if (!(first >= '0' && first <= '9' || first == '-' || first == '+' || first == '.')) {
+                return -1;
+            }
+            try {
+                return fieldAsDouble();
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        /**
+         * Parses a plain decimal such as {@code 12.50} without allocating. Anything else
+         * (exponents, very long mantissas) falls back to {@link Double#parseDouble}.
+         */
+        double fieldAsDouble() {
+            int from = unescaped ? 0 : fieldStart;
+            int to = fieldEnd;
+            while (from < to && byteAt(from) <= ' ') {
+                from++;
+            }
+            while (to > from && byteAt(to - 1) <= ' ') {
+                to--;
+            }
+
+            int i = from;
+            boolean negative = false;
+            if (i < to && (byteAt(i) == '-' || byteAt(i) == '+')) {
+                negative = byteAt(i) == '-';
+                i++;
+            }
+            long mantissa = 0;
+            int digits = 0;
+            int fractionDigits = -1;
+            for (; i < to; i++) {
+                byte b = byteAt(i);
+                if (b >= '0' && b <= '9') {
+                    mantissa = mantissa * 10 + (b - '0');
+                    digits++;
+                    if (fractionDigits >= 0) {
+                        fractionDigits++;
+                    }
+                } else if (b == '.' && fractionDigits < 0) {
+                    fractionDigits = 0;
+                } else {
+                    break;
+                }
+            }
+
+            // exact when the mantissa and the power of ten are both representable doubles
+            if (i == to && digits > 0 && digits <= 15 && fractionDigits < POWERS_OF_TEN.length) {
+                double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+                return negative ? -value : value;
+            }
+            return Double.parseDouble(fieldAsString(true));
+        }
+
+        private byte byteAt(int index) {
+            return unescaped ? scratch[index] : buffer.get(index);
+        }
+
+        private int copyToScratch(int from, int to) {
+            ensureScratch(to - from);
+            buffer.get(from, scratch, 0, to - from);
+            return to - from;
+        }
+
+        private int appendToScratch(int length, byte b) {
+            ensureScratch(length + 1);
+            scratch[length] = b;
+            return length + 1;
+        }
+
+        private void ensureScratch(int capacity) {
+            if (scratch.length < capacity) {
+                scratch = Arrays.copyOf(scratch, Math.max(capacity, scratch.length * 2));
+            }
+        }
+    }
+}
@@ -0,0 +1,305 @@
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Immutable dependency graph over a set of tasks.
+ * <p>
+ * Task ids are interned to dense indexes once when the graph is built. Predecessor and
+ * successor edges are stored in compressed-sparse-row form: the neighbours of node {@code i}
+ * are {@code edges[offsets[i]] .. edges[offsets[i + 1] - 1]}. Walking edges therefore needs
+ * no boxing, no hashing and no string allocation.
+ * <p>
+ * Group selectors in a dependency list ({@code all}, or a prefix such as {@code 12*}) are
+ * turned into virtual barrier nodes that come after the real tasks. A barrier depends on
+ * every task matching its selector, except the tasks that use that selector, and each task
+ * using the selector gets a single edge to the barrier. A milestone therefore costs O(1)
+ * extra edges instead of one edge per task in the plan.
+ */
+public final class TaskGraph {
+
+    public static final String PREFIX_SELECTOR_SUFFIX = "*";
+
+    private final Task[] tasks;
+    private final String[] barrierSelectors;
+    private final Map<String, Integer> indexById;
+    private final int[] predecessorOffsets;
+    private final int[] predecessors;
+    private final int[] successorOffsets;
+    private final int[] successors;
+
+    private TaskGraph(Task[] tasks, String[] barrierSelectors, Map<String, Integer> indexById,
+                      int[] predecessorOffsets, int[] predecessors) {
+        this.tasks = tasks;
+        this.barrierSelectors = barrierSelectors;
+        this.indexById = indexById;
+        this.predecessorOffsets = predecessorOffsets;
+        this.predecessors = predecessors;
+
+        int size = tasks.length + barrierSelectors.length;
+        this.successorOffsets = new int[size + 1];
+        this.successors = new int[predecessors.length];
+
+        for (int edge : predecessors) {
+            successorOffsets[edge + 1]++;
+        }
+        for (int i = 0; i < size; i++) {
+            successorOffsets[i + 1] += successorOffsets[i];
+        }
+        int[] next = Arrays.copyOf(successorOffsets, size);
+        for (int node = 0; node < size; node++) {
+            for (int k = predecessorOffsets[node]; k < predecessorOffsets[node + 1]; k++) {
+                successors[next[predecessors[k]]++] = node;
+            }
+        }
+    }
+
+    public static TaskGraph of(Collection<Task> tasks) {
+        return of(tasks, dependencyId -> false);
+    }
+
+    /**
+     * Builds the graph, leaving out the dependencies for which {@code external} holds, such as
+     * references into another project of a {@link Portfolio}. Their tasks are not nodes of this
+     * graph.
+     */
+    public static TaskGraph of(Collection<Task> tasks, Predicate<String> external) {
+        Task[] taskArray = tasks.toArray(Task[]::new);
+        Map<String, Integer> indexById = new HashMap<>(taskArray.length * 2);
+        for (int i = 0; i < taskArray.length; i++) {
+            indexById.put(taskArray[i].getId(), i);
+        }
+
+        Map<String, Integer> barrierBySelector = new LinkedHashMap<>();
+        List<BitSet> barrierUsers = new ArrayList<>();
+        IntList edges = new IntList(taskArray.length * 2);
+        IntList offsets = new IntList(taskArray.length + 1);
+        offsets.add(0);
+        List<String> tasksWithUnknownDependencies = new ArrayList<>();
+        for (int node = 0; node < taskArray.length; node++) {
+            if (!parseDependencies(taskArray, node, indexById, external, barrierBySelector, barrierUsers, edges)) {
+                tasksWithUnknownDependencies.add(taskArray[node].getId());
+            }
+            offsets.add(edges.size());
+        }
+        if (!tasksWithUnknownDependencies.isEmpty()) {
+            throw new SchedulingException("Tasks depend on unknown task ids", tasksWithUnknownDependencies);
+        }
+
+        String[] barrierSelectors = barrierBySelector.keySet().toArray(String[]::new);
+        for (int barrier = 0; barrier < barrierSelectors.length; barrier++) {
+            String selector = barrierSelectors[barrier];
+            BitSet users = barrierUsers.get(barrier);
+            for (int node = 0; node < taskArray.length; node++) {
+                if (!users.get(node) && matches(selector, taskArray[node].getId())) {
+                    edges.add(node);
+                }
+            }
+            offsets.add(edges.size());
+        }
+
+        return new TaskGraph(taskArray, barrierSelectors, indexById, offsets.toArray(), edges.toArray());
+    }
+
+    /**
+     * Rebuilds a graph from its already interned form, e.g. a {@link TaskGraphSnapshot}.
+     */
+    static TaskGraph of(Task[] tasks, String[] barrierSelectors, int[] predecessorOffsets, int[] predecessors) {
+        Map<String, Integer> indexById = new HashMap<>(tasks.length * 2);
+        for (int i = 0; i < tasks.length; i++) {
+            indexById.put(tasks[i].getId(), i);
+        }
+        return new TaskGraph(tasks, barrierSelectors, indexById, predecessorOffsets, predecessors);
+    }
+
+    public static boolean isSelector(String dependencyId) {
+        return dependencyId.equals(TopologicalScheduler.ALL_DEPENDENCIES) || dependencyId.endsWith(PREFIX_SELECTOR_SUFFIX);
+    }
+
+    /**
+     * @return whether the barrier of the selector depends on the task, unless the task uses the
+     * selector itself
+     */
+    static boolean matches(String selector, String taskId) {
+        return selector.equals(TopologicalScheduler.ALL_DEPENDENCIES)
+                || taskId.startsWith(selector.substring(0, selector.length() - PREFIX_SELECTOR_SUFFIX.length()));
+    }
+
+    /**
+     * Appends the predecessors of {@code node} to {@code edges}, scanning the dependency
+     * string in place instead of splitting it. Selectors are registered as barriers, which
+     * are numbered after the real tasks.
+     *
+     * @return false if one of the dependencies is not a known task id
+     */
+    private static boolean parseDependencies(Task[] tasks, int node, Map<String, Integer> indexById,
+                                             Predicate<String> external, Map<String, Integer> barrierBySelector,
+                                             List<BitSet> barrierUsers, IntList edges) {
+        String dependencies = tasks[node].getDependencies();
+        if (dependencies == null) {
+            return true;
+        }
+
+        boolean known = true;
+        int length = dependencies.length();
+        int tokenStart = 0;
+        while (tokenStart <= length) {
+            int tokenEnd = dependencies.indexOf(',', tokenStart);
+            if (tokenEnd < 0) {
+                tokenEnd = length;
+            }
+            int from = tokenStart;
+            int to = tokenEnd;
+            while (from < to && Character.isWhitespace(dependencies.charAt(from))) {
+                from++;
+            }
+            while (to > from && Character.isWhitespace(dependencies.charAt(to - 1))) {
+                to--;
+            }
+
+            if (from < to) {
+                String dependencyId = dependencies.substring(from, to);
+                Integer dependency = indexById.get(dependencyId);
+                if (dependency != null) {
+                    edges.add(dependency);
+                } else if (external.test(dependencyId)) {
+                    // scheduled elsewhere
+                } else if (isSelector(dependencyId)) {
+                    int barrier = barrierBySelector.computeIfAbsent(dependencyId, selector -> {
+                        barrierUsers.add(new BitSet(tasks.length));
+                        return barrierUsers.size() - 1;
+                    });
+                    barrierUsers.get(barrier).set(node);
+                    edges.add(tasks.length + barrier);
+                } else {
+                    known = false;
+                }
+            }
+            tokenStart = tokenEnd + 1;
+        }
+        return known;
+    }
+
+    /**
+     * @return the number of nodes, real tasks and barriers
+     */
+    public int size() {
+        return tasks.length + barrierSelectors.length;
+    }
+
+    public int taskCount() {
+        return tasks.length;
+    }
+
+    public boolean isBarrier(int node) {
+        return node >= tasks.length;
+    }
+
+    /**
+     * @return the task at {@code node}, or null if the node is a barrier
+     */
+    public Task task(int node) {
+        return node < tasks.length ? tasks[node] : null;
+    }
+
+    /**
+     * @return the task id, or the selector of a barrier node
+     */
+    public String id(int node) {
+        return node < tasks.length ? tasks[node].getId() : barrierSelectors[node - tasks.length];
+    }
+
+    /**
+     * @return the dense index of the task with the given id, or -1 if there is no such task
+     */
+    public int indexOf(String id) {
+        Integer index = indexById.get(id);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * @return the calendar of each task node that works on another calendar than
+     * {@code projectCalendar}, null elsewhere; or null if every task works on the project
+     * calendar
+     */
+    WorkingCalendar[] taskCalendars(WorkingCalendar projectCalendar) {
+        WorkingCalendar[] calendars = null;
+        for (int node = 0; node < tasks.length; node++) {
+            WorkingCalendar calendar = tasks[node].getCalendar();
+            if (calendar != null && calendar != projectCalendar) {
+                if (calendars == null) {
+                    calendars = new WorkingCalendar[size()];
+                }
+                calendars[node] = calendar;
+            }
+        }
+        return calendars;
+    }
+
+    public int edgeCount() {
+        return predecessors.length;
+    }
+
+    public int predecessorStart(int node) {
+        return predecessorOffsets[node];
+    }
+
+    public int predecessorEnd(int node) {
+        return predecessorOffsets[node + 1];
+    }
+
+    public int predecessor(int edge) {
+        return predecessors[edge];
+    }
+
+    public int successorStart(int node) {
+        return successorOffsets[node];
+    }
+
+    public int successorEnd(int node) {
+        return successorOffsets[node + 1];
+    }
+
+    public int successor(int edge) {
+        return successors[edge];
+    }
+
+    /**
+     * Orders the nodes so that every task comes after all of its predecessors (Kahn's algorithm).
+     *
+     * @throws SchedulingException if the graph contains a circular dependency
+     */
+    public int[] topologicalOrder() {
+        int size = size();
+        int[] inDegree = new int[size];
+        int[] order = new int[size];
+        int tail = 0;
+        for (int node = 0; node < size; node++) {
+            inDegree[node] = predecessorEnd(node) - predecessorStart(node);
+            if (inDegree[node] == 0) {
+                order[tail++] = node;
+            }
+        }
+
+        for (int head = 0; head < tail; head++) {
+            int node = order[head];
+            for (int k = successorOffsets[node]; k < successorOffsets[node + 1]; k++) {
+                int successor = successors[k];
+                if (--inDegree[successor] == 0) {
+                    order[tail++] = successor;
+                }
+            }
+        }
+
+        if (tail < size) {
+            List<String> unscheduled = new ArrayList<>();
+            for (int node = 0; node < tasks.length; node++) {
+                if (inDegree[node] > 0) {
+                    unscheduled.add(tasks[node].getId());
+                }
+            }
+            unscheduled.sort(Comparator.naturalOrder());
+            throw new SchedulingException("Circular dependency between tasks", unscheduled);
+        }
+        return order;
+    }
+}
@@ -0,0 +1,427 @@
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary snapshot of a parsed task graph, so that a plan that is scheduled over and over
+ * is only tokenized once.
+ * <p>
+ * The file holds the header, the ids and dependency strings, the primitive durations, the
+ * scheduled dates if there are any, and the CSR edges of the graph. It is reloaded by
+ * memory-mapping it in windows of at most {@link #MAP_WINDOW_SIZE} bytes and copying the
+ * arrays out in bulk, without parsing numbers or dependency lists, so a snapshot may exceed
+ * 2 GB. A snapshot records the size and modification time of the CSV it was built from, and
+ * a CRC32 of its own content that is checked while the windows are mapped, so the snapshot is
+ * read once. {@link #loadOrBuild} rebuilds it whenever one of them no longer matches. With
+ * {@code contentHash}, the CRC32C of the CSV is recorded and compared as well, which reads
+ * the CSV once more, without tokenizing it, but also notices a CSV rewritten with the same
+ * size and modification time.
+ */
+@Slf4j
+@Data
+public class TaskGraphSnapshot {
+
+    static final int MAGIC = 0x54475331;
+    static final int VERSION = 3;
+    static final String SUFFIX = ".snapshot";
+    static final int MAP_WINDOW_SIZE = 1 << 26;
+    /**
+     * recorded instead of the CRC32C of the source when it was not computed
+     */
+    static final long NO_HASH = -1;
+
+    /**
+     * magic, version, source size, source modification time, source CRC32C and CRC32 of the rest
+     */
+    private static final int PREAMBLE_SIZE = 4 + 4 + 8 + 8 + 8 + 4;
+    private static final int CRC_OFFSET = PREAMBLE_SIZE - 4;
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private final String[] header;
+    private final TaskGraph graph;
+
+    /**
+     * Loads the snapshot next to {@code source} (same name plus {@code .snapshot}), or reads the
+     * CSV and writes that snapshot if it is missing, stale or corrupt. Duplicate ids keep the
+     * last row, as in {@link TaskScheduler#schedule(TaskFile, ScheduleOptions)}. The source is
+     * compared by size and modification time.
+     */
+    public static TaskGraphSnapshot loadOrBuild(Path source, TaskFileReader reader) throws IOException {
+        return loadOrBuild(source, reader, false);
+    }
+
+    /**
+     * @param contentHash whether to compare the CRC32C of the source as well, which reads it
+     */
+    public static TaskGraphSnapshot loadOrBuild(Path source, TaskFileReader reader, boolean contentHash) throws IOException {
+        Path snapshot = source.resolveSibling(source.getFileName() + SUFFIX);
+        BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+        long sourceSize = attributes.size();
+        long sourceModified = attributes.lastModifiedTime().toMillis();
+        long sourceHash = contentHash ? contentHash(source) : NO_HASH;
+
+        if (Files.isRegularFile(snapshot)) {
+            try {
+                TaskGraphSnapshot loaded = load(snapshot, sourceSize, sourceModified, sourceHash);
+                if (loaded != null) {
+                    return loaded;
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Discarding unreadable snapshot {}", snapshot, e);
+            }
+        }
+
+        TaskFile taskFile = reader.read(source);
+        TaskGraphSnapshot built = new TaskGraphSnapshot(taskFile.getHeader(), TaskGraph.of(TaskScheduler.uniqueById(taskFile.getTasks())));
+        built.write(snapshot, sourceSize, sourceModified, sourceHash);
+        return built;
+    }
+
+    /**
+     * @return the CRC32C of the content of the file
+     */
+    static long contentHash(Path file) throws IOException {
+        CRC32C checksum = new CRC32C();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += MAP_WINDOW_SIZE) {
+                checksum.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_WINDOW_SIZE, size - position)));
+            }
+        }
+        return checksum.getValue();
+    }
+
+    /**
+     * @param sourceHash the CRC32C of the source, or {@link #NO_HASH} not to compare it
+     * @return the snapshot, or null if it was built from a different version of the source
+     * @throws IOException if the file is not a snapshot or its checksum does not match
+     */
+    static TaskGraphSnapshot load(Path snapshot, long sourceSize, long sourceModified, long sourceHash) throws IOException {
+        return load(snapshot, sourceSize, sourceModified, sourceHash, MAP_WINDOW_SIZE);
+    }
+
+    static TaskGraphSnapshot load(Path snapshot, long sourceSize, long sourceModified, long sourceHash, int windowSize)
+            throws IOException {
+        long startNanos = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            if (channel.size() < PREAMBLE_SIZE) {
+                throw new IOException("Not a task graph snapshot: " + snapshot);
+            }
+            ByteBuffer preamble = channel.map(FileChannel.MapMode.READ_ONLY, 0, PREAMBLE_SIZE);
+            if (preamble.getInt() != MAGIC || preamble.getInt() != VERSION) {
+                throw new IOException("Not a task graph snapshot of version " + VERSION + ": " + snapshot);
+            }
+            long size = preamble.getLong();
+            long modified = preamble.getLong();
+            long hash = preamble.getLong();
+            if (size != sourceSize || modified != sourceModified || sourceHash != NO_HASH && hash != sourceHash) {
+                log.info("Snapshot {} is stale", snapshot);
+                return null;
+            }
+            int crc = preamble.getInt();
+
+            Input input = new Input(channel, PREAMBLE_SIZE, windowSize);
+            TaskGraphSnapshot loaded = read(input);
+            if (input.crc() != crc) {
+                throw new IOException("Checksum mismatch in snapshot " + snapshot);
+            }
+            log.info("Loaded {} tasks from snapshot in {} ms", loaded.graph.taskCount(),
+                    String.format("%.1f", (System.nanoTime() - startNanos) / 1e6));
+            return loaded;
+        }
+    }
+
+    private static TaskGraphSnapshot read(Input buffer) throws IOException {
+        String[] header = new String[buffer.getInt()];
+        for (int i = 0; i < header.length; i++) {
+            header[i] = readString(buffer);
+        }
+
+        int taskCount = buffer.getInt();
+        int barrierCount = buffer.getInt();
+        int edgeCount = buffer.getInt();
+        String[] ids = new String[taskCount];
+        String[] dependencies = new String[taskCount];
+        for (int i = 0; i < taskCount; i++) {
+            ids[i] = readString(buffer);
+            dependencies[i] = readString(buffer);
+        }
+        double[] durations = buffer.getDoubles(taskCount);
+        double[] minDurations = buffer.getDoubles(taskCount);
+        double[] maxDurations = buffer.getDoubles(taskCount);
+        long[] dates = buffer.get() != 0 ? buffer.getLongs(6 * taskCount) : null;
+
+        Task[] tasks = new Task[taskCount];
+        for (int i = 0; i < taskCount; i++) {
+            tasks[i] = Task.of(ids[i], dependencies[i], durations[i], minDurations[i], maxDurations[i]);
+            if (dates != null) {
+                int d = 6 * i;
+                tasks[i].setStart(toDate(dates[d]));
+                tasks[i].setEnd(toDate(dates[d + 1]));
+                tasks[i].setMinStart(toDate(dates[d + 2]));
+                tasks[i].setMinEnd(toDate(dates[d + 3]));
+                tasks[i].setMaxStart(toDate(dates[d + 4]));
+                tasks[i].setMaxEnd(toDate(dates[d + 5]));
+            }
+        }
+
+        String[] barrierSelectors = new String[barrierCount];
+        for (int i = 0; i < barrierCount; i++) {
+            barrierSelectors[i] = readString(buffer);
+        }
+        int[] offsets = buffer.getInts(taskCount + barrierCount + 1);
+        int[] edges = buffer.getInts(edgeCount);
+        return new TaskGraphSnapshot(header, TaskGraph.of(tasks, barrierSelectors, offsets, edges));
+    }
+
+    /**
+     * Writes the snapshot to a temporary file first and moves it into place, so readers never
+     * see a partial snapshot.
+     */
+    void write(Path snapshot, long sourceSize, long sourceModified, long sourceHash) throws IOException {
+        Path temporary = Files.createTempFile(snapshot.toAbsolutePath().getParent(), snapshot.getFileName().toString(), ".tmp");
+        try {
+            CRC32 checksum = new CRC32();
+            try (FileOutputStream file = new FileOutputStream(temporary.toFile())) {
+                DataOutputStream preamble = new DataOutputStream(file);
+                preamble.writeInt(MAGIC);
+                preamble.writeInt(VERSION);
+                preamble.writeLong(sourceSize);
+                preamble.writeLong(sourceModified);
+                preamble.writeLong(sourceHash);
+                preamble.writeInt(0);
+                preamble.flush();
+
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(file, checksum), 1 << 16));
+                writePayload(out);
+                out.flush();
+
+                ByteBuffer crc = ByteBuffer.allocate(4).putInt(0, (int) checksum.getValue());
+                file.getChannel().write(crc, CRC_OFFSET);
+            }
+            Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private void writePayload(DataOutputStream out) throws IOException {
+        out.writeInt(header.length);
+        for (String column : header) {
+            writeString(out, column);
+        }
+
+        int taskCount = graph.taskCount();
+        int size = graph.size();
+        out.writeInt(taskCount);
+        out.writeInt(size - taskCount);
+        out.writeInt(graph.edgeCount());
+        for (int node = 0; node < taskCount; node++) {
+            writeString(out, graph.task(node).getId());
+            writeString(out, graph.task(node).getDependencies());
+        }
+        for (int node = 0; node < taskCount; node++) {
+            out.writeDouble(graph.task(node).getDuration());
+        }
+        for (int node = 0; node < taskCount; node++) {
+            out.writeDouble(graph.task(node).getMinDuration());
+        }
+        for (int node = 0; node < taskCount; node++) {
+            out.writeDouble(graph.task(node).getMaxDuration());
+        }
+
+        boolean scheduled = taskCount > 0 && graph.task(0).getEnd() != null;
+        out.writeByte(scheduled ? 1 : 0);
+        if (scheduled) {
+            for (int node = 0; node < taskCount; node++) {
+                Task task = graph.task(node);
+                out.writeLong(toLong(task.getStart()));
+                out.writeLong(toLong(task.getEnd()));
+                out.writeLong(toLong(task.getMinStart()));
+                out.writeLong(toLong(task.getMinEnd()));
+                out.writeLong(toLong(task.getMaxStart()));
+                out.writeLong(toLong(task.getMaxEnd()));
+            }
+        }
+
+        for (int node = taskCount; node < size; node++) {
+            writeString(out, graph.id(node));
+        }
+        for (int node = 0; node < size; node++) {
+            out.writeInt(graph.predecessorStart(node));
+        }
+        out.writeInt(graph.edgeCount());
+        for (int edge = 0; edge < graph.edgeCount(); edge++) {
+            out.writeInt(graph.predecessor(edge));
+        }
+    }
+
+    /**
+     * Length-prefixed UTF-8, with a length of -1 for null.
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(Input buffer) throws IOException {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        return new String(buffer.getBytes(length), StandardCharsets.UTF_8);
+    }
+
+    private static long toLong(LocalDateTime date) {
+        return date == null ? NO_DATE : date.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime toDate(long epochSecond) {
+        return epochSecond == NO_DATE ? null : LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Reads a channel through windows mapped one after the other, copying arrays in bulk, so
+     * that the file size is not bounded by what one buffer can address. Every byte is added to
+     * a CRC32 when its window is mapped, so the checksum needs no pass of its own.
+     */
+    private static final class Input {
+
+        private final FileChannel channel;
+        private final long size;
+        private final int windowSize;
+        private final CRC32 checksum = new CRC32();
+        private MappedByteBuffer window;
+        private long windowStart;
+        /**
+         * the position up to which the file has been added to the checksum
+         */
+        private long checked;
+
+        private Input(FileChannel channel, long position, int windowSize) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            this.windowSize = Math.max(windowSize, Long.BYTES);
+            checked = position;
+            map(position);
+        }
+
+        byte get() throws IOException {
+            require(Byte.BYTES);
+            return window.get();
+        }
+
+        int getInt() throws IOException {
+            require(Integer.BYTES);
+            return window.getInt();
+        }
+
+        long getLong() throws IOException {
+            require(Long.BYTES);
+            return window.getLong();
+        }
+
+        byte[] getBytes(int count) throws IOException {
+            byte[] values = new byte[count];
+            for (int done = 0; done < count; ) {
+                require(1);
+                int n = Math.min(count - done, window.remaining());
+                window.get(values, done, n);
+                done += n;
+            }
+            return values;
+        }
+
+        int[] getInts(int count) throws IOException {
+            int[] values = new int[count];
+            for (int done = 0; done < count; ) {
+                require(Integer.BYTES);
+                int n = Math.min(count - done, window.remaining() / Integer.BYTES);
+                window.asIntBuffer().get(values, done, n);
+                window.position(window.position() + n * Integer.BYTES);
+                done += n;
+            }
+            return values;
+        }
+
+        long[] getLongs(int count) throws IOException {
+            long[] values = new long[count];
+            for (int done = 0; done < count; ) {
+                require(Long.BYTES);
+                int n = Math.min(count - done, window.remaining() / Long.BYTES);
+                window.asLongBuffer().get(values, done, n);
+                window.position(window.position() + n * Long.BYTES);
+                done += n;
+            }
+            return values;
+        }
+
+        double[] getDoubles(int count) throws IOException {
+            double[] values = new double[count];
+            for (int done = 0; done < count; ) {
+                require(Double.BYTES);
+                int n = Math.min(count - done, window.remaining() / Double.BYTES);
+                window.asDoubleBuffer().get(values, done, n);
+                window.position(window.position() + n * Double.BYTES);
+                done += n;
+            }
+            return values;
+        }
+
+        /**
+         * @return the CRC32 of everything after the preamble
+         * @throws IOException if the snapshot goes on after its content
+         */
+        int crc() throws IOException {
+            if (windowStart + window.position() != size) {
+                throw new IOException("Snapshot has " + (size - windowStart - window.position()) + " bytes after its content");
+            }
+            return (int) checksum.getValue();
+        }
+
+        /**
+         * Maps the next window from the current position if fewer than {@code bytes} bytes are
+         * left in this one.
+         */
+        private void require(int bytes) throws IOException {
+            if (window.remaining() >= bytes) {
+                return;
+            }
+            long position = windowStart + window.position();
+            if (size - position < bytes) {
+                throw new EOFException("Snapshot ends early");
+            }
+            map(position);
+        }
+
+        private void map(long position) throws IOException {
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowSize, size - position));
+            long end = position + window.limit();
+            if (end > checked) {
+                checksum.update(window.slice((int) (checked - position), (int) (end - checked)));
+                checked = end;
+            }
+        }
+    }
+}
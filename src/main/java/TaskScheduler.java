@@ -1,14 +1,27 @@
-import au.com.bytecode.opencsv.CSVReader;
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.*;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.function.Predicate;
-
+import java.util.function.Consumer;
+
+/**
+ * Library entry points that read a task export, schedule it and return the result, and the
+ * command line:
+ * <pre>
+ *   TaskScheduler [input.csv [result.csv [start-date]]]
+ *   TaskScheduler --stream input.csv result.csv [start-date]
+ *   TaskScheduler --shards count input.csv result.csv [start-date]
+ *   TaskScheduler --daemon (inbox-directory | -) [start-date]
+ * </pre>
+ */
 @Slf4j
 public class TaskScheduler {
 
@@ -20,119 +33,177 @@ public class TaskScheduler {
     public static final int COLUMN_MAX_DURATION = 4;
     public static final String SEPARATOR = ",";
 
+    private static final String DAEMON_OPTION = "--daemon";
+    private static final String STREAM_OPTION = "--stream";
+    private static final String SHARDS_OPTION = "--shards";
+    private static final String DEFAULT_INPUT = "src/main/resources/tasks.csv";
+    private static final String DEFAULT_OUTPUT = "src/main/resources/result.csv";
+    private static final LocalDate DEFAULT_START_DATE = LocalDate.of(2023, 10, 30);
+    private static final Consumer<ScheduleStore> NOTHING_BEFORE_SCHEDULE = store -> {
+    };
+
     public static void main(String[] args) {
-        LocalDate startDate = LocalDate.of(2023, 10, 30);
+        if (args.length > 0 && args[0].equals(DAEMON_OPTION)) {
+            if (args.length < 2) {
+                log.error("Usage: TaskScheduler --daemon (inbox-directory | -) [start-date]");
+                return;
+            }
+            ScheduleOptions options = ScheduleOptions.of(args.length > 2 ? LocalDate.parse(args[2], FORMATTER) : DEFAULT_START_DATE);
+            try (ScheduleDaemon daemon = new ScheduleDaemon(options)) {
+                if (args[1].equals("-")) {
+                    daemon.readJobs(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+                } else {
+                    daemon.watch(Paths.get(args[1]));
+                }
+            } catch (IOException e) {
+                log.error("Failed to read jobs", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return;
+        }
+        if (args.length > 0 && args[0].equals(STREAM_OPTION)) {
+            if (args.length < 3) {
+                log.error("Usage: TaskScheduler --stream input.csv result.csv [start-date]");
+                return;
+            }
+            ScheduleOptions options = ScheduleOptions.of(args.length > 3 ? LocalDate.parse(args[3], FORMATTER) : DEFAULT_START_DATE);
+            options.setCriticalPathAnalysis(false);
+            try {
+                StreamingScheduler.of(options).schedule(Paths.get(args[1]), Paths.get(args[2]));
+            } catch (IOException e) {
+                log.error("Failed to read input file or write result file", e);
+            }
+            return;
+        }
+        if (args.length > 0 && args[0].equals(SHARDS_OPTION)) {
+            if (args.length < 4) {
+                log.error("Usage: TaskScheduler --shards count input.csv result.csv [start-date]");
+                return;
+            }
+            ScheduleOptions options = ScheduleOptions.of(args.length > 4 ? LocalDate.parse(args[4], FORMATTER) : DEFAULT_START_DATE);
+            options.setCriticalPathAnalysis(false);
+            try {
+                ShardedScheduler.of(options, Integer.parseInt(args[1])).schedule(Paths.get(args[2]), Paths.get(args[3]));
+            } catch (IOException e) {
+                log.error("Failed to read input file, write result file or run a shard worker", e);
+            }
+            return;
+        }
 
-        Map<String, Task> taskMap = new HashMap<>();
+        Path inputFile = Paths.get(args.length > 0 ? args[0] : DEFAULT_INPUT);
+        Path outputFile = Paths.get(args.length > 1 ? args[1] : DEFAULT_OUTPUT);
+        LocalDate startDate = args.length > 2 ? LocalDate.parse(args[2], FORMATTER) : DEFAULT_START_DATE;
 
-        File inputFile = Paths.get("src/main/resources/tasks.csv").toFile();
-        File outputFile = Paths.get("src/main/resources/result.csv").toFile();
+        try {
+            ScheduleResult result = schedule(inputFile, ScheduleOptions.of(startDate));
+            if (result.getCriticalPathAnalysis() != null) {
+                log.info("Critical path: {}", String.join(" -> ", result.getCriticalPathAnalysis().criticalPath(Scenario.NOMINAL)));
+            }
+            result.write(outputFile);
+            log.info("Metrics: {}", result.getMetrics().toJson());
+        } catch (IOException e) {
+            log.error("Failed to read input file or write result file", e);
+        }
+    }
 
-        try (Reader inputReader = new FileReader(inputFile);
-             CSVReader reader = new CSVReader(inputReader, SEPARATOR.charAt(0));
-             FileWriter fileWriter = new FileWriter(outputFile)) {
+    /**
+     * With {@link ScheduleOptions#isSnapshots()}, the graph is loaded from, or saved to, a
+     * {@link TaskGraphSnapshot} next to the input; loading a snapshot counts as parsing. Snapshots
+     * hold no resource columns, so they are not used for resource-leveled runs, nor duration
+     * columns after {@code Min} and {@code Max}, so an input with such columns is parsed again.
+     */
+    public static ScheduleResult schedule(Path input, ScheduleOptions options) throws IOException {
+        TaskFileReader reader = new TaskFileReader(options.getReaderParallelism(), options.getPool());
+        ScheduleMetrics metrics = new ScheduleMetrics(options.getPool());
+        if (options.isSnapshots() && options.getResourceLeveling() == null) {
+            TaskGraphSnapshot snapshot = metrics.time(ScheduleMetrics.Phase.PARSE,
+                    () -> TaskGraphSnapshot.loadOrBuild(input, reader, options.isSnapshotContentHash()));
+            if (!ScenarioEngine.hasExtraColumns(snapshot.getHeader())) {
+                return schedule(snapshot.getHeader(), snapshot.getGraph(), null, options, metrics, NOTHING_BEFORE_SCHEDULE);
+            }
+            log.info("{} has extra duration columns, which snapshots do not hold", input);
+        }
+        TaskFile taskFile = metrics.time(ScheduleMetrics.Phase.PARSE, () -> reader.read(input));
+        return schedule(taskFile, options, metrics);
+    }
 
-            String[] nextLine;
+    public static ScheduleResult schedule(InputStream input, ScheduleOptions options) throws IOException {
+        ScheduleMetrics metrics = new ScheduleMetrics(options.getPool());
+        TaskFile taskFile = metrics.time(ScheduleMetrics.Phase.PARSE,
+                () -> new TaskFileReader(options.getReaderParallelism(), options.getPool()).read(input));
+        return schedule(taskFile, options, metrics);
+    }
 
-            writeHeader(reader, fileWriter);
+    public static ScheduleResult schedule(Reader input, ScheduleOptions options) throws IOException {
+        ScheduleMetrics metrics = new ScheduleMetrics(options.getPool());
+        TaskFile taskFile = metrics.time(ScheduleMetrics.Phase.PARSE,
+                () -> new TaskFileReader(options.getReaderParallelism(), options.getPool()).read(input));
+        return schedule(taskFile, options, metrics);
+    }
 
-            // Read tasks from CSV and create Task objects
-            while ((nextLine = reader.readNext()) != null) {
-                String taskId = nextLine[COLUMN_TASK_ID].trim();
-                log.info("Reading task " + taskId);
-                String dependencies = nextLine[COLUMN_DEPENDENCIES];
-                double duration = Double.parseDouble(nextLine[COLUMN_DURATION].trim());
+    /**
+     * Schedules the tasks of a parsed export. When an id appears more than once, the last row
+     * wins.
+     *
+     * @throws SchedulingException if a dependency is unknown or the dependencies form a cycle
+     */
+    public static ScheduleResult schedule(TaskFile taskFile, ScheduleOptions options) {
+        return schedule(taskFile, options, new ScheduleMetrics(options.getPool()));
+    }
 
-                if (nextLine.length > 3) {
-                    double minDuration = Double.parseDouble(nextLine[COLUMN_MIN_DURATION].trim());
-                    double maxDuration = Double.parseDouble(nextLine[COLUMN_MAX_DURATION].trim());
+    private static ScheduleResult schedule(TaskFile taskFile, ScheduleOptions options, ScheduleMetrics metrics) {
+        TaskGraph graph = metrics.time(ScheduleMetrics.Phase.GRAPH_BUILD, () -> TaskGraph.of(uniqueById(taskFile.getTasks())));
+        return schedule(taskFile.getHeader(), graph, taskFile, options, metrics, NOTHING_BEFORE_SCHEDULE);
+    }
 
-                    Task task = Task.of(taskId, dependencies, duration, minDuration, maxDuration);
-                    taskMap.put(taskId, task);
-                } else {
-                    Task task = Task.of(taskId, dependencies, duration);
-                    taskMap.put(taskId, task);
-                }
+    /**
+     * @param taskFile       the parsed export for resource leveling and extra scenarios, null when the graph
+     *                       comes from a snapshot
+     * @param beforeSchedule called with the store before its forward pass, e.g. to add external predecessors
+     */
+    static ScheduleResult schedule(String[] header, TaskGraph parsedGraph, TaskFile taskFile, ScheduleOptions options,
+                                   ScheduleMetrics metrics, Consumer<ScheduleStore> beforeSchedule) {
+        metrics.recordGraph(parsedGraph);
+        TaskGraph graph = options.isTransitiveReduction() ? reduce(parsedGraph, options, metrics) : parsedGraph;
+        ScheduleStore store = ScheduleStore.of(graph, options.getCalendar());
+        if (taskFile != null) {
+            store.setExtraScenarios(ScenarioEngine.extraColumns(taskFile, graph, options.getCalendar()));
+        }
+        beforeSchedule.accept(store);
+        metrics.time(ScheduleMetrics.Phase.FORWARD_PASS, () -> {
+            store.schedule(options.getStartDate(), options.getPool(), options.getParallelThreshold());
+            if (options.getResourceLeveling() != null) {
+                ResourceScheduler leveled = ResourceScheduler.of(taskFile, graph, options.getCalendar());
+                leveled.schedule(options.getStartDate(), options.getResourceLeveling());
+                store.level(leveled);
             }
-
-            List<Task> tasksWithoutDependencies = taskMap.values().stream()
-                    .filter(Predicate.not(Task::hasDependencies))
-                    .toList();
-
-            tasksWithoutDependencies.forEach(task -> {
-                task.setStartAndEndDate(startDate.atStartOfDay());
-                task.setMinStartAndEndDate(startDate.atStartOfDay());
-                task.setMaxStartAndEndDate(startDate.atStartOfDay());
-            });
-
-            List<Task> tasksWithDependencies;
-            do {
-                tasksWithDependencies = taskMap.values().stream()
-                        .filter(Task::hasDependencies)
-                        .filter(task -> task.getStart() == null)
-                        .sorted(Comparator.comparing(Task::getId))
-                        .toList();
-
-                tasksWithDependencies.forEach(task -> {
-//                    if (alreadyProcessed.contains(task.getId())) {
-//                        throw new RuntimeException("Circular dependency for task: " + task.getId());
-//                    } else {
-//                        alreadyProcessed.add(task.getId());
-//                    }
-                    log.info("Handle dependencies for task " + task.getId());
-                    String[] dependencies = task.getDependenciesAsArray().length == 1 && task.getDependenciesAsArray()[0].equals("all")
-                            ? taskMap.keySet().stream().filter(taskId -> !taskId.equals(task.getId())).toArray(String[]::new)
-                            : task.getDependenciesAsArray();
-                    boolean allDependenciesAreComputed = Arrays.stream(dependencies).allMatch(taskId -> taskMap.containsKey(taskId) && taskMap.get(taskId).getEnd() != null);
-                    if (allDependenciesAreComputed) {
-                        LocalDateTime maxFinishDateOfDependencies = Arrays.stream(dependencies)
-                                .map(taskMap::get)
-                                .map(Task::getEnd).max(Comparator.naturalOrder())
-                                .orElseThrow(IllegalStateException::new);
-                        task.setStartAndEndDate(maxFinishDateOfDependencies);
-
-                        if (task.getMaxDuration() > -1) {
-                            LocalDateTime maxMaxFinishDateOfDependencies = Arrays.stream(dependencies)
-                                    .map(taskMap::get)
-                                    .map(Task::getMaxEnd).max(Comparator.naturalOrder())
-                                    .orElseThrow(IllegalStateException::new);
-                            task.setMaxStartAndEndDate(maxMaxFinishDateOfDependencies);
-                        }
-
-                        if (task.getMinDuration() > -1) {
-                            LocalDateTime maxMinFinishDateOfDependencies = Arrays.stream(dependencies)
-                                    .map(taskMap::get)
-                                    .map(Task::getMinEnd).max(Comparator.naturalOrder())
-                                    .orElseThrow(IllegalStateException::new);
-                            task.setMinStartAndEndDate(maxMinFinishDateOfDependencies);
-                        }
-                    }
-                    else {
-                        log.info("Not all dependencies are computed for task: " + task.getId());
-                    }
-                });
-            } while (!tasksWithDependencies.isEmpty());
-
-            // Output the results
-            taskMap.values().stream()
-                    .sorted()
-                    .map(Task::toCSVLine)
-                    .forEach(csvLine -> {
-                        try {
-                            fileWriter.write(csvLine + "\n");
-                        } catch (IOException e) {
-                            log.error("Failed to write line: " + csvLine, e);
-                        }
-                    });
-
-        } catch (IOException e) {
-            log.error("Failed to read input file", e);
+        });
+        metrics.recordResolutionPasses(store.getResolutionPasses());
+        CriticalPathAnalysis criticalPathAnalysis = null;
+        if (options.isCriticalPathAnalysis()) {
+            criticalPathAnalysis = metrics.time(ScheduleMetrics.Phase.CRITICAL_PATH, () -> CriticalPathAnalysis.of(store));
         }
+        return new ScheduleResult(header, store, criticalPathAnalysis, metrics);
+    }
+
+    private static TaskGraph reduce(TaskGraph graph, ScheduleOptions options, ScheduleMetrics metrics) {
+        return metrics.time(ScheduleMetrics.Phase.GRAPH_BUILD, () -> {
+            TransitiveReduction reduction = TransitiveReduction.of(graph, options.getPool());
+            metrics.recordReduction(reduction);
+            return reduction.reducedGraph(options.isReducedDependencies());
+        });
     }
 
-    private static void writeHeader(CSVReader reader, FileWriter fileWriter) throws IOException {
-        String[] header = reader.readNext();
-        fileWriter.write(String.join(SEPARATOR, header) + "#SEP#start-date#SEP#end-date\n".replaceAll("#SEP#", SEPARATOR));
+    /**
+     * @return the tasks in input order, keeping only the last row of an id that appears more than once
+     */
+    static Collection<Task> uniqueById(List<Task> tasks) {
+        Map<String, Task> taskMap = new LinkedHashMap<>();
+        for (Task task : tasks) {
+            taskMap.put(task.getId(), task);
+        }
+        return taskMap.values();
     }
 
 }
@@ -0,0 +1,258 @@
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes the early start and end dates of every task in a single pass, on the tasks
+ * themselves. Tasks work on the calendar of the scheduler, {@link WorkingCalendar#DEFAULT}
+ * unless one is given, or on their own calendar if they have one.
+ * <p>
+ * This is not the engine of {@link TaskScheduler}, which schedules into a
+ * {@link ScheduleStore}. It is kept for the incremental path: {@link IncrementalSchedule}
+ * reschedules single nodes with {@link #scheduleNode} on the dates of its tasks. The store
+ * must give the same dates, and its tests compare the two.
+ * <p>
+ * The dependency graph is built once, then tasks are processed in Kahn-style topological
+ * order, so the whole forward pass costs O(V+E). Unknown dependencies and circular
+ * dependencies are reported up front instead of looping forever.
+ * <p>
+ * Very wide plans can optionally be scheduled on a {@link ForkJoinPool}: the graph is split
+ * into topological levels and the tasks of each level, which cannot depend on each other,
+ * are computed concurrently. Both paths produce the same dates; graphs below the parallel
+ * threshold always take the sequential path.
+ */
+@Slf4j
+public class TopologicalScheduler {
+
+    public static final String ALL_DEPENDENCIES = "all";
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 50_000;
+    static final int LEVEL_CHUNK_SIZE = 1024;
+
+    private final WorkingCalendar calendar;
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+
+    public TopologicalScheduler() {
+        this(WorkingCalendar.DEFAULT, null, Integer.MAX_VALUE);
+    }
+
+    public TopologicalScheduler(WorkingCalendar calendar) {
+        this(calendar, null, Integer.MAX_VALUE);
+    }
+
+    public TopologicalScheduler(ForkJoinPool pool, int parallelThreshold) {
+        this(WorkingCalendar.DEFAULT, pool, parallelThreshold);
+    }
+
+    /**
+     * @param calendar          calendar of the tasks that have none of their own
+     * @param pool              pool used for graphs with at least {@code parallelThreshold} nodes
+     * @param parallelThreshold smallest graph that is worth scheduling in parallel
+     */
+    public TopologicalScheduler(WorkingCalendar calendar, ForkJoinPool pool, int parallelThreshold) {
+        this.calendar = calendar;
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    public void schedule(Map<String, Task> taskMap, LocalDate startDate) {
+        schedule(TaskGraph.of(taskMap.values()), startDate);
+    }
+
+    public void schedule(TaskGraph graph, LocalDate startDate) {
+        LocalDateTime projectStart = startDate.atStartOfDay();
+        int[] order = graph.topologicalOrder();
+        if (pool != null && graph.size() >= parallelThreshold) {
+            scheduleByLevel(graph, order, projectStart);
+        } else {
+            scheduleInOrder(graph, order, projectStart, calendar);
+        }
+        log.debug("Scheduled {} tasks over {} dependencies", graph.taskCount(), graph.edgeCount());
+    }
+
+    private static void scheduleInOrder(TaskGraph graph, int[] order, LocalDateTime projectStart, WorkingCalendar calendar) {
+        // latest end of the predecessors seen so far, per scenario; pushed forward as each node
+        // completes so that barriers keep a running max instead of rescanning their members
+        LocalDateTime[] readyAt = new LocalDateTime[graph.size()];
+        LocalDateTime[] minReadyAt = new LocalDateTime[graph.size()];
+        LocalDateTime[] maxReadyAt = new LocalDateTime[graph.size()];
+        Ends ends = new Ends(graph.size());
+
+        for (int node : order) {
+            scheduleNode(graph, node,
+                    readyAt[node] == null ? projectStart : readyAt[node],
+                    minReadyAt[node] == null ? projectStart : minReadyAt[node],
+                    maxReadyAt[node] == null ? projectStart : maxReadyAt[node],
+                    calendar, ends);
+
+            for (int k = graph.successorStart(node); k < graph.successorEnd(node); k++) {
+                int successor = graph.successor(k);
+                readyAt[successor] = later(readyAt[successor], ends.end[node]);
+                minReadyAt[successor] = later(minReadyAt[successor], ends.minEnd[node]);
+                maxReadyAt[successor] = later(maxReadyAt[successor], ends.maxEnd[node]);
+            }
+        }
+    }
+
+    private void scheduleByLevel(TaskGraph graph, int[] order, LocalDateTime projectStart) {
+        int size = graph.size();
+        int[][] buckets = bucketByLevel(graph, order);
+        int[] levelOffsets = buckets[0];
+        int[] nodesByLevel = buckets[1];
+        int levels = levelOffsets.length - 1;
+
+        Ends ends = new Ends(size);
+        for (int i = 0; i < levels; i++) {
+            pool.invoke(new LevelTask(graph, nodesByLevel, levelOffsets[i], levelOffsets[i + 1], projectStart, calendar, ends));
+        }
+        log.debug("Scheduled {} levels on {} threads", levels, pool.getParallelism());
+    }
+
+    /**
+     * Groups the nodes by topological level, the length of the longest chain of predecessors
+     * before them, CSR style: the nodes of level {@code i} are
+     * {@code nodes[offsets[i]] .. nodes[offsets[i + 1] - 1]}.
+     *
+     * @return the offsets and the nodes
+     */
+    static int[][] bucketByLevel(TaskGraph graph, int[] order) {
+        int size = graph.size();
+        int[] level = new int[size];
+        int levels = 0;
+        for (int node : order) {
+            for (int k = graph.predecessorStart(node); k < graph.predecessorEnd(node); k++) {
+                level[node] = Math.max(level[node], level[graph.predecessor(k)] + 1);
+            }
+            levels = Math.max(levels, level[node] + 1);
+        }
+
+        int[] levelOffsets = new int[levels + 1];
+        for (int node = 0; node < size; node++) {
+            levelOffsets[level[node] + 1]++;
+        }
+        for (int i = 0; i < levels; i++) {
+            levelOffsets[i + 1] += levelOffsets[i];
+        }
+        int[] nodesByLevel = new int[size];
+        int[] next = Arrays.copyOf(levelOffsets, levels);
+        for (int node = 0; node < size; node++) {
+            nodesByLevel[next[level[node]]++] = node;
+        }
+        return new int[][]{levelOffsets, nodesByLevel};
+    }
+
+    private static void scheduleNode(TaskGraph graph, int node, LocalDateTime start, LocalDateTime minStart,
+                                     LocalDateTime maxStart, WorkingCalendar calendar, Ends ends) {
+        boolean root = graph.predecessorStart(node) == graph.predecessorEnd(node);
+        scheduleNode(graph.task(node), root, node, start, minStart, maxStart, calendar, ends);
+    }
+
+    /**
+     * Sets the dates of one node from the start of each scenario and records its ends. Barrier
+     * nodes have no task and end when they start.
+     */
+    static void scheduleNode(Task task, boolean root, int node, LocalDateTime start, LocalDateTime minStart,
+                             LocalDateTime maxStart, WorkingCalendar calendar, Ends ends) {
+        LocalDateTime end = start;
+        LocalDateTime minEnd = minStart;
+        LocalDateTime maxEnd = maxStart;
+        if (task != null) {
+            task.setStartAndEndDate(start, calendar);
+            end = task.getEnd();
+            minEnd = end;
+            maxEnd = end;
+            if (root || task.getMaxDuration() > -1) {
+                task.setMaxStartAndEndDate(maxStart, calendar);
+                maxEnd = task.getMaxEnd();
+            }
+            if (root || task.getMinDuration() > -1) {
+                task.setMinStartAndEndDate(minStart, calendar);
+                minEnd = task.getMinEnd();
+            }
+        }
+        ends.end[node] = end;
+        ends.minEnd[node] = minEnd;
+        ends.maxEnd[node] = maxEnd;
+    }
+
+    static LocalDateTime later(LocalDateTime current, LocalDateTime candidate) {
+        return current == null || candidate.isAfter(current) ? candidate : current;
+    }
+
+    /**
+     * End of every node in each scenario.
+     */
+    static final class Ends {
+
+        final LocalDateTime[] end;
+        final LocalDateTime[] minEnd;
+        final LocalDateTime[] maxEnd;
+
+        Ends(int size) {
+            end = new LocalDateTime[size];
+            minEnd = new LocalDateTime[size];
+            maxEnd = new LocalDateTime[size];
+        }
+    }
+
+    /**
+     * Schedules a range of one level, pulling the start of each node from its predecessors,
+     * which all belong to earlier levels.
+     */
+    private static final class LevelTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final TaskGraph graph;
+        private final int[] nodes;
+        private final int from;
+        private final int to;
+        private final LocalDateTime projectStart;
+        private final WorkingCalendar calendar;
+        private final Ends ends;
+
+        LevelTask(TaskGraph graph, int[] nodes, int from, int to, LocalDateTime projectStart, WorkingCalendar calendar,
+                  Ends ends) {
+            this.graph = graph;
+            this.nodes = nodes;
+            this.from = from;
+            this.to = to;
+            this.projectStart = projectStart;
+            this.calendar = calendar;
+            this.ends = ends;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEVEL_CHUNK_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new LevelTask(graph, nodes, from, middle, projectStart, calendar, ends),
+                        new LevelTask(graph, nodes, middle, to, projectStart, calendar, ends));
+                return;
+            }
+
+            for (int i = from; i < to; i++) {
+                int node = nodes[i];
+                LocalDateTime start = null;
+                LocalDateTime minStart = null;
+                LocalDateTime maxStart = null;
+                for (int k = graph.predecessorStart(node); k < graph.predecessorEnd(node); k++) {
+                    int predecessor = graph.predecessor(k);
+                    start = later(start, ends.end[predecessor]);
+                    minStart = later(minStart, ends.minEnd[predecessor]);
+                    maxStart = later(maxStart, ends.maxEnd[predecessor]);
+                }
+                scheduleNode(graph, node,
+                        start == null ? projectStart : start,
+                        minStart == null ? projectStart : minStart,
+                        maxStart == null ? projectStart : maxStart,
+                        calendar, ends);
+            }
+        }
+    }
+}
@@ -0,0 +1,285 @@
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Transitive reduction of a {@link TaskGraph}: the edges {@code p -> v} where {@code p} is
+ * already an ancestor of another predecessor of {@code v}, such as {@code 1} in
+ * {@code "1, 12, 13"} when 13 depends on 12 and 12 on 1. Dropping them changes no date in any
+ * {@link Scenario}.
+ * <p>
+ * A path only implies an edge in the min or max scenario when it ends no earlier there. A
+ * task that is not a root and has no estimate of its own passes on its nominal end in that
+ * scenario (see {@link ScheduleStore}), so a path through it implies nothing there, and the
+ * edge is kept unless another path implies it. Edges into such a task are redundant in that
+ * scenario, because its dates there do not depend on its predecessors. For each scenario that
+ * some task has an estimate in, the nodes whose end a node's end is known to cover in that
+ * scenario are tracked next to its ancestors, and an edge is dropped only when every scenario
+ * implies it.
+ * <p>
+ * The ancestors of every node are bitsets over topological positions, built in topological
+ * order. Predecessors are visited from the latest to the earliest position, so an edge is
+ * redundant exactly when its source is already in the ancestors gathered so far. Full
+ * bitsets need {@code n * n} bits, so the positions are split into windows of about
+ * {@link #WINDOW_BYTES} of bitsets each; a window decides the edges whose source lies in
+ * it, and windows are independent and run in parallel on a pool.
+ */
+@Slf4j
+public final class TransitiveReduction {
+
+    static final long WINDOW_BYTES = 64L << 20;
+
+    private final TaskGraph graph;
+    private final int[] position;
+    /**
+     * predecessors of each node in the CSR layout of the graph, sorted by descending position
+     * of the source, as {@code position << 32 | edge}
+     */
+    private final long[] sortedEdges;
+    /**
+     * the min and max scenarios in which some task has an estimate; in the others every task
+     * that is not a root has its nominal dates, whatever its predecessors
+     */
+    private final Scenario[] estimated;
+    private final boolean[] redundant;
+    private int removedEdges;
+
+    private TransitiveReduction(TaskGraph graph) {
+        this.graph = graph;
+        int[] order = graph.topologicalOrder();
+        position = new int[graph.size()];
+        for (int i = 0; i < order.length; i++) {
+            position[order[i]] = i;
+        }
+        sortedEdges = new long[graph.edgeCount()];
+        for (int node = 0; node < graph.size(); node++) {
+            int from = graph.predecessorStart(node);
+            int to = graph.predecessorEnd(node);
+            for (int k = from; k < to; k++) {
+                sortedEdges[k] = (long) position[graph.predecessor(k)] << 32 | k;
+            }
+            Arrays.sort(sortedEdges, from, to);
+            for (int i = from, j = to - 1; i < j; i++, j--) {
+                long swap = sortedEdges[i];
+                sortedEdges[i] = sortedEdges[j];
+                sortedEdges[j] = swap;
+            }
+        }
+        List<Scenario> scenarios = new ArrayList<>(2);
+        for (Scenario scenario : new Scenario[]{Scenario.MIN, Scenario.MAX}) {
+            for (int node = 0; node < graph.taskCount(); node++) {
+                if (hasEstimate(scenario, node)) {
+                    scenarios.add(scenario);
+                    break;
+                }
+            }
+        }
+        estimated = scenarios.toArray(Scenario[]::new);
+        redundant = new boolean[graph.edgeCount()];
+    }
+
+    private boolean hasEstimate(Scenario scenario, int node) {
+        Task task = graph.task(node);
+        return (scenario == Scenario.MIN ? task.getMinDuration() : task.getMaxDuration()) > -1;
+    }
+
+    /**
+     * @return whether the end of the node in the scenario is no earlier than the ends of its
+     * predecessors there; otherwise it is the nominal end
+     */
+    private boolean coversPredecessors(Scenario scenario, int node) {
+        return graph.isBarrier(node) || hasEstimate(scenario, node);
+    }
+
+    public static TransitiveReduction of(TaskGraph graph) {
+        return of(graph, null);
+    }
+
+    /**
+     * Reduces {@code graph}, running the windows on {@code pool} when there is more than one.
+     *
+     * @throws SchedulingException if the graph contains a circular dependency
+     */
+    public static TransitiveReduction of(TaskGraph graph, ForkJoinPool pool) {
+        return of(graph, pool, WINDOW_BYTES);
+    }
+
+    static TransitiveReduction of(TaskGraph graph, ForkJoinPool pool, long windowBytes) {
+        long startNanos = System.nanoTime();
+        TransitiveReduction reduction = new TransitiveReduction(graph);
+        int size = graph.size();
+        int bitsets = 1 + reduction.estimated.length;
+        int words = (int) Math.max(1, Math.min((size + 63) / 64, windowBytes / bitsets / Long.BYTES / Math.max(1, size)));
+        int width = words * 64;
+        int windows = (size + width - 1) / width;
+        if (pool == null || windows < 2) {
+            for (int window = 0; window < windows; window++) {
+                reduction.reduceWindow(window * width, words);
+            }
+        } else {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(windows);
+            for (int window = 0; window < windows; window++) {
+                int windowStart = window * width;
+                tasks.add(pool.submit(() -> reduction.reduceWindow(windowStart, words)));
+            }
+            tasks.forEach(ForkJoinTask::join);
+        }
+        for (boolean edge : reduction.redundant) {
+            if (edge) {
+                reduction.removedEdges++;
+            }
+        }
+        log.info("Transitive reduction removed {} of {} edges in {} windows in {} ms", reduction.removedEdges,
+                graph.edgeCount(), windows, String.format("%.1f", (System.nanoTime() - startNanos) / 1e6));
+        return reduction;
+    }
+
+    /**
+     * Builds the ancestors within positions {@code [windowStart, windowStart + 64 * words)} of
+     * every node from {@code windowStart} on, and, for each estimated scenario, those whose end
+     * the node's end covers there. Marks the redundant edges whose source is in the window.
+     */
+    private void reduceWindow(int windowStart, int words) {
+        int size = graph.size();
+        int windowEnd = Math.min(size, windowStart + words * 64);
+        int[] order = new int[size - windowStart];
+        for (int node = 0; node < size; node++) {
+            if (position[node] >= windowStart) {
+                order[position[node] - windowStart] = node;
+            }
+        }
+        long[] ancestors = new long[(size - windowStart) * words];
+        long[][] covered = new long[estimated.length][(size - windowStart) * words];
+        boolean[] covers = new boolean[estimated.length];
+        for (int row = 0; row < order.length; row++) {
+            int node = order[row];
+            int base = row * words;
+            for (int s = 0; s < estimated.length; s++) {
+                covers[s] = coversPredecessors(estimated[s], node);
+            }
+            for (int k = graph.predecessorStart(node); k < graph.predecessorEnd(node); k++) {
+                int source = (int) (sortedEdges[k] >>> 32);
+                if (source < windowStart) {
+                    break;
+                }
+                int bit = source - windowStart;
+                int word = base + (bit >>> 6);
+                if (source < windowEnd && isImplied(ancestors, covered, covers, word, 1L << bit)) {
+                    redundant[(int) sortedEdges[k]] = true;
+                    continue;
+                }
+                int sourceBase = bit * words;
+                for (int w = 0; w < words; w++) {
+                    ancestors[base + w] |= ancestors[sourceBase + w];
+                }
+                for (int s = 0; s < estimated.length; s++) {
+                    if (covers[s]) {
+                        long[] bits = covered[s];
+                        for (int w = 0; w < words; w++) {
+                            bits[base + w] |= bits[sourceBase + w];
+                        }
+                    }
+                }
+                if (source < windowEnd) {
+                    ancestors[word] |= 1L << bit;
+                    for (int s = 0; s < estimated.length; s++) {
+                        if (covers[s]) {
+                            covered[s][word] |= 1L << bit;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return whether the edges gathered so far imply the edge in every scenario: its source is
+     * an ancestor, and in each estimated scenario either the node's dates there do not depend on
+     * its predecessors or its end already covers the source's
+     */
+    private static boolean isImplied(long[] ancestors, long[][] covered, boolean[] covers, int word, long mask) {
+        if ((ancestors[word] & mask) == 0) {
+            return false;
+        }
+        for (int s = 0; s < covered.length; s++) {
+            if (covers[s] && (covered[s][word] & mask) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public TaskGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @return whether the edge of the original graph can be dropped
+     */
+    public boolean isRedundant(int edge) {
+        return redundant[edge];
+    }
+
+    public int getRemovedEdges() {
+        return removedEdges;
+    }
+
+    /**
+     * Builds the graph without the redundant edges. With {@code rewriteDependencies}, its tasks
+     * are copies whose dependency lists name only the remaining predecessors, so that writing
+     * them out saves the reduced plan; selectors are always kept, because dropping one from a
+     * list would add that task to what the selector expands to.
+     */
+    public TaskGraph reducedGraph(boolean rewriteDependencies) {
+        int size = graph.size();
+        int[] offsets = new int[size + 1];
+        int[] predecessors = new int[graph.edgeCount() - removedEdges];
+        int count = 0;
+        for (int node = 0; node < size; node++) {
+            for (int k = graph.predecessorStart(node); k < graph.predecessorEnd(node); k++) {
+                if (!redundant[k]) {
+                    predecessors[count++] = graph.predecessor(k);
+                }
+            }
+            offsets[node + 1] = count;
+        }
+
+        Task[] tasks = new Task[graph.taskCount()];
+        String[] barrierSelectors = new String[size - graph.taskCount()];
+        for (int node = 0; node < tasks.length; node++) {
+            tasks[node] = rewriteDependencies ? withReducedDependencies(node) : graph.task(node);
+        }
+        for (int node = tasks.length; node < size; node++) {
+            barrierSelectors[node - tasks.length] = graph.id(node);
+        }
+        return TaskGraph.of(tasks, barrierSelectors, offsets, predecessors);
+    }
+
+    private Task withReducedDependencies(int node) {
+        Task task = graph.task(node);
+        int from = graph.predecessorStart(node);
+        int to = graph.predecessorEnd(node);
+        boolean changed = false;
+        for (int k = from; k < to && !changed; k++) {
+            changed = redundant[k] && !graph.isBarrier(graph.predecessor(k));
+        }
+        if (!changed) {
+            return task;
+        }
+        StringBuilder dependencies = new StringBuilder();
+        for (int k = from; k < to; k++) {
+            int predecessor = graph.predecessor(k);
+            if (!redundant[k] || graph.isBarrier(predecessor)) {
+                if (dependencies.length() > 0) {
+                    dependencies.append(", ");
+                }
+                dependencies.append(graph.id(predecessor));
+            }
+        }
+        return task.withDependencies(dependencies.toString());
+    }
+}
@@ -0,0 +1,176 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Working-day calendar backed by precomputed prefix tables.
+ * <p>
+ * Every day of the supported range is mapped to the ordinal of the first working day on or
+ * after it, and every working-day ordinal back to its epoch day. A point in time is then a
+ * position in "working minutes" ({@code ordinal * 1440 + minute of day}), and adding a
+ * duration is an addition followed by two array lookups.
+ */
+public final class WorkingCalendar {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+    public static final LocalDate DEFAULT_FIRST_DAY = LocalDate.of(1970, 1, 1);
+    public static final LocalDate DEFAULT_LAST_DAY = LocalDate.of(2199, 12, 31);
+    public static final WorkingCalendar DEFAULT = of(EnumSet.of(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY), Set.of());
+
+    private final long firstDay;
+    // number of working days before each day of the range, with one extra entry for the end
+    private final int[] workingDaysBefore;
+    private final long[] dayByOrdinal;
+
+    private WorkingCalendar(long firstDay, int[] workingDaysBefore, long[] dayByOrdinal) {
+        this.firstDay = firstDay;
+        this.workingDaysBefore = workingDaysBefore;
+        this.dayByOrdinal = dayByOrdinal;
+    }
+
+    public static WorkingCalendar of(Set<DayOfWeek> weekend, Collection<LocalDate> holidays) {
+        return of(weekend, holidays, DEFAULT_FIRST_DAY, DEFAULT_LAST_DAY);
+    }
+
+    public static WorkingCalendar of(Set<DayOfWeek> weekend, Collection<LocalDate> holidays,
+                                     LocalDate firstDay, LocalDate lastDay) {
+        if (weekend.size() == DayOfWeek.values().length) {
+            throw new IllegalArgumentException("A calendar needs at least one working day per week");
+        }
+        long first = firstDay.toEpochDay();
+        int days = Math.toIntExact(lastDay.toEpochDay() - first + 1);
+
+        boolean[] nonWorking = new boolean[days];
+        for (int day = 0; day < days; day++) {
+            nonWorking[day] = weekend.contains(firstDay.plusDays(day).getDayOfWeek());
+        }
+        for (LocalDate holiday : holidays) {
+            long day = holiday.toEpochDay() - first;
+            if (day >= 0 && day < days) {
+                nonWorking[(int) day] = true;
+            }
+        }
+
+        int[] workingDaysBefore = new int[days + 1];
+        long[] dayByOrdinal = new long[days];
+        int ordinal = 0;
+        for (int day = 0; day < days; day++) {
+            workingDaysBefore[day] = ordinal;
+            if (!nonWorking[day]) {
+                dayByOrdinal[ordinal++] = first + day;
+            }
+        }
+        workingDaysBefore[days] = ordinal;
+        return new WorkingCalendar(first, workingDaysBefore, Arrays.copyOf(dayByOrdinal, ordinal));
+    }
+
+    /**
+     * Writes the prefix tables, for {@link #read(DataInputStream)} in another process.
+     */
+    void write(DataOutputStream out) throws IOException {
+        out.writeLong(firstDay);
+        out.writeInt(workingDaysBefore.length);
+        for (int ordinal : workingDaysBefore) {
+            out.writeInt(ordinal);
+        }
+        out.writeInt(dayByOrdinal.length);
+        for (long day : dayByOrdinal) {
+            out.writeLong(day);
+        }
+    }
+
+    static WorkingCalendar read(DataInputStream in) throws IOException {
+        long firstDay = in.readLong();
+        int[] workingDaysBefore = new int[in.readInt()];
+        for (int day = 0; day < workingDaysBefore.length; day++) {
+            workingDaysBefore[day] = in.readInt();
+        }
+        long[] dayByOrdinal = new long[in.readInt()];
+        for (int ordinal = 0; ordinal < dayByOrdinal.length; ordinal++) {
+            dayByOrdinal[ordinal] = in.readLong();
+        }
+        return new WorkingCalendar(firstDay, workingDaysBefore, dayByOrdinal);
+    }
+
+    public boolean isWorkingDay(LocalDate date) {
+        int day = dayIndex(date.toEpochDay());
+        return workingDaysBefore[day + 1] > workingDaysBefore[day];
+    }
+
+    /**
+     * @return the position of {@code dateTime} in working minutes; a time on a non-working day
+     * maps to the start of the next working day
+     */
+    public long toWorkingMinutes(LocalDateTime dateTime) {
+        int day = dayIndex(dateTime.toLocalDate().toEpochDay());
+        int ordinal = workingDaysBefore[day];
+        if (workingDaysBefore[day + 1] == ordinal) {
+            return (long) ordinal * MINUTES_PER_DAY;
+        }
+        return (long) ordinal * MINUTES_PER_DAY + dateTime.getHour() * 60L + dateTime.getMinute();
+    }
+
+    public LocalDateTime fromWorkingMinutes(long workingMinutes) {
+        int ordinal = (int) (workingMinutes / MINUTES_PER_DAY);
+        if (ordinal >= dayByOrdinal.length) {
+            throw new IllegalArgumentException("Date is after the end of the calendar");
+        }
+        int minuteOfDay = (int) (workingMinutes % MINUTES_PER_DAY);
+        return LocalDate.ofEpochDay(dayByOrdinal[ordinal]).atStartOfDay().plusMinutes(minuteOfDay);
+    }
+
+    /**
+     * @return the epoch day of a position in working minutes, without building a date
+     */
+    public long epochDay(long workingMinutes) {
+        int ordinal = (int) (workingMinutes / MINUTES_PER_DAY);
+        if (ordinal >= dayByOrdinal.length) {
+            throw new IllegalArgumentException("Date is after the end of the calendar");
+        }
+        return dayByOrdinal[ordinal];
+    }
+
+    /**
+     * @return the end of a task of {@code manDays} working days starting at {@code start}
+     */
+    public LocalDateTime addWorkingDays(LocalDateTime start, double manDays) {
+        return fromWorkingMinutes(toWorkingMinutes(start) + manDaysToMinutes(manDays));
+    }
+
+    /**
+     * @return the end, in working minutes of this calendar, of a task that works
+     * {@code minutes} on {@code taskCalendar} from {@code start}, also in working minutes of
+     * this calendar. The task starts on its next working day if it does not work on the start
+     * day, and an end on a day this calendar does not work moves to the start of the next day
+     * it does.
+     */
+    public long endMinutes(long start, long minutes, WorkingCalendar taskCalendar) {
+        if (taskCalendar == this) {
+            return start + minutes;
+        }
+        long taskStart = taskCalendar.toWorkingMinutes(fromWorkingMinutes(start));
+        return toWorkingMinutes(taskCalendar.fromWorkingMinutes(taskStart + minutes));
+    }
+
+    /**
+     * Durations are rounded to whole hours, as they always have been.
+     */
+    public static long manDaysToMinutes(double manDays) {
+        return Math.round(24 * manDays) * 60;
+    }
+
+    private int dayIndex(long epochDay) {
+        long day = epochDay - firstDay;
+        if (day < 0 || day >= workingDaysBefore.length - 1) {
+            throw new IllegalArgumentException("Date is outside of the calendar range: " + LocalDate.ofEpochDay(epochDay));
+        }
+        return (int) day;
+    }
+}
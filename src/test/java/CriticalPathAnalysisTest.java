@@ -0,0 +1,47 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class CriticalPathAnalysisTest {
+
+    private static final LocalDate START_DATE = LocalDate.of(2023, 10, 30);
+
+    @Test
+    public void givenTwoBranchesWhenAnalysedThenShorterBranchHasFloatAndLongerOneIsCritical() {
+        TaskGraph graph = TaskGraph.of(List.of(
+                Task.of("1", "", 0),
+                Task.of("2", "1", 5),
+                Task.of("3", "1", 2),
+                Task.of("4", "2, 3", 1)));
+        new TopologicalScheduler().schedule(graph, START_DATE);
+
+        CriticalPathAnalysis analysis = CriticalPathAnalysis.of(graph, WorkingCalendar.DEFAULT);
+
+        int shortBranch = graph.indexOf("3");
+        Assertions.assertEquals(3.0, analysis.totalFloat(Scenario.NOMINAL, shortBranch), 0);
+        Assertions.assertEquals(3.0, analysis.freeFloat(Scenario.NOMINAL, shortBranch), 0);
+        Assertions.assertEquals(LocalDateTime.of(2023, 11, 2, 0, 0), analysis.lateStart(Scenario.NOMINAL, shortBranch));
+        Assertions.assertFalse(analysis.isCritical(Scenario.NOMINAL, shortBranch));
+        Assertions.assertEquals(List.of("1", "2", "4"), analysis.criticalPath(Scenario.NOMINAL));
+        Assertions.assertEquals(LocalDateTime.of(2023, 11, 7, 0, 0), analysis.projectEnd(Scenario.NOMINAL));
+    }
+
+    @Test
+    public void givenMaxEstimatesWhenAnalysedThenMaxScenarioHasItsOwnCriticalPath() {
+        TaskGraph graph = TaskGraph.of(List.of(
+                Task.of("1", "", 0, 0, 0),
+                Task.of("2", "1", 5, 4, 6),
+                Task.of("3", "1", 2, 1, 10),
+                Task.of("4", "all", 0, 0, 0)));
+        new TopologicalScheduler().schedule(graph, START_DATE);
+
+        CriticalPathAnalysis analysis = CriticalPathAnalysis.of(graph, WorkingCalendar.DEFAULT);
+
+        Assertions.assertEquals(List.of("1", "2", "4"), analysis.criticalPath(Scenario.NOMINAL));
+        Assertions.assertEquals(List.of("1", "3", "4"), analysis.criticalPath(Scenario.MAX));
+        Assertions.assertEquals(4.0, analysis.totalFloat(Scenario.MAX, graph.indexOf("2")), 0);
+    }
+}
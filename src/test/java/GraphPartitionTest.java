@@ -0,0 +1,68 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class GraphPartitionTest {
+
+    @Test
+    public void givenRandomGraphWhenPartitionedThenCutEdgesOnlyGoToHigherShards() {
+        TaskGraph graph = TaskGraph.of(randomTasks(5000, new Random(3)));
+
+        GraphPartition partition = GraphPartition.of(graph, 4);
+
+        int cutEdges = 0;
+        for (int node = 0; node < graph.size(); node++) {
+            for (int k = graph.successorStart(node); k < graph.successorEnd(node); k++) {
+                int successor = graph.successor(k);
+                Assertions.assertTrue(partition.shard(node) <= partition.shard(successor));
+                if (partition.shard(node) != partition.shard(successor)) {
+                    cutEdges++;
+                }
+            }
+        }
+        Assertions.assertEquals(cutEdges, partition.getCutEdges());
+        for (int shard = 0; shard < 4; shard++) {
+            Assertions.assertTrue(partition.shardSize(shard) <= Math.ceil(graph.size() / 4.0 * (1 + GraphPartition.IMBALANCE)));
+        }
+    }
+
+    @Test
+    public void givenIndependentChainsWhenPartitionedThenFewerEdgesAreCutThanByInputOrder() {
+        List<Task> tasks = new ArrayList<>();
+        // 40 chains of 100 tasks, interleaved in the input
+        for (int step = 0; step < 100; step++) {
+            for (int chain = 0; chain < 40; chain++) {
+                int id = step * 40 + chain + 1;
+                tasks.add(Task.of(String.valueOf(id), step == 0 ? "" : String.valueOf(id - 40), 1));
+            }
+        }
+        TaskGraph graph = TaskGraph.of(tasks);
+
+        GraphPartition partition = GraphPartition.of(graph, 4);
+
+        // cutting the input order into four ranges would cut every chain three times
+        Assertions.assertTrue(partition.getCutEdges() < 40 * 3, "cut " + partition.getCutEdges());
+    }
+
+    @Test
+    public void givenCircularDependencyWhenPartitionedThenSchedulingExceptionIsThrown() {
+        TaskGraph graph = TaskGraph.of(List.of(Task.of("1", "2", 1), Task.of("2", "1", 1)));
+
+        Assertions.assertThrows(SchedulingException.class, () -> GraphPartition.of(graph, 2));
+    }
+
+    private static List<Task> randomTasks(int count, Random random) {
+        List<Task> tasks = new ArrayList<>();
+        for (int id = 1; id <= count; id++) {
+            StringBuilder dependencies = new StringBuilder();
+            for (int k = 0; k < random.nextInt(3) && id > 1; k++) {
+                dependencies.append(dependencies.length() > 0 ? ", " : "").append(Math.max(1, id - 1 - random.nextInt(30)));
+            }
+            tasks.add(Task.of(String.valueOf(id), dependencies.toString(), 1 + random.nextInt(3)));
+        }
+        return tasks;
+    }
+}
@@ -0,0 +1,143 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+public class IncrementalScheduleTest {
+
+    private static final LocalDate START_DATE = LocalDate.of(2023, 10, 30);
+
+    @Test
+    public void givenScheduleWhenDurationIsUpdatedThenOnlyTheDownstreamConeIsRecomputed() {
+        IncrementalSchedule schedule = IncrementalSchedule.of(TaskGraph.of(plan()), WorkingCalendar.DEFAULT, START_DATE);
+
+        int recomputed = schedule.updateDuration("4", 5, -1, -1);
+
+        // 4, 5, the "all" barrier and 6
+        Assertions.assertEquals(4, recomputed);
+        Assertions.assertEquals(LocalDateTime.of(2023, 11, 6, 0, 0), schedule.getTask("5").getStart());
+        assertSameAsFullReschedule(schedule);
+    }
+
+    @Test
+    public void givenDurationChangeThatDoesNotMoveTheEndWhenUpdatedThenPropagationStopsEarly() {
+        IncrementalSchedule schedule = IncrementalSchedule.of(TaskGraph.of(plan()), WorkingCalendar.DEFAULT, START_DATE);
+
+        int recomputed = schedule.updateDuration("3", 1.5, -1, -1);
+
+        // 3, 5 and the "all" barrier, whose end is still driven by 5
+        Assertions.assertEquals(3, recomputed);
+        assertSameAsFullReschedule(schedule);
+    }
+
+    @Test
+    public void givenDependencyAgainstTheCurrentOrderWhenAddedThenDatesMatchAFullReschedule() {
+        IncrementalSchedule schedule = IncrementalSchedule.of(TaskGraph.of(plan()), WorkingCalendar.DEFAULT, START_DATE);
+
+        schedule.addDependency("4", "3");
+
+        Assertions.assertEquals("1, 3", schedule.getTask("4").getDependencies());
+        Assertions.assertEquals(schedule.getTask("3").getEnd(), schedule.getTask("4").getStart());
+        assertSameAsFullReschedule(schedule);
+    }
+
+    @Test
+    public void givenRemovedDependencyWhenRecomputedThenTaskStartsAfterItsRemainingDependencies() {
+        IncrementalSchedule schedule = IncrementalSchedule.of(TaskGraph.of(plan()), WorkingCalendar.DEFAULT, START_DATE);
+
+        schedule.removeDependency("5", "4");
+
+        Assertions.assertEquals("3", schedule.getTask("5").getDependencies());
+        assertSameAsFullReschedule(schedule);
+    }
+
+    @Test
+    public void givenDependencyClosingACycleWhenAddedThenFail() {
+        IncrementalSchedule schedule = IncrementalSchedule.of(TaskGraph.of(plan()), WorkingCalendar.DEFAULT, START_DATE);
+
+        Assertions.assertThrows(SchedulingException.class, () -> schedule.addDependency("1", "5"));
+    }
+
+    @Test
+    public void givenTaskOfTheAllBarrierWhenItStartsUsingAllThenItLeavesTheBarrier() {
+        IncrementalSchedule schedule = IncrementalSchedule.of(TaskGraph.of(List.of(
+                Task.of("1", "", 0),
+                Task.of("2", "1", 2),
+                Task.of("3", "1", 1),
+                Task.of("6", "all", 0))), WorkingCalendar.DEFAULT, START_DATE);
+
+        schedule.addDependency("3", "all");
+
+        Assertions.assertEquals(schedule.getTask("2").getEnd(), schedule.getTask("3").getStart());
+        assertSameAsFullReschedule(schedule);
+    }
+
+    @Test
+    public void givenOneOfTwoAllUsersWhenItStopsUsingAllThenTheBarrierWaitsForItAgain() {
+        IncrementalSchedule schedule = IncrementalSchedule.of(TaskGraph.of(List.of(
+                Task.of("1", "", 0),
+                Task.of("2", "1", 2),
+                Task.of("5", "all", 3),
+                Task.of("6", "all", 0))), WorkingCalendar.DEFAULT, START_DATE);
+
+        schedule.removeDependency("5", "all");
+
+        Assertions.assertEquals(LocalDateTime.of(2023, 11, 2, 0, 0), schedule.getTask("6").getStart());
+        assertSameAsFullReschedule(schedule);
+    }
+
+    @Test
+    public void givenHolidayCalendarWhenDurationIsUpdatedThenEveryEndSkipsTheHolidays() {
+        WorkingCalendar calendar = WorkingCalendar.of(EnumSet.of(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY),
+                Set.of(LocalDate.of(2023, 11, 1), LocalDate.of(2023, 11, 6)));
+        IncrementalSchedule schedule = IncrementalSchedule.of(TaskGraph.of(plan()), calendar, START_DATE);
+
+        schedule.updateDuration("4", 5, 3, 6);
+
+        Assertions.assertEquals(LocalDateTime.of(2023, 11, 8, 0, 0), schedule.getTask("5").getStart());
+        assertSameAsFullReschedule(schedule, calendar);
+    }
+
+    @Test
+    public void givenTwoSchedulesOfOneGraphWhenOneIsEditedThenTheGraphAndTheOtherScheduleKeepTheirDates() {
+        TaskGraph graph = TaskGraph.of(plan());
+        IncrementalSchedule edited = IncrementalSchedule.of(graph, WorkingCalendar.DEFAULT, START_DATE);
+        IncrementalSchedule other = IncrementalSchedule.of(graph, WorkingCalendar.DEFAULT, START_DATE);
+
+        edited.updateDuration("4", 5, -1, -1);
+
+        Assertions.assertEquals(LocalDateTime.of(2023, 11, 6, 0, 0), edited.getTask("5").getStart());
+        Assertions.assertEquals(LocalDateTime.of(2023, 11, 3, 0, 0), other.getTask("5").getStart());
+        Assertions.assertNull(graph.task(graph.indexOf("5")).getStart());
+        assertSameAsFullReschedule(other);
+    }
+
+    private static List<Task> plan() {
+        return List.of(
+                Task.of("1", "", 0),
+                Task.of("2", "1", 2),
+                Task.of("3", "2", 1),
+                Task.of("4", "1", 4),
+                Task.of("5", "3, 4", 1),
+                Task.of("6", "all", 0));
+    }
+
+    private static void assertSameAsFullReschedule(IncrementalSchedule schedule) {
+        assertSameAsFullReschedule(schedule, WorkingCalendar.DEFAULT);
+    }
+
+    private static void assertSameAsFullReschedule(IncrementalSchedule schedule, WorkingCalendar calendar) {
+        List<Task> copies = new ArrayList<>();
+        for (Task task : schedule.getTasks()) {
+            copies.add(task.withDependencies(task.getDependencies()));
+        }
+        new TopologicalScheduler(calendar).schedule(TaskGraph.of(copies), START_DATE);
+        Assertions.assertEquals(copies, schedule.getTasks());
+    }
+}
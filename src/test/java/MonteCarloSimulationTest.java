@@ -0,0 +1,124 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+public class MonteCarloSimulationTest {
+
+    private static final LocalDate START_DATE = LocalDate.of(2023, 10, 30);
+
+    @Test
+    public void givenNoEstimatesWhenSimulatedThenEveryPercentileIsTheNominalEnd() {
+        TaskGraph graph = TaskGraph.of(List.of(
+                Task.of("1", "", 2),
+                Task.of("2", "1", 3)));
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        SimulationResult result;
+        try {
+            result = new MonteCarloSimulation(graph, WorkingCalendar.DEFAULT,
+                    MonteCarloSimulation.Distribution.PERT, pool).run(START_DATE, 1_000, 42);
+        } finally {
+            pool.shutdown();
+        }
+
+        Assertions.assertEquals(LocalDateTime.of(2023, 11, 6, 0, 0), result.endPercentile("2", 50));
+        Assertions.assertEquals(LocalDateTime.of(2023, 11, 6, 0, 0), result.endPercentile("2", 95));
+        Assertions.assertEquals(1.0, result.criticalityIndex("1"), 0);
+        Assertions.assertEquals(1.0, result.criticalityIndex("2"), 0);
+    }
+
+    @Test
+    public void givenHistogramBudgetTooSmallForTheBinsWhenSimulatedThenFewerBinsAreUsed() {
+        TaskGraph graph = TaskGraph.of(List.of(
+                Task.of("1", "", 5, 2, 10),
+                Task.of("2", "1", 5, 2, 10),
+                Task.of("3", "all", 0)));
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        SimulationResult result;
+        try {
+            // 4 nodes and 2 workers of 4-byte counters fit 64 bins in 2 KB
+            result = new MonteCarloSimulation(graph, WorkingCalendar.DEFAULT,
+                    MonteCarloSimulation.Distribution.TRIANGULAR, pool, 1_000, 2048).run(START_DATE, 5_000, 3);
+        } finally {
+            pool.shutdown();
+        }
+
+        Assertions.assertEquals(64, result.getBins());
+        Assertions.assertTrue(result.endPercentile("3", 50).isBefore(result.endPercentile("3", 95)));
+    }
+
+    @Test
+    public void givenEstimatesWhenSimulatedThenPercentilesAreOrderedWithinTheExtremes() {
+        TaskGraph graph = TaskGraph.of(List.of(
+                Task.of("1", "", 5, 2, 10),
+                Task.of("2", "1", 5, 2, 10),
+                Task.of("3", "all", 0)));
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        SimulationResult result;
+        try {
+            result = new MonteCarloSimulation(graph, WorkingCalendar.DEFAULT,
+                    MonteCarloSimulation.Distribution.TRIANGULAR, pool).run(START_DATE, 20_000, 7);
+        } finally {
+            pool.shutdown();
+        }
+
+        LocalDateTime p50 = result.endPercentile("3", 50);
+        LocalDateTime p80 = result.endPercentile("3", 80);
+        LocalDateTime p95 = result.endPercentile("3", 95);
+        Assertions.assertTrue(p50.isAfter(LocalDateTime.of(2023, 11, 7, 0, 0)));
+        Assertions.assertTrue(p80.isAfter(p50));
+        Assertions.assertTrue(p95.isAfter(p80));
+        Assertions.assertTrue(p95.isBefore(LocalDateTime.of(2023, 12, 11, 0, 0)));
+        Assertions.assertEquals(20_000, result.getIterations());
+    }
+
+    @Test
+    public void givenOverlappingBranchesWhenSimulatedThenCriticalityIndexReflectsHowOftenEachDrives() {
+        TaskGraph graph = TaskGraph.of(List.of(
+                Task.of("1", "", 4, 3, 20),
+                Task.of("2", "", 5, 4, 6),
+                Task.of("3", "1, 2", 1)));
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        SimulationResult result;
+        try {
+            result = new MonteCarloSimulation(graph, WorkingCalendar.DEFAULT,
+                    MonteCarloSimulation.Distribution.PERT, pool).run(START_DATE, 10_000, 1);
+        } finally {
+            pool.shutdown();
+        }
+
+        double first = result.criticalityIndex("1");
+        double second = result.criticalityIndex("2");
+        Assertions.assertTrue(first > 0 && first < 1);
+        Assertions.assertEquals(1.0, first + second, 1e-9);
+        Assertions.assertEquals(1.0, result.criticalityIndex("3"), 0);
+    }
+
+    @Test
+    public void givenSameSeedWhenSimulatedTwiceThenResultsAreIdentical() {
+        TaskGraph graph = TaskGraph.of(List.of(
+                Task.of("1", "", 3, 1, 8),
+                Task.of("2", "1", 2, 1, 4)));
+        ForkJoinPool pool = new ForkJoinPool(3);
+        SimulationResult first;
+        SimulationResult second;
+        try {
+            MonteCarloSimulation simulation = new MonteCarloSimulation(graph, WorkingCalendar.DEFAULT,
+                    MonteCarloSimulation.Distribution.PERT, pool);
+            first = simulation.run(START_DATE, 5_000, 99);
+            second = simulation.run(START_DATE, 5_000, 99);
+        } finally {
+            pool.shutdown();
+        }
+
+        Assertions.assertEquals(first.endPercentile("2", 80), second.endPercentile("2", 80));
+        Assertions.assertEquals(first.criticalityIndex("1"), second.criticalityIndex("1"), 0);
+    }
+}
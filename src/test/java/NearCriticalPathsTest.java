@@ -0,0 +1,99 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class NearCriticalPathsTest {
+
+    @Test
+    public void givenDiamondWhenLongestPathsAreEnumeratedThenTheyComeLongestFirstWithScenarioTotals() {
+        TaskGraph graph = TaskGraph.of(List.of(
+                Task.of("1", "", 1, 1, 2),
+                Task.of("2", "1", 3, 2, 4),
+                Task.of("3", "1", 2, 1, 6),
+                Task.of("4", "2, 3", 1)));
+        NearCriticalPaths paths = NearCriticalPaths.of(graph, Scenario.NOMINAL);
+
+        List<NearCriticalPath> longest = paths.longest(5);
+
+        Assertions.assertEquals(5.0, paths.getLongestDays());
+        Assertions.assertEquals(2, longest.size());
+        Assertions.assertEquals(List.of("1", "2", "4"), longest.get(0).getTaskIds());
+        Assertions.assertEquals(0.0, longest.get(0).getSlackDays());
+        Assertions.assertEquals(List.of("1", "3", "4"), longest.get(1).getTaskIds());
+        Assertions.assertEquals(4.0, longest.get(1).getNominalDays());
+        Assertions.assertEquals(3.0, longest.get(1).getMinDays());
+        Assertions.assertEquals(9.0, longest.get(1).days(Scenario.MAX));
+        Assertions.assertEquals(1.0, longest.get(1).getSlackDays());
+        Assertions.assertEquals(List.of("1", "3", "4"), NearCriticalPaths.of(graph, Scenario.MAX).longest(1).get(0).getTaskIds());
+        Assertions.assertEquals(1, paths.within(0.5, 10).size());
+    }
+
+    @Test
+    public void givenRandomGraphWithSelectorWhenEnumeratedThenPathsMatchExhaustiveEnumeration() {
+        Random random = new Random(23);
+        List<Task> tasks = new ArrayList<>();
+        for (int id = 1; id <= 60; id++) {
+            StringBuilder dependencies = new StringBuilder();
+            for (int k = 0; k < random.nextInt(3) && id > 1; k++) {
+                dependencies.append(dependencies.length() > 0 ? ", " : "").append(1 + random.nextInt(id - 1));
+            }
+            if (id == 60) {
+                dependencies.append(dependencies.length() > 0 ? ", " : "").append("all");
+            }
+            tasks.add(Task.of(String.valueOf(id), dependencies.toString(), 1 + random.nextInt(5)));
+        }
+        TaskGraph graph = TaskGraph.of(tasks);
+        // paths through the "all" barrier and straight to task 60 have the same tasks
+        Map<List<String>, Long> lengths = new HashMap<>();
+        for (int node = 0; node < graph.size(); node++) {
+            if (graph.predecessorStart(node) == graph.predecessorEnd(node)) {
+                collectLengths(graph, node, new ArrayList<>(), 0, lengths);
+            }
+        }
+        List<Long> expected = new ArrayList<>(lengths.values());
+        expected.sort(Comparator.reverseOrder());
+        NearCriticalPaths paths = NearCriticalPaths.of(graph, Scenario.NOMINAL);
+
+        List<NearCriticalPath> longest = paths.longest(200);
+        List<NearCriticalPath> within = paths.within(3, Integer.MAX_VALUE);
+
+        Assertions.assertEquals(Math.min(200, expected.size()), longest.size());
+        for (int i = 0; i < longest.size(); i++) {
+            Assertions.assertEquals(expected.get(i) / (double) WorkingCalendar.MINUTES_PER_DAY, longest.get(i).getNominalDays());
+        }
+        long cutoff = expected.get(0) - WorkingCalendar.manDaysToMinutes(3);
+        Assertions.assertEquals(expected.stream().filter(length -> length >= cutoff).count(), within.size());
+        Assertions.assertEquals(within.size(), within.stream().map(NearCriticalPath::getTaskIds).distinct().count());
+    }
+
+    @Test
+    public void givenDependencyListedTwiceWhenEnumeratedThenThePathIsReturnedOnce() {
+        TaskGraph graph = TaskGraph.of(List.of(Task.of("1", "", 1), Task.of("2", "1, 1", 1), Task.of("3", "1, 2", 1)));
+
+        List<NearCriticalPath> paths = NearCriticalPaths.of(graph, Scenario.NOMINAL).longest(10);
+
+        Assertions.assertEquals(List.of(List.of("1", "2", "3"), List.of("1", "3")),
+                paths.stream().map(NearCriticalPath::getTaskIds).toList());
+    }
+
+    private static void collectLengths(TaskGraph graph, int node, List<String> ids, long length, Map<List<String>, Long> lengths) {
+        List<String> path = new ArrayList<>(ids);
+        long total = length;
+        if (!graph.isBarrier(node)) {
+            path.add(graph.id(node));
+            total += WorkingCalendar.manDaysToMinutes(graph.task(node).getDuration());
+        }
+        if (graph.successorStart(node) == graph.successorEnd(node)) {
+            lengths.put(path, total);
+        }
+        for (int k = graph.successorStart(node); k < graph.successorEnd(node); k++) {
+            collectLengths(graph, graph.successor(k), path, total, lengths);
+        }
+    }
+}
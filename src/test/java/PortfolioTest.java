@@ -0,0 +1,105 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+public class PortfolioTest {
+
+    private static final LocalDate START_DATE = LocalDate.of(2023, 10, 30);
+
+    @Test
+    public void givenProjectsReferencingEachOtherWhenScheduledThenReferencedTasksComeFirst() throws IOException {
+        Path directory = Files.createTempDirectory("portfolio");
+        Path projB = write(directory, "projB.csv", "1,projA:2,1\n2,\"1, all\",3\n");
+        Path projA = write(directory, "projA.csv", "1,,2\n2,1,1\n");
+        Path projC = write(directory, "projC.csv", "1,,1\n");
+
+        Portfolio portfolio = Portfolio.schedule(List.of(projB, projA, projC), ScheduleOptions.of(START_DATE));
+
+        List<String> projects = portfolio.getProjects();
+        Assertions.assertTrue(projects.indexOf("projA") < projects.indexOf("projB"));
+        Assertions.assertEquals(LocalDateTime.of(2023, 11, 2, 0, 0), portfolio.getTask("projA:2").getEnd());
+        Assertions.assertEquals(LocalDateTime.of(2023, 11, 2, 0, 0), portfolio.getTask("projB:1").getStart());
+        Assertions.assertEquals("projA:2", portfolio.getTask("projB:1").getDependencies());
+        Assertions.assertEquals(LocalDateTime.of(2023, 11, 8, 0, 0), portfolio.getTask("projB:2").getEnd());
+        Assertions.assertEquals(LocalDateTime.of(2023, 10, 31, 0, 0), portfolio.getTask("projC:1").getEnd());
+
+        portfolio.write(directory);
+        Assertions.assertTrue(Files.readString(directory.resolve("projB.csv")).contains("\"projA:2\""));
+    }
+
+    @Test
+    public void givenRandomPortfolioWhenScheduledThenDatesMatchOneMergedGraph() throws IOException {
+        Path directory = Files.createTempDirectory("portfolio");
+        Random random = new Random(9);
+        List<Path> inputs = new ArrayList<>();
+        List<Task> merged = new ArrayList<>();
+        for (int project = 0; project < 6; project++) {
+            StringBuilder csv = new StringBuilder();
+            for (int i = 1; i <= 300; i++) {
+                List<String> dependencies = new ArrayList<>();
+                List<String> qualified = new ArrayList<>();
+                if (i > 1 && random.nextBoolean()) {
+                    int local = 1 + random.nextInt(i - 1);
+                    dependencies.add(String.valueOf(local));
+                    qualified.add("p" + project + ":" + local);
+                }
+                if (project > 0 && random.nextInt(10) == 0) {
+                    String external = "p" + random.nextInt(project) + ":" + (1 + random.nextInt(300));
+                    dependencies.add(external);
+                    qualified.add(external);
+                }
+                double duration = random.nextInt(8) / 2.0;
+                double min = random.nextBoolean() ? duration / 2 : -1;
+                csv.append(i).append(",\"").append(String.join(", ", dependencies)).append("\",")
+                        .append(duration).append(',').append(min).append(',').append(-1).append('\n');
+                merged.add(Task.of("p" + project + ":" + i, String.join(", ", qualified), duration, min, -1));
+            }
+            inputs.add(write(directory, "p" + project + ".csv", csv.toString()));
+        }
+        Collections.shuffle(inputs, random);
+
+        Portfolio portfolio = Portfolio.schedule(inputs, ScheduleOptions.of(START_DATE));
+        ScheduleStore expected = ScheduleStore.of(TaskGraph.of(merged), WorkingCalendar.DEFAULT);
+        expected.schedule(START_DATE);
+
+        for (int node = 0; node < merged.size(); node++) {
+            Task task = portfolio.getTask(merged.get(node).getId());
+            Assertions.assertEquals(expected.toTask(node).getEnd(), task.getEnd(), merged.get(node).getId());
+            Assertions.assertEquals(expected.toTask(node).getMinEnd(), task.getMinEnd(), merged.get(node).getId());
+        }
+    }
+
+    @Test
+    public void givenProjectsDependingOnEachOtherWhenScheduledThenTheCycleIsReported() throws IOException {
+        Path directory = Files.createTempDirectory("portfolio");
+        Path a = write(directory, "a.csv", "1,b:1,1\n");
+        Path b = write(directory, "b.csv", "1,a:1,1\n");
+
+        SchedulingException exception = Assertions.assertThrows(SchedulingException.class,
+                () -> Portfolio.schedule(List.of(a, b), ScheduleOptions.of(START_DATE)));
+        Assertions.assertEquals(List.of("a", "b"), exception.getTaskIds());
+    }
+
+    @Test
+    public void givenReferenceToMissingTaskWhenScheduledThenItIsReported() throws IOException {
+        Path directory = Files.createTempDirectory("portfolio");
+        Path a = write(directory, "a.csv", "1,,1\n");
+        Path b = write(directory, "b.csv", "1,a:7,1\n");
+
+        SchedulingException exception = Assertions.assertThrows(SchedulingException.class,
+                () -> Portfolio.schedule(List.of(a, b), ScheduleOptions.of(START_DATE)));
+        Assertions.assertEquals(List.of("b:1 -> a:7"), exception.getTaskIds());
+    }
+
+    private static Path write(Path directory, String name, String rows) throws IOException {
+        Path file = directory.resolve(name);
+        file.toFile().deleteOnExit();
+        return Files.writeString(file, "Task,Dependencies,Duration,Min,Max\n" + rows);
+    }
+}
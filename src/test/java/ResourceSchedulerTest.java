@@ -0,0 +1,135 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class ResourceSchedulerTest {
+
+    private static final LocalDate START_DATE = LocalDate.of(2023, 10, 30);
+
+    @Test
+    public void givenResourceColumnsWhenScheduledWithLevelingThenTasksSharingAPoolDoNotOverlap() throws IOException {
+        String tasks = "Task,Dependencies,Duration,Min,Max,Resource:Developers=1,Resource:Testers=2\n"
+                + "1,,2,-1,-1,1,\n"
+                + "2,,2,-1,-1,1,1\n"
+                + "3,2,3,-1,-1,,2\n"
+                + "4,,1,-1,-1,,\n";
+        for (ResourceScheduler.Priority priority : ResourceScheduler.Priority.values()) {
+            ScheduleOptions options = ScheduleOptions.of(START_DATE);
+            options.setResourceLeveling(priority);
+
+            ScheduleResult result = TaskScheduler.schedule(new StringReader(tasks), options);
+
+            Assertions.assertEquals(LocalDateTime.of(2023, 10, 30, 0, 0), result.getTask("2").getStart(), priority.name());
+            Assertions.assertEquals(LocalDateTime.of(2023, 11, 1, 0, 0), result.getTask("1").getStart(), priority.name());
+            Assertions.assertEquals(LocalDateTime.of(2023, 11, 3, 0, 0), result.getTask("1").getEnd(), priority.name());
+            Assertions.assertEquals(LocalDateTime.of(2023, 11, 6, 0, 0), result.getTask("3").getEnd(), priority.name());
+            Assertions.assertEquals(LocalDateTime.of(2023, 10, 31, 0, 0), result.getTask("4").getEnd(), priority.name());
+        }
+    }
+
+    @Test
+    public void givenRandomPlanWhenLeveledThenPredecessorsAndCapacitiesAreRespected() {
+        Random random = new Random(5);
+        List<Task> tasks = new ArrayList<>();
+        int[][] requirements = new int[3_001][3];
+        for (int i = 1; i <= 3_000; i++) {
+            String dependencies = i == 1 || random.nextInt(4) == 0 ? "" : String.valueOf(1 + random.nextInt(i - 1));
+            tasks.add(Task.of(String.valueOf(i), dependencies, 0.25 * random.nextInt(12)));
+            for (int resource = 0; resource < 3; resource++) {
+                requirements[i - 1][resource] = random.nextInt(3);
+            }
+        }
+        tasks.add(Task.of("3001", "all", 0));
+        TaskGraph graph = TaskGraph.of(tasks);
+        int[] capacities = {4, 3, 5};
+        ResourceScheduler scheduler = ResourceScheduler.of(graph, WorkingCalendar.DEFAULT, new String[]{"A", "B", "C"}, capacities, requirements);
+
+        scheduler.schedule(START_DATE, ResourceScheduler.Priority.LEAST_FLOAT);
+
+        for (int node = 0; node < graph.size(); node++) {
+            for (int k = graph.predecessorStart(node); k < graph.predecessorEnd(node); k++) {
+                Assertions.assertTrue(scheduler.startMinutes(node) >= scheduler.endMinutes(graph.predecessor(k)));
+            }
+        }
+        for (int node = 0; node < graph.taskCount(); node++) {
+            long time = scheduler.startMinutes(node);
+            int[] used = new int[3];
+            for (int other = 0; other < graph.taskCount(); other++) {
+                if (scheduler.startMinutes(other) <= time && time < scheduler.endMinutes(other)) {
+                    for (int resource = 0; resource < 3; resource++) {
+                        used[resource] += requirements[other][resource];
+                    }
+                }
+            }
+            for (int resource = 0; resource < 3; resource++) {
+                Assertions.assertTrue(used[resource] <= capacities[resource], graph.id(node));
+            }
+        }
+    }
+
+    @Test
+    public void givenUnlimitedCapacityWhenLeveledThenDatesMatchTheUnconstrainedSchedule() {
+        List<Task> tasks = List.of(
+                Task.of("1", "", 1),
+                Task.of("2", "1", 2),
+                Task.of("3", "1", 0.5),
+                Task.of("4", "2, 3", 1));
+        TaskGraph graph = TaskGraph.of(tasks);
+        ResourceScheduler scheduler = ResourceScheduler.of(graph, WorkingCalendar.DEFAULT, new String[]{"A"}, new int[]{10},
+                new int[][]{{1}, {2}, {3}, {4}});
+        ScheduleStore store = ScheduleStore.of(graph, WorkingCalendar.DEFAULT);
+
+        scheduler.schedule(START_DATE, ResourceScheduler.Priority.LONGEST_PATH);
+        store.schedule(START_DATE);
+
+        for (int node = 0; node < graph.size(); node++) {
+            Assertions.assertEquals(store.startMinutes(Scenario.NOMINAL, node), scheduler.startMinutes(node));
+            Assertions.assertEquals(store.endMinutes(Scenario.NOMINAL, node), scheduler.endMinutes(node));
+        }
+    }
+
+    @Test
+    public void givenManyTasksOnOneContendedPoolWhenLeveledThenTheyRunOneAfterAnotherInLinearithmicTime() {
+        int count = 50_000;
+        List<Task> tasks = new ArrayList<>(count);
+        int[][] requirements = new int[count][];
+        for (int i = 0; i < count; i++) {
+            tasks.add(Task.of(String.valueOf(i + 1), "", 1));
+            requirements[i] = new int[]{1};
+        }
+        TaskGraph graph = TaskGraph.of(tasks);
+        ResourceScheduler scheduler = ResourceScheduler.of(graph, WorkingCalendar.DEFAULT, new String[]{"A"}, new int[]{1}, requirements);
+
+        // each waiting task used to be moved to the ready heap and back at every end, which took
+        // minutes here
+        Assertions.assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> scheduler.schedule(START_DATE, ResourceScheduler.Priority.LEAST_FLOAT));
+
+        long[] starts = new long[count];
+        for (int node = 0; node < count; node++) {
+            starts[node] = scheduler.startMinutes(node) - scheduler.startMinutes(0);
+        }
+        Arrays.sort(starts);
+        for (int i = 0; i < count; i++) {
+            Assertions.assertEquals((long) i * WorkingCalendar.MINUTES_PER_DAY, starts[i]);
+        }
+    }
+
+    @Test
+    public void givenTaskNeedingMoreThanThePoolWhenCreatedThenItIsRejected() {
+        TaskGraph graph = TaskGraph.of(List.of(Task.of("1", "", 1), Task.of("2", "", 1)));
+
+        SchedulingException exception = Assertions.assertThrows(SchedulingException.class,
+                () -> ResourceScheduler.of(graph, WorkingCalendar.DEFAULT, new String[]{"A"}, new int[]{1}, new int[][]{{1}, {2}}));
+        Assertions.assertEquals(List.of("2"), exception.getTaskIds());
+    }
+}
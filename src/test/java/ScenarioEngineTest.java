@@ -0,0 +1,120 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class ScenarioEngineTest {
+
+    private static final LocalDate START_DATE = LocalDate.of(2023, 10, 30);
+
+    @Test
+    public void givenExtraDurationColumnsWhenScheduledThenEveryColumnIsAScenario() throws IOException {
+        TaskFile taskFile = new TaskFileReader().read(new StringReader("Task,Dependencies,Duration,Min,Max,P80,Delayed\n"
+                + "1,,1,1,2,3,\n"
+                + "2,1,2,1,4,,5\n"));
+        TaskGraph graph = TaskGraph.of(taskFile.getTasks());
+        ScenarioEngine engine = ScenarioEngine.of(taskFile, graph, WorkingCalendar.DEFAULT);
+
+        engine.schedule(START_DATE);
+
+        Assertions.assertEquals(5, engine.scenarioCount());
+        Assertions.assertEquals(3, engine.scenarioIndex("P80"));
+        int second = graph.indexOf("2");
+        Assertions.assertEquals(LocalDateTime.of(2023, 11, 2, 0, 0), engine.endDate(engine.scenarioIndex("Duration"), second));
+        Assertions.assertEquals(LocalDateTime.of(2023, 11, 1, 0, 0), engine.endDate(engine.scenarioIndex("Min"), second));
+        Assertions.assertEquals(LocalDateTime.of(2023, 11, 7, 0, 0), engine.endDate(engine.scenarioIndex("Max"), second));
+        Assertions.assertEquals(LocalDateTime.of(2023, 11, 6, 0, 0), engine.endDate(engine.scenarioIndex("P80"), second));
+        Assertions.assertEquals(LocalDateTime.of(2023, 10, 31, 0, 0), engine.startDate(engine.scenarioIndex("Delayed"), second));
+        Assertions.assertEquals(LocalDateTime.of(2023, 11, 7, 0, 0), engine.projectEnd(engine.scenarioIndex("Delayed")));
+    }
+
+    @Test
+    public void givenExtraDurationColumnsWhenScheduledByTaskSchedulerThenTheyAreWrittenAfterTheMinAndMaxDates() throws IOException {
+        ScheduleOptions options = ScheduleOptions.of(START_DATE);
+        options.setCriticalPathAnalysis(false);
+        ScheduleResult result = TaskScheduler.schedule(new StringReader("Task,Dependencies,Duration,Min,Max,P80,Resource:crane\n"
+                + "1,,1,1,2,3,1\n"
+                + "2,1,2,1,4,,1\n"), options);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        result.write(Channels.newChannel(output));
+
+        ScenarioEngine extra = result.getExtraScenarios();
+        Assertions.assertEquals(1, extra.scenarioCount());
+        Assertions.assertEquals("P80", extra.scenarioName(0));
+        int second = result.getGraph().indexOf("2");
+        Assertions.assertEquals(LocalDateTime.of(2023, 11, 2, 0, 0), extra.startDate(0, second));
+        Assertions.assertEquals(LocalDateTime.of(2023, 11, 6, 0, 0), extra.endDate(0, second));
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        Assertions.assertTrue(lines[0].endsWith(",start-date,end-date,P80-start-date,P80-end-date"), lines[0]);
+        Assertions.assertTrue(lines[2].endsWith(",\"2023-11-02\",\"2023-11-06\""), lines[2]);
+    }
+
+    @Test
+    public void givenRandomPlanWhenScheduledThenEachScenarioMatchesASeparateNominalPass() {
+        int scenarios = 7;
+        Random random = new Random(11);
+        List<Task> tasks = randomPlan(random, 2_000);
+        TaskGraph graph = TaskGraph.of(tasks);
+        String[] names = new String[scenarios];
+        double[][] columns = new double[scenarios][graph.taskCount()];
+        for (int scenario = 0; scenario < scenarios; scenario++) {
+            names[scenario] = "S" + scenario;
+            for (int node = 0; node < graph.taskCount(); node++) {
+                columns[scenario][node] = random.nextInt(5) == 0 ? -1 : random.nextInt(40) / 4.0;
+            }
+        }
+        ScenarioEngine engine = ScenarioEngine.of(graph, WorkingCalendar.DEFAULT, names, columns);
+        engine.schedule(START_DATE);
+
+        for (int scenario = 0; scenario < scenarios; scenario++) {
+            List<Task> scenarioTasks = new ArrayList<>();
+            for (int node = 0; node < graph.taskCount(); node++) {
+                Task task = graph.task(node);
+                double duration = columns[scenario][node] > -1 ? columns[scenario][node] : task.getDuration();
+                scenarioTasks.add(task.withDurations(duration, -1, -1));
+            }
+            TaskGraph scenarioGraph = TaskGraph.of(scenarioTasks);
+            ScheduleStore expected = ScheduleStore.of(scenarioGraph, WorkingCalendar.DEFAULT);
+            expected.schedule(START_DATE);
+
+            for (int node = 0; node < graph.size(); node++) {
+                Assertions.assertEquals(expected.startMinutes(Scenario.NOMINAL, node), engine.startMinutes(scenario, node));
+                Assertions.assertEquals(expected.endMinutes(Scenario.NOMINAL, node), engine.endMinutes(scenario, node));
+            }
+        }
+    }
+
+    @Test
+    public void givenColumnOfTheWrongLengthWhenCreatedThenItIsRejected() {
+        TaskGraph graph = TaskGraph.of(List.of(Task.of("1", "", 1)));
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> ScenarioEngine.of(graph, WorkingCalendar.DEFAULT, new String[]{"A"}, new double[][]{{1, 2}}));
+    }
+
+    private static List<Task> randomPlan(Random random, int size) {
+        List<Task> tasks = new ArrayList<>();
+        tasks.add(Task.of("1", "", 1));
+        for (int i = 2; i <= size; i++) {
+            int first = 1 + random.nextInt(i - 1);
+            int second = 1 + random.nextInt(i - 1);
+            String dependencies = switch (random.nextInt(8)) {
+                case 0 -> "";
+                case 1, 2 -> first + ", " + second;
+                default -> String.valueOf(first);
+            };
+            tasks.add(Task.of(String.valueOf(i), dependencies, random.nextInt(40) / 4.0));
+        }
+        tasks.add(Task.of(String.valueOf(size + 1), "all", 0.5));
+        return tasks;
+    }
+}
@@ -0,0 +1,31 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+public class ScheduleDaemonTest {
+
+    @Test
+    public void givenJobLinesWhenReadJobsIsCalledThenEveryJobIsWrittenWithItsStartDate() throws IOException, InterruptedException {
+        Path directory = Files.createTempDirectory("jobs");
+        Path input = Files.writeString(directory.resolve("tasks.csv"), "Task,Dependencies,Duration\n1,,1\n2,1,1\n");
+        Path first = directory.resolve("first.csv");
+        Path second = directory.resolve("second.csv");
+
+        try (ScheduleDaemon daemon = new ScheduleDaemon(ScheduleOptions.of(LocalDate.of(2023, 10, 30)))) {
+            daemon.readJobs(new StringReader(input + " " + first + "\n"
+                    + "\n"
+                    + input + " " + second + " 2024-01-02\n"));
+        }
+
+        List<String> firstLines = Files.readAllLines(first);
+        List<String> secondLines = Files.readAllLines(second);
+        Assertions.assertTrue(firstLines.get(2).startsWith("\"2\",\"1\",\"1.0\",\"2023-10-31\",\"2023-11-01\""));
+        Assertions.assertTrue(secondLines.get(2).startsWith("\"2\",\"1\",\"1.0\",\"2024-01-03\",\"2024-01-04\""));
+    }
+}
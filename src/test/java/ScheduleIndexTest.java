@@ -0,0 +1,152 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class ScheduleIndexTest {
+
+    @Test
+    public void givenRandomIntervalsAndUpdatesWhenQueriedThenResultsMatchALinearScan() {
+        Random random = new Random(5);
+        int size = 2000;
+        long[] start = new long[size];
+        long[] end = new long[size];
+        for (int node = 0; node < size; node++) {
+            start[node] = random.nextInt(10_000);
+            end[node] = start[node] + (random.nextInt(5) == 0 ? 0 : random.nextInt(500));
+        }
+        ScheduleIndex index = ScheduleIndex.of(start, end, ScheduleIndex::epochMinutes);
+
+        for (int round = 0; round < 6; round++) {
+            for (int query = 0; query < 200; query++) {
+                long from = random.nextInt(11_000) - 500;
+                long to = from + 1 + random.nextInt(800);
+                assertSameNodes(scan(start, end, from, to, Kind.ACTIVE_AT), index.activeAt(from));
+                assertSameNodes(scan(start, end, from, to, Kind.ACTIVE_BETWEEN), index.activeBetween(from, to));
+                assertSameNodes(scan(start, end, from, to, Kind.STARTING), index.startingBetween(from, to));
+                assertSameNodes(scan(start, end, from, to, Kind.ENDING), index.endingBetween(from, to));
+            }
+            for (int update = 0; update < 100; update++) {
+                int node = random.nextInt(size);
+                start[node] = random.nextInt(10_000);
+                end[node] = start[node] + random.nextInt(500);
+                index.update(node, start[node], end[node]);
+            }
+        }
+    }
+
+    @Test
+    public void givenTasksMovedOneAtATimeWhenQueriedAfterEachMoveThenResultsMatchALinearScan() {
+        Random random = new Random(20);
+        int size = 20_000;
+        long[] start = new long[size];
+        long[] end = new long[size];
+        for (int node = 0; node < size; node++) {
+            start[node] = random.nextInt(100_000);
+            end[node] = start[node] + random.nextInt(2_000);
+        }
+        ScheduleIndex index = ScheduleIndex.of(start, end, ScheduleIndex::epochMinutes);
+
+        // more moves than a rebuild takes, half of them on a few tasks that move again and again
+        for (int update = 0; update < 3 * (size / ScheduleIndex.REBUILD_FRACTION + ScheduleIndex.MIN_CHANGES); update++) {
+            int node = update % 2 == 0 ? random.nextInt(8) : random.nextInt(size);
+            start[node] = random.nextInt(100_000);
+            end[node] = start[node] + random.nextInt(2_000);
+            index.update(node, start[node], end[node]);
+
+            long from = random.nextInt(100_000);
+            long to = from + 1 + random.nextInt(1_000);
+            assertSameNodes(scan(start, end, from, to, Kind.ACTIVE_AT), index.activeAt(from));
+            assertSameNodes(scan(start, end, from, to, Kind.ACTIVE_BETWEEN), index.activeBetween(from, to));
+            assertSameNodes(scan(start, end, from, to, Kind.STARTING), index.startingBetween(from, to));
+            assertSameNodes(scan(start, end, from, to, Kind.ENDING), index.endingBetween(from, to));
+        }
+    }
+
+    @Test
+    public void givenScheduleWhenTasksAreQueriedByDateThenTheIndexAnswers() throws IOException {
+        String tasks = "Task,Dependencies,Duration\n"
+                + "1,,2\n"
+                + "2,1,3\n"
+                + "3,2,0\n"
+                + "4,3,1\n"
+                + "5,,1\n";
+        ScheduleResult result = TaskScheduler.schedule(new StringReader(tasks), ScheduleOptions.of(LocalDate.of(2023, 10, 30)));
+
+        Assertions.assertEquals(List.of("3", "4"), ids(result.getTasksActiveBetween(Scenario.NOMINAL,
+                LocalDate.of(2023, 11, 6).atStartOfDay(), LocalDate.of(2023, 11, 13).atStartOfDay())));
+        Assertions.assertEquals(List.of("1"), ids(result.getTasksActiveAt(Scenario.NOMINAL, LocalDateTime.of(2023, 10, 31, 12, 0))));
+        Assertions.assertEquals(List.of("1", "5"), ids(result.getTasksEndingBetween(Scenario.NOMINAL,
+                LocalDate.of(2023, 10, 30).atStartOfDay(), LocalDate.of(2023, 11, 2).atStartOfDay())));
+        Assertions.assertEquals(List.of("4"), ids(result.getTasksStartingAfter(Scenario.NOMINAL, "3")));
+        Assertions.assertNull(result.getTasksStartingAfter(Scenario.NOMINAL, "6"));
+    }
+
+    @Test
+    public void givenIncrementalScheduleWhenADurationChangesThenItsIndexFollows() {
+        List<Task> plan = new ArrayList<>();
+        Random random = new Random(9);
+        for (int i = 0; i < 300; i++) {
+            String dependencies = i == 0 ? "" : String.valueOf(random.nextInt(i));
+            plan.add(Task.of(String.valueOf(i), dependencies, 1 + random.nextInt(3)));
+        }
+        IncrementalSchedule schedule = IncrementalSchedule.of(TaskGraph.of(plan), WorkingCalendar.DEFAULT, LocalDate.of(2023, 10, 30));
+        ScheduleIndex index = schedule.getIndex(Scenario.NOMINAL);
+
+        for (int edit = 0; edit < 40; edit++) {
+            schedule.updateDuration(String.valueOf(random.nextInt(300)), 1 + random.nextInt(10), -1, -1);
+        }
+
+        List<Task> tasks = schedule.getTasks();
+        long[] start = new long[tasks.size()];
+        long[] end = new long[tasks.size()];
+        for (int node = 0; node < tasks.size(); node++) {
+            start[node] = ScheduleIndex.epochMinutes(tasks.get(node).getStart());
+            end[node] = ScheduleIndex.epochMinutes(tasks.get(node).getEnd());
+        }
+        LocalDateTime from = LocalDate.of(2023, 12, 4).atStartOfDay();
+        LocalDateTime to = LocalDate.of(2023, 12, 11).atStartOfDay();
+        long fromMinutes = ScheduleIndex.epochMinutes(from);
+        long toMinutes = ScheduleIndex.epochMinutes(to);
+        int[] active = index.activeBetween(from, to);
+        assertSameNodes(scan(start, end, fromMinutes, toMinutes, Kind.ACTIVE_BETWEEN), active);
+        Assertions.assertTrue(active.length > 0);
+        assertSameNodes(scan(start, end, fromMinutes, toMinutes, Kind.ENDING), index.endingBetween(from, to));
+    }
+
+    private enum Kind {ACTIVE_AT, ACTIVE_BETWEEN, STARTING, ENDING}
+
+    private static int[] scan(long[] start, long[] end, long from, long to, Kind kind) {
+        List<Integer> nodes = new ArrayList<>();
+        for (int node = 0; node < start.length; node++) {
+            long covered = Math.max(end[node], start[node] + 1);
+            boolean match = switch (kind) {
+                case ACTIVE_AT -> start[node] <= from && from < covered;
+                case ACTIVE_BETWEEN -> start[node] < to && covered > from;
+                case STARTING -> start[node] >= from && start[node] < to;
+                case ENDING -> end[node] >= from && end[node] < to;
+            };
+            if (match) {
+                nodes.add(node);
+            }
+        }
+        return nodes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static void assertSameNodes(int[] expected, int[] actual) {
+        int[] sorted = actual.clone();
+        Arrays.sort(sorted);
+        Assertions.assertArrayEquals(expected, sorted);
+    }
+
+    private static List<String> ids(List<Task> tasks) {
+        return tasks.stream().map(Task::getId).toList();
+    }
+}
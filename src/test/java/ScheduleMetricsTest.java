@@ -0,0 +1,80 @@
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class ScheduleMetricsTest {
+
+    private static final String TASKS = "Task,Dependencies,Duration\n"
+            + "1,,0\n"
+            + "2,1,2\n"
+            + "3,1,5\n"
+            + "4,all,1\n"
+            + "5,\"2, 3\",1\n";
+
+    @Test
+    public void givenScheduledAndWrittenPlanWhenMetricsAreReadThenEveryPhaseAndCounterIsRecorded() throws IOException {
+        ScheduleResult result = TaskScheduler.schedule(new StringReader(TASKS), ScheduleOptions.of(LocalDate.of(2023, 10, 30)));
+        result.write(Channels.newChannel(OutputStream.nullOutputStream()));
+
+        ScheduleMetrics metrics = result.getMetrics();
+        for (ScheduleMetrics.Phase phase : ScheduleMetrics.Phase.values()) {
+            Assertions.assertTrue(metrics.getNanos(phase) > 0, phase.name());
+        }
+        Assertions.assertEquals(5, metrics.getTasks());
+        Assertions.assertEquals(1, metrics.getSelectors());
+        Assertions.assertEquals(4, metrics.getSelectorEdges());
+        Assertions.assertEquals(5 + 4, metrics.getEdges());
+        Assertions.assertEquals(1, metrics.getResolutionPasses());
+        Assertions.assertTrue(metrics.toJson().startsWith("{\"phases\":{\"parse\":{\"millis\":"));
+        Assertions.assertTrue(metrics.toJson().endsWith("\"tasks\":5,\"edges\":9,\"selectors\":1,\"selectorEdges\":4}"));
+    }
+
+    @Test
+    public void givenAllocationsOnAnotherThreadWhenPhaseIsTimedThenOnlyTheCallingThreadIsCounted() throws InterruptedException {
+        ScheduleMetrics metrics = new ScheduleMetrics();
+        byte[][] kept = new byte[2][];
+        metrics.time(ScheduleMetrics.Phase.PARSE, () -> {
+            Thread other = new Thread(() -> kept[1] = new byte[64 << 20]);
+            other.start();
+            other.join();
+            kept[0] = new byte[8 << 20];
+        });
+
+        long allocated = metrics.getAllocatedBytes(ScheduleMetrics.Phase.PARSE);
+        Assumptions.assumeTrue(allocated >= 0, "thread allocation counters are not available");
+        Assertions.assertTrue(allocated >= 8 << 20, Long.toString(allocated));
+        Assertions.assertTrue(allocated < 64 << 20, Long.toString(allocated));
+    }
+
+    @Test
+    public void givenFlightRecordingWhenPlanIsScheduledThenPhaseEventsAreRecorded() throws IOException {
+        Path file = Files.createTempFile("schedule", ".jfr");
+        file.toFile().deleteOnExit();
+        try (Recording recording = new Recording()) {
+            recording.enable(ScheduleMetrics.PhaseEvent.class);
+            recording.start();
+            TaskScheduler.schedule(new StringReader(TASKS), ScheduleOptions.of(LocalDate.of(2023, 10, 30)));
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<String> phases = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals("critical_path_generator.SchedulePhase"))
+                .map((RecordedEvent event) -> event.getString("phase"))
+                .collect(Collectors.toList());
+        Assertions.assertEquals(List.of("PARSE", "GRAPH_BUILD", "FORWARD_PASS", "CRITICAL_PATH"), phases);
+    }
+}
@@ -0,0 +1,37 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+public class ScheduleOptionsTest {
+
+    @Test
+    public void givenOptionsWithEverySettingChangedWhenCopiedWithAnotherStartDateThenOnlyTheStartDateDiffers() {
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            ScheduleOptions options = ScheduleOptions.of(LocalDate.of(2023, 10, 30));
+            options.setCalendar(WorkingCalendar.of(EnumSet.of(DayOfWeek.SUNDAY), Set.of(LocalDate.of(2023, 12, 25))));
+            options.setReaderParallelism(3);
+            options.setPool(pool);
+            options.setParallelThreshold(7);
+            options.setCriticalPathAnalysis(false);
+            options.setSnapshots(true);
+            options.setSnapshotContentHash(true);
+            options.setTransitiveReduction(true);
+            options.setReducedDependencies(true);
+            options.setResourceLeveling(ResourceScheduler.Priority.values()[0]);
+
+            ScheduleOptions copy = options.withStartDate(LocalDate.of(2024, 1, 8));
+
+            Assertions.assertEquals(LocalDate.of(2024, 1, 8), copy.getStartDate());
+            Assertions.assertEquals(LocalDate.of(2023, 10, 30), options.getStartDate());
+            Assertions.assertEquals(options, copy.withStartDate(options.getStartDate()));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+public class ScheduleStoreTest {
+
+    private static final LocalDate START_DATE = LocalDate.of(2023, 10, 30);
+
+    @Test
+    public void givenChainWhenScheduledThenColumnsHoldWorkingMinutesAndViewsHaveDates() {
+        TaskGraph graph = TaskGraph.of(List.of(
+                Task.of("1", "", 1),
+                Task.of("2", "1", 2, 1, 4)));
+        ScheduleStore store = ScheduleStore.of(graph, WorkingCalendar.DEFAULT);
+
+        store.schedule(START_DATE);
+
+        int second = graph.indexOf("2");
+        long projectStart = WorkingCalendar.DEFAULT.toWorkingMinutes(START_DATE.atStartOfDay());
+        Assertions.assertEquals(projectStart + WorkingCalendar.MINUTES_PER_DAY, store.startMinutes(Scenario.NOMINAL, second));
+        Assertions.assertEquals(projectStart + 3 * WorkingCalendar.MINUTES_PER_DAY, store.endMinutes(Scenario.NOMINAL, second));
+        Assertions.assertEquals(projectStart + 5 * WorkingCalendar.MINUTES_PER_DAY, store.endMinutes(Scenario.MAX, second));
+
+        Task task = store.toTask(second);
+        Assertions.assertEquals(LocalDateTime.of(2023, 11, 2, 0, 0), task.getEnd());
+        Assertions.assertEquals(LocalDateTime.of(2023, 11, 6, 0, 0), task.getMaxEnd());
+        Assertions.assertNull(graph.task(second).getEnd());
+    }
+
+    @Test
+    public void givenRandomPlansWhenScheduledThenDatesMatchTheTopologicalScheduler() {
+        for (LocalDate startDate : List.of(START_DATE, LocalDate.of(2023, 10, 28))) {
+            List<Task> expected = randomPlan(3_000);
+            new TopologicalScheduler().schedule(TaskGraph.of(expected), startDate);
+
+            TaskGraph graph = TaskGraph.of(randomPlan(3_000));
+            ScheduleStore sequential = ScheduleStore.of(graph, WorkingCalendar.DEFAULT);
+            sequential.schedule(startDate);
+            ScheduleStore parallel = ScheduleStore.of(graph, WorkingCalendar.DEFAULT);
+            parallel.schedule(startDate, new ForkJoinPool(4), 0);
+
+            for (int node = 0; node < graph.taskCount(); node++) {
+                Assertions.assertEquals(expected.get(node), sequential.toTask(node));
+                Assertions.assertEquals(expected.get(node), parallel.toTask(node));
+            }
+        }
+    }
+
+    @Test
+    public void givenTaskWorkingSaturdaysWhenScheduledThenItsEndUsesItsOwnCalendarInEveryEngine() {
+        WorkingCalendar sundaysOff = WorkingCalendar.of(EnumSet.of(DayOfWeek.SUNDAY), Set.of());
+        Task first = Task.of("1", "", 2);
+        first.setCalendar(sundaysOff);
+        TaskGraph graph = TaskGraph.of(List.of(first, Task.of("2", "1", 1)));
+        LocalDate friday = LocalDate.of(2023, 11, 3);
+
+        ScheduleStore store = ScheduleStore.of(graph, WorkingCalendar.DEFAULT);
+        store.schedule(friday);
+        ScenarioEngine engine = ScenarioEngine.of(graph, WorkingCalendar.DEFAULT, new String[]{"P80"}, new double[][]{{-1, -1}});
+        engine.schedule(friday);
+        new TopologicalScheduler(WorkingCalendar.DEFAULT).schedule(graph, friday);
+
+        Assertions.assertEquals(LocalDateTime.of(2023, 11, 6, 0, 0), store.endDate(Scenario.NOMINAL, 0));
+        Assertions.assertEquals(LocalDateTime.of(2023, 11, 7, 0, 0), store.endDate(Scenario.NOMINAL, 1));
+        Assertions.assertEquals(LocalDateTime.of(2023, 11, 7, 0, 0), engine.endDate(0, 1));
+        Assertions.assertEquals(graph.task(0), store.toTask(0));
+        Assertions.assertEquals(graph.task(1), store.toTask(1));
+    }
+
+    @Test
+    public void givenTasksWithOwnCalendarsOnAHolidayCalendarWhenScheduledThenDatesMatchTheTopologicalScheduler() {
+        WorkingCalendar projectCalendar = WorkingCalendar.of(EnumSet.of(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY),
+                Set.of(LocalDate.of(2023, 12, 25), LocalDate.of(2023, 12, 26), LocalDate.of(2024, 1, 1)));
+        WorkingCalendar sundaysOff = WorkingCalendar.of(EnumSet.of(DayOfWeek.SUNDAY), Set.of());
+        WorkingCalendar fridaysOff = WorkingCalendar.of(EnumSet.of(DayOfWeek.FRIDAY, DayOfWeek.SATURDAY), Set.of());
+        List<Task> expected = withCalendars(randomPlan(3_000), sundaysOff, fridaysOff);
+        new TopologicalScheduler(projectCalendar).schedule(TaskGraph.of(expected), START_DATE);
+
+        TaskGraph graph = TaskGraph.of(withCalendars(randomPlan(3_000), sundaysOff, fridaysOff));
+        ScheduleStore store = ScheduleStore.of(graph, projectCalendar);
+        store.schedule(START_DATE, new ForkJoinPool(4), 0);
+
+        for (int node = 0; node < graph.taskCount(); node++) {
+            Assertions.assertEquals(expected.get(node), store.toTask(node));
+        }
+    }
+
+    @Test
+    public void givenScheduledStoreWhenAnalysedThenFloatsMatchTheTaskBasedAnalysis() {
+        List<Task> tasks = randomPlan(1_000);
+        TaskGraph taskGraph = TaskGraph.of(tasks);
+        new TopologicalScheduler().schedule(taskGraph, START_DATE);
+        CriticalPathAnalysis expected = CriticalPathAnalysis.of(taskGraph, WorkingCalendar.DEFAULT);
+
+        ScheduleStore store = ScheduleStore.of(TaskGraph.of(randomPlan(1_000)), WorkingCalendar.DEFAULT);
+        store.schedule(START_DATE);
+        CriticalPathAnalysis actual = CriticalPathAnalysis.of(store);
+
+        for (Scenario scenario : Scenario.values()) {
+            Assertions.assertEquals(expected.criticalPath(scenario), actual.criticalPath(scenario));
+            for (int node = 0; node < taskGraph.size(); node++) {
+                Assertions.assertEquals(expected.totalFloat(scenario, node), actual.totalFloat(scenario, node), 0);
+                Assertions.assertEquals(expected.freeFloat(scenario, node), actual.freeFloat(scenario, node), 0);
+            }
+        }
+    }
+
+    private static List<Task> withCalendars(List<Task> tasks, WorkingCalendar even, WorkingCalendar odd) {
+        for (int i = 0; i < tasks.size(); i += 3) {
+            tasks.get(i).setCalendar(i % 2 == 0 ? even : odd);
+        }
+        return tasks;
+    }
+
+    /**
+     * Several roots, tasks with and without estimates, a prefix selector and a final "all".
+     * Nothing depends on the tasks using the selector, which would otherwise close cycles.
+     */
+    private static List<Task> randomPlan(int size) {
+        Random random = new Random(7);
+        boolean[] usesSelector = new boolean[size + 2];
+        List<Task> tasks = new ArrayList<>();
+        tasks.add(Task.of("1", "", 0, 0, 0));
+        tasks.add(Task.of("2", "", 1));
+        for (int i = 3; i <= size; i++) {
+            int first = 1 + random.nextInt(i - 1);
+            int second = 1 + random.nextInt(i - 1);
+            first = usesSelector[first] ? 1 : first;
+            second = usesSelector[second] ? 1 : second;
+            String dependencies = switch (random.nextInt(12)) {
+                case 0 -> "";
+                case 1 -> String.valueOf(i).startsWith("2") ? "1" : "2*";
+                case 2, 3 -> first + ", " + second;
+                default -> String.valueOf(first);
+            };
+            usesSelector[i] = dependencies.equals("2*");
+            double duration = random.nextInt(40) / 4.0;
+            tasks.add(random.nextBoolean()
+                    ? Task.of(String.valueOf(i), dependencies, duration, duration / 2, duration * 2)
+                    : Task.of(String.valueOf(i), dependencies, duration));
+        }
+        tasks.add(Task.of(String.valueOf(size + 1), "all", 0));
+        return tasks;
+    }
+}
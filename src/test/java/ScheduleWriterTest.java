@@ -0,0 +1,44 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class ScheduleWriterTest {
+
+    @Test
+    public void givenScheduledTasksWhenWriteTasksIsCalledThenOutputMatchesToCSVLineInNumericOrder() throws IOException {
+        Task first = Task.of("2", "1", 9.25, 7.5, 12);
+        first.setStartAndEndDate(LocalDateTime.of(2023, 10, 30, 0, 0));
+        first.setMinStartAndEndDate(LocalDateTime.of(2023, 10, 30, 0, 0));
+        first.setMaxStartAndEndDate(LocalDateTime.of(2023, 12, 29, 12, 0));
+        Task second = Task.of("10", "", 0);
+        second.setStartAndEndDate(LocalDateTime.of(1999, 12, 31, 0, 0));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ScheduleWriter writer = new ScheduleWriter(Channels.newChannel(output))) {
+            writer.writeHeader(new String[]{"Task", "Dependencies", "Duration"});
+            writer.writeTasks(List.of(second, first));
+        }
+
+        String expected = "Task,Dependencies,Duration,start-date,end-date\n"
+                + first.toCSVLine() + "\n"
+                + second.toCSVLine() + "\n";
+        Assertions.assertEquals(expected, output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void givenNonNumericIdsWhenSortByIdIsCalledThenNumericIdsComeFirst() {
+        Task alpha = Task.of("alpha", "", 0);
+        Task two = Task.of("2", "", 0);
+        Task eleven = Task.of("11", "", 0);
+
+        List<Task> sorted = ScheduleWriter.sortById(List.of(alpha, eleven, two));
+
+        Assertions.assertEquals(List.of(two, eleven, alpha), sorted);
+    }
+}
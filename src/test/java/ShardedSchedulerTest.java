@@ -0,0 +1,91 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Random;
+
+public class ShardedSchedulerTest {
+
+    @Test
+    public void givenRandomPlanWhenScheduledInShardsThenOutputMatchesTheSingleProcessEngine() throws IOException {
+        Path directory = Files.createTempDirectory("sharded");
+        StringBuilder rows = new StringBuilder();
+        Random random = new Random(22);
+        for (int id = 1; id <= 2000; id++) {
+            StringBuilder dependencies = new StringBuilder();
+            for (int k = 0; k < random.nextInt(3) && id > 1; k++) {
+                dependencies.append(dependencies.length() > 0 ? ", " : "").append(1 + random.nextInt(id - 1));
+            }
+            if (id == 2000) {
+                dependencies.append(dependencies.length() > 0 ? ", " : "").append("all");
+            }
+            String min = random.nextBoolean() ? String.valueOf(random.nextInt(3)) : "-1";
+            String max = random.nextBoolean() ? String.valueOf(3 + random.nextInt(5)) : "-1";
+            rows.append(id).append(",\"").append(dependencies).append("\",").append(random.nextInt(4))
+                    .append(',').append(min).append(',').append(max).append('\n');
+        }
+        Path input = write(directory, "tasks.csv", rows.toString());
+
+        for (LocalDate startDate : new LocalDate[]{LocalDate.of(2023, 10, 30), LocalDate.of(2023, 10, 28)}) {
+            ShardedScheduler scheduler = ShardedScheduler.of(options(startDate), 3);
+
+            scheduler.schedule(input, directory.resolve("sharded.csv"));
+
+            assertSameAsSingleProcess(input, directory, startDate);
+            Assertions.assertTrue(scheduler.getCutEdges() > 0);
+        }
+    }
+
+    @Test
+    public void givenTextIdsDuplicateRowsAndPrefixSelectorWhenScheduledInShardsThenOutputMatchesTheSingleProcessEngine()
+            throws IOException {
+        Path directory = Files.createTempDirectory("sharded");
+        Path input = write(directory, "tasks.csv", "b,\"\",2,-1,-1\n"
+                + "10,\"b\",1,-1,-1\n"
+                + "a1,\"\",3,1,-1\n"
+                + "a2,\"a1\",1,-1,4\n"
+                + "b,\"a2\",1,-1,-1\n"
+                + "11,\"a*, 10\",2,-1,-1\n"
+                + "2,\"all\",1,-1,-1\n");
+        LocalDate startDate = LocalDate.of(2023, 10, 30);
+
+        ShardedScheduler.of(options(startDate), 2).schedule(input, directory.resolve("sharded.csv"));
+
+        assertSameAsSingleProcess(input, directory, startDate);
+    }
+
+    @Test
+    public void givenCircularDependencyWhenScheduledInShardsThenNoWorkerIsStarted() throws IOException {
+        Path directory = Files.createTempDirectory("sharded");
+        Path input = write(directory, "tasks.csv", "1,2,1\n2,1,1\n");
+
+        Assertions.assertThrows(SchedulingException.class,
+                () -> ShardedScheduler.of(options(LocalDate.of(2023, 10, 30)), 2).schedule(input, directory.resolve("sharded.csv")));
+    }
+
+    @Test
+    public void givenCriticalPathAnalysisWhenShardedSchedulerIsCreatedThenItIsRejected() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> ShardedScheduler.of(ScheduleOptions.of(LocalDate.of(2023, 10, 30)), 2));
+    }
+
+    private static ScheduleOptions options(LocalDate startDate) {
+        ScheduleOptions options = ScheduleOptions.of(startDate);
+        options.setCriticalPathAnalysis(false);
+        return options;
+    }
+
+    private static void assertSameAsSingleProcess(Path input, Path directory, LocalDate startDate) throws IOException {
+        TaskScheduler.schedule(input, options(startDate)).write(directory.resolve("single.csv"));
+        Assertions.assertEquals(Files.readString(directory.resolve("single.csv")), Files.readString(directory.resolve("sharded.csv")));
+    }
+
+    private static Path write(Path directory, String name, String rows) throws IOException {
+        Path file = directory.resolve(name);
+        file.toFile().deleteOnExit();
+        return Files.writeString(file, "Task,Dependencies,Duration,Min,Max\n" + rows);
+    }
+}
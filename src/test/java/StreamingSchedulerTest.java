@@ -0,0 +1,93 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Random;
+
+public class StreamingSchedulerTest {
+
+    @Test
+    public void givenRowsInDependencyOrderWhenStreamedThenOutputMatchesTheBufferedEngine() throws IOException {
+        Path directory = Files.createTempDirectory("streaming");
+        StringBuilder rows = new StringBuilder();
+        Random random = new Random(4);
+        for (int id = 1; id <= 3000; id++) {
+            StringBuilder dependencies = new StringBuilder();
+            for (int k = 0; k < random.nextInt(3) && id > 1; k++) {
+                dependencies.append(dependencies.length() > 0 ? ", " : "").append(Math.max(1, id - 1 - random.nextInt(50)));
+            }
+            String min = random.nextBoolean() ? String.valueOf(random.nextInt(3)) : "-1";
+            String max = random.nextBoolean() ? String.valueOf(3 + random.nextInt(5)) : "-1";
+            rows.append(id).append(",\"").append(dependencies).append("\",").append(1 + random.nextInt(4))
+                    .append(',').append(min).append(',').append(max).append('\n');
+        }
+        Path input = write(directory, "tasks.csv", rows.toString());
+
+        for (LocalDate startDate : new LocalDate[]{LocalDate.of(2023, 10, 30), LocalDate.of(2023, 10, 28)}) {
+            ScheduleOptions options = options(startDate);
+            StreamingScheduler scheduler = StreamingScheduler.of(options, 100);
+
+            Assertions.assertTrue(scheduler.schedule(input, directory.resolve("streamed.csv")), scheduler.getFallbackReason());
+
+            TaskScheduler.schedule(input, options).write(directory.resolve("buffered.csv"));
+            Assertions.assertEquals(Files.readString(directory.resolve("buffered.csv")), Files.readString(directory.resolve("streamed.csv")));
+            Assertions.assertEquals(3000, scheduler.getTasks());
+            Assertions.assertEquals(100, scheduler.getPeakCachedTasks());
+        }
+    }
+
+    @Test
+    public void givenForwardReferenceWhenStreamedThenTheBufferedEngineWritesTheOutput() throws IOException {
+        Path directory = Files.createTempDirectory("streaming");
+        Path input = write(directory, "tasks.csv", "1,,1\n2,3,1\n3,1,2\n");
+        StreamingScheduler scheduler = StreamingScheduler.of(options(LocalDate.of(2023, 10, 30)));
+
+        Assertions.assertFalse(scheduler.schedule(input, directory.resolve("result.csv")));
+
+        Assertions.assertTrue(scheduler.getFallbackReason().contains("depends on 3"));
+        Assertions.assertTrue(Files.readString(directory.resolve("result.csv")).contains("\"2\",\"3\",\"1.0\",\"2023-11-02\",\"2023-11-03\""));
+    }
+
+    @Test
+    public void givenDependencyOutsideTheWindowOrSelectorWhenStreamedThenTheBufferedEngineIsUsed() throws IOException {
+        Path directory = Files.createTempDirectory("streaming");
+        Path farBack = write(directory, "far.csv", "1,,1\n2,,1\n3,,1\n4,1,1\n");
+        Path selector = write(directory, "selector.csv", "1,,1\n2,all,1\n");
+
+        StreamingScheduler scheduler = StreamingScheduler.of(options(LocalDate.of(2023, 10, 30)), 2);
+
+        Assertions.assertFalse(scheduler.schedule(farBack, directory.resolve("far-result.csv")));
+        Assertions.assertFalse(scheduler.schedule(selector, directory.resolve("selector-result.csv")));
+        Assertions.assertTrue(scheduler.getFallbackReason().contains("selector"));
+        Assertions.assertTrue(StreamingScheduler.of(options(LocalDate.of(2023, 10, 30)), 3).schedule(farBack, directory.resolve("far-result.csv")));
+    }
+
+    @Test
+    public void givenExtraDurationColumnWhenStreamedThenTheBufferedEngineWritesItsDates() throws IOException {
+        Path directory = Files.createTempDirectory("streaming");
+        Path input = directory.resolve("tasks.csv");
+        input.toFile().deleteOnExit();
+        Files.writeString(input, "Task,Dependencies,Duration,Min,Max,P80\n1,,1,-1,-1,2\n2,1,1,-1,-1,3\n");
+        StreamingScheduler scheduler = StreamingScheduler.of(options(LocalDate.of(2023, 10, 30)));
+
+        Assertions.assertFalse(scheduler.schedule(input, directory.resolve("result.csv")));
+
+        Assertions.assertTrue(scheduler.getFallbackReason().contains("extra duration columns"));
+        Assertions.assertTrue(Files.readString(directory.resolve("result.csv")).contains("P80-end-date"));
+    }
+
+    private static ScheduleOptions options(LocalDate startDate) {
+        ScheduleOptions options = ScheduleOptions.of(startDate);
+        options.setCriticalPathAnalysis(false);
+        return options;
+    }
+
+    private static Path write(Path directory, String name, String rows) throws IOException {
+        Path file = directory.resolve(name);
+        file.toFile().deleteOnExit();
+        return Files.writeString(file, "Task,Dependencies,Duration,Min,Max\n" + rows);
+    }
+}
@@ -0,0 +1,102 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+public class TaskFileReaderTest {
+
+    @Test
+    public void givenQuotedAndPlainColumnsWhenReadIsCalledThenTasksAreParsed() throws IOException {
+        Path file = write("Task,Dependencies,Duration\n"
+                + "1,,0\n"
+                + "7,\"3, 4, 5\",15.00\n"
+                + "\"24\",\"all\",0.5           \n");
+
+        TaskFile taskFile = new TaskFileReader().read(file);
+
+        Assertions.assertArrayEquals(new String[]{"Task", "Dependencies", "Duration"}, taskFile.getHeader());
+        List<Task> tasks = taskFile.getTasks();
+        Assertions.assertEquals(3, tasks.size());
+        Assertions.assertEquals(Task.of("1", "", 0), tasks.get(0));
+        Assertions.assertEquals(Task.of("7", "3, 4, 5", 15), tasks.get(1));
+        Assertions.assertEquals(Task.of("24", "all", 0.5), tasks.get(2));
+    }
+
+    @Test
+    public void givenMinAndMaxColumnsAndWindowsLineEndingsWhenReadIsCalledThenAllDurationsAreParsed() throws IOException {
+        Path file = write("Task,Dependencies,Duration,Min,Max\r\n"
+                + "2,1,10.25,8.2,1.5e1\r\n"
+                + "\r\n"
+                + "3,\"say \"\"hi\"\"\",-1,0,2\r\n");
+
+        TaskFile taskFile = new TaskFileReader().read(file);
+
+        List<Task> tasks = taskFile.getTasks();
+        Assertions.assertEquals(2, tasks.size());
+        Assertions.assertEquals(Task.of("2", "1", 10.25, 8.2, 15), tasks.get(0));
+        Assertions.assertEquals(Task.of("3", "say \"hi\"", -1, 0, 2), tasks.get(1));
+    }
+
+    @Test
+    public void givenFileOfSeveralChunksWhenReadWithParallelismThreeThenAtMostTwoPoolThreadsParseIt() throws IOException {
+        StringBuilder content = new StringBuilder("Task,Dependencies,Duration\n");
+        for (int id = 1; content.length() < 13 << 20; id++) {
+            content.append(id).append(",\"").append(id - 1).append("\",").append(id % 10).append(".25\n");
+        }
+        Path file = write(content.toString());
+        ForkJoinPool pool = new ForkJoinPool(8);
+        try {
+            TaskFile parallel = new TaskFileReader(3, pool).read(file);
+
+            Assertions.assertEquals(new TaskFileReader().read(file).getTasks(), parallel.getTasks());
+            Assertions.assertTrue(pool.getPoolSize() <= 2, "pool threads: " + pool.getPoolSize());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void givenReaderWhenReadIsCalledThenTasksAreParsedLikeFromAFile() throws IOException {
+        TaskFile taskFile = new TaskFileReader(4).read(new StringReader("Task,Dependencies,Duration\n"
+                + "1,,0\n"
+                + "2,\"1\",2.5"));
+
+        Assertions.assertArrayEquals(new String[]{"Task", "Dependencies", "Duration"}, taskFile.getHeader());
+        Assertions.assertEquals(List.of(Task.of("1", "", 0), Task.of("2", "1", 2.5)), taskFile.getTasks());
+    }
+
+    @Test
+    public void givenExtraDurationColumnsWhenReadIsCalledThenTheyAreKeptRowByRow() throws IOException {
+        TaskFile taskFile = new TaskFileReader().read(new StringReader("Task,Dependencies,Duration,Min,Max,P50,P90\n"
+                + "1,,1,0.5,2,1.25,\n"
+                + "2,1,2,1,3,\"2.5\",4\n"));
+
+        Assertions.assertEquals(Task.of("2", "1", 2, 1, 3), taskFile.getTasks().get(1));
+        Assertions.assertArrayEquals(new double[]{1.25, -1, 2.5, 4}, taskFile.getExtraDurations());
+    }
+
+    @Test
+    public void givenTextColumnAfterMaxWhenScheduledThenItIsReadAsBlank() throws IOException {
+        Path file = write("Task,Dependencies,Duration,Min,Max,Owner\n"
+                + "1,,1,0.5,2,alice\n"
+                + "2,1,2,1,3,\"bob, carol\"\n");
+
+        TaskFile taskFile = new TaskFileReader().read(file);
+        ScheduleResult result = TaskScheduler.schedule(file, ScheduleOptions.of(LocalDate.of(2023, 10, 30)));
+
+        Assertions.assertArrayEquals(new double[]{-1, -1}, taskFile.getExtraDurations());
+        Assertions.assertEquals(LocalDate.of(2023, 11, 2).atStartOfDay(), result.getTask("2").getEnd());
+    }
+
+    private static Path write(String content) throws IOException {
+        Path file = Files.createTempFile("tasks", ".csv");
+        file.toFile().deleteOnExit();
+        return Files.writeString(file, content);
+    }
+}
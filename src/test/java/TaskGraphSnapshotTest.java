@@ -0,0 +1,143 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+
+public class TaskGraphSnapshotTest {
+
+    private static final String TASKS = "Task,Dependencies,Duration,Min,Max\n"
+            + "1,,0,0,0\n"
+            + "2,1,2.5,2,4\n"
+            + "3,\"1, 2\",1,-1,-1\n"
+            + "4,all,0,0,0\n";
+
+    @Test
+    public void givenNoSnapshotWhenLoadOrBuildIsCalledThenSnapshotIsWrittenAndReloadedWithTheSameGraph() throws IOException {
+        Path source = write(TASKS);
+
+        TaskGraphSnapshot built = TaskGraphSnapshot.loadOrBuild(source, new TaskFileReader());
+        Path snapshot = source.resolveSibling(source.getFileName() + TaskGraphSnapshot.SUFFIX);
+        snapshot.toFile().deleteOnExit();
+        Assertions.assertTrue(Files.isRegularFile(snapshot));
+
+        TaskGraphSnapshot loaded = TaskGraphSnapshot.load(snapshot, Files.size(source), Files.getLastModifiedTime(source).toMillis(), TaskGraphSnapshot.NO_HASH);
+
+        Assertions.assertNotNull(loaded);
+        Assertions.assertArrayEquals(built.getHeader(), loaded.getHeader());
+        assertSameGraph(built.getGraph(), loaded.getGraph());
+    }
+
+    @Test
+    public void givenScheduledGraphWhenSnapshotIsWrittenThenDatesAreRestored() throws IOException {
+        Path source = write(TASKS);
+        TaskGraphSnapshot built = TaskGraphSnapshot.loadOrBuild(source, new TaskFileReader());
+        new TopologicalScheduler().schedule(built.getGraph(), LocalDate.of(2023, 10, 30));
+        Path snapshot = Files.createTempFile("tasks", TaskGraphSnapshot.SUFFIX);
+        snapshot.toFile().deleteOnExit();
+
+        built.write(snapshot, 1, 2, 3);
+        TaskGraphSnapshot loaded = TaskGraphSnapshot.load(snapshot, 1, 2, 3);
+
+        for (int node = 0; node < built.getGraph().taskCount(); node++) {
+            Assertions.assertEquals(built.getGraph().task(node), loaded.getGraph().task(node));
+        }
+        Assertions.assertNull(TaskGraphSnapshot.load(snapshot, 1, 3, 3));
+        Assertions.assertNull(TaskGraphSnapshot.load(snapshot, 1, 2, 4));
+    }
+
+    @Test
+    public void givenModifiedSourceWhenLoadOrBuildIsCalledThenSnapshotIsRebuilt() throws IOException {
+        Path source = write(TASKS);
+        TaskGraphSnapshot.loadOrBuild(source, new TaskFileReader());
+        source.resolveSibling(source.getFileName() + TaskGraphSnapshot.SUFFIX).toFile().deleteOnExit();
+
+        Files.writeString(source, "5,4,1\n", StandardOpenOption.APPEND);
+        Files.setLastModifiedTime(source, FileTime.fromMillis(Files.getLastModifiedTime(source).toMillis() + 1000));
+        TaskGraphSnapshot rebuilt = TaskGraphSnapshot.loadOrBuild(source, new TaskFileReader());
+
+        Assertions.assertEquals(5, rebuilt.getGraph().taskCount());
+    }
+
+    @Test
+    public void givenSourceRewrittenWithSameSizeAndTimeWhenLoadedWithContentHashThenSnapshotIsRebuilt() throws IOException {
+        Path source = write(TASKS);
+        TaskGraphSnapshot.loadOrBuild(source, new TaskFileReader());
+        source.resolveSibling(source.getFileName() + TaskGraphSnapshot.SUFFIX).toFile().deleteOnExit();
+        FileTime modified = Files.getLastModifiedTime(source);
+
+        Files.writeString(source, TASKS.replace("2,1,2.5,2,4", "2,1,7.5,2,9"));
+        Files.setLastModifiedTime(source, modified);
+        TaskGraphSnapshot kept = TaskGraphSnapshot.loadOrBuild(source, new TaskFileReader());
+        TaskGraphSnapshot rebuilt = TaskGraphSnapshot.loadOrBuild(source, new TaskFileReader(), true);
+
+        Assertions.assertEquals(2.5, kept.getGraph().task(kept.getGraph().indexOf("2")).getDuration());
+        Assertions.assertEquals(7.5, rebuilt.getGraph().task(rebuilt.getGraph().indexOf("2")).getDuration());
+        Assertions.assertNotNull(TaskGraphSnapshot.load(source.resolveSibling(source.getFileName() + TaskGraphSnapshot.SUFFIX),
+                Files.size(source), modified.toMillis(), TaskGraphSnapshot.contentHash(source)));
+    }
+
+    @Test
+    public void givenMapWindowSmallerThanTheSnapshotWhenLoadedThenTheGraphIsTheSame() throws IOException {
+        StringBuilder tasks = new StringBuilder("Task,Dependencies,Duration,Min,Max\n");
+        for (int id = 1; id <= 500; id++) {
+            tasks.append(id).append(",\"").append(id > 1 ? id - 1 : "").append(id > 2 ? ", " + (id - 2) : "")
+                    .append("\",").append(id % 7).append(",-1,").append(id % 3 == 0 ? 9 : -1).append('\n');
+        }
+        Path source = write(tasks.toString());
+        TaskGraphSnapshot built = TaskGraphSnapshot.loadOrBuild(source, new TaskFileReader());
+        Path snapshot = source.resolveSibling(source.getFileName() + TaskGraphSnapshot.SUFFIX);
+        snapshot.toFile().deleteOnExit();
+
+        for (int windowSize : new int[]{1, 13, 64}) {
+            TaskGraphSnapshot loaded = TaskGraphSnapshot.load(snapshot, Files.size(source),
+                    Files.getLastModifiedTime(source).toMillis(), TaskGraphSnapshot.NO_HASH, windowSize);
+
+            Assertions.assertArrayEquals(built.getHeader(), loaded.getHeader());
+            assertSameGraph(built.getGraph(), loaded.getGraph());
+        }
+    }
+
+    @Test
+    public void givenCorruptSnapshotWhenLoadOrBuildIsCalledThenSnapshotIsRebuilt() throws IOException {
+        Path source = write(TASKS);
+        TaskGraphSnapshot.loadOrBuild(source, new TaskFileReader());
+        Path snapshot = source.resolveSibling(source.getFileName() + TaskGraphSnapshot.SUFFIX);
+        snapshot.toFile().deleteOnExit();
+
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(snapshot, bytes);
+        Assertions.assertThrows(IOException.class,
+                () -> TaskGraphSnapshot.load(snapshot, Files.size(source), Files.getLastModifiedTime(source).toMillis(), TaskGraphSnapshot.NO_HASH));
+
+        TaskGraphSnapshot rebuilt = TaskGraphSnapshot.loadOrBuild(source, new TaskFileReader());
+        Assertions.assertEquals(4, rebuilt.getGraph().taskCount());
+        Assertions.assertNotNull(TaskGraphSnapshot.load(snapshot, Files.size(source), Files.getLastModifiedTime(source).toMillis(), TaskGraphSnapshot.NO_HASH));
+    }
+
+    private static void assertSameGraph(TaskGraph expected, TaskGraph actual) {
+        Assertions.assertEquals(expected.size(), actual.size());
+        Assertions.assertEquals(expected.edgeCount(), actual.edgeCount());
+        for (int node = 0; node < expected.size(); node++) {
+            Assertions.assertEquals(expected.id(node), actual.id(node));
+            Assertions.assertEquals(expected.task(node), actual.task(node));
+            Assertions.assertEquals(expected.predecessorStart(node), actual.predecessorStart(node));
+            Assertions.assertEquals(expected.predecessorEnd(node), actual.predecessorEnd(node));
+        }
+        for (int edge = 0; edge < expected.edgeCount(); edge++) {
+            Assertions.assertEquals(expected.predecessor(edge), actual.predecessor(edge));
+        }
+        Assertions.assertEquals(expected.indexOf("3"), actual.indexOf("3"));
+    }
+
+    private static Path write(String content) throws IOException {
+        Path file = Files.createTempFile("tasks", ".csv");
+        file.toFile().deleteOnExit();
+        return Files.writeString(file, content);
+    }
+}
@@ -0,0 +1,50 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class TaskGraphTest {
+
+    @Test
+    public void givenTasksWithDependenciesWhenGraphIsBuiltThenPredecessorsAndSuccessorsAreIndexed() {
+        TaskGraph graph = TaskGraph.of(List.of(
+                Task.of("1", "", 0),
+                Task.of("2", "1", 1),
+                Task.of("3", " 1 , 2 ", 1)));
+
+        Assertions.assertArrayEquals(new int[]{0, 1}, predecessors(graph, graph.indexOf("3")));
+        Assertions.assertArrayEquals(new int[]{1, 2}, successors(graph, graph.indexOf("1")));
+        Assertions.assertEquals(3, graph.edgeCount());
+        Assertions.assertEquals(-1, graph.indexOf("4"));
+    }
+
+    @Test
+    public void givenTasksInReverseOrderWhenTopologicalOrderIsComputedThenDependenciesComeFirst() {
+        TaskGraph graph = TaskGraph.of(List.of(
+                Task.of("3", "2", 1),
+                Task.of("2", "1", 1),
+                Task.of("1", "", 0)));
+
+        int[] order = graph.topologicalOrder();
+
+        Assertions.assertEquals("1", graph.id(order[0]));
+        Assertions.assertEquals("2", graph.id(order[1]));
+        Assertions.assertEquals("3", graph.id(order[2]));
+    }
+
+    private static int[] predecessors(TaskGraph graph, int node) {
+        int[] result = new int[graph.predecessorEnd(node) - graph.predecessorStart(node)];
+        for (int k = graph.predecessorStart(node); k < graph.predecessorEnd(node); k++) {
+            result[k - graph.predecessorStart(node)] = graph.predecessor(k);
+        }
+        return result;
+    }
+
+    private static int[] successors(TaskGraph graph, int node) {
+        int[] result = new int[graph.successorEnd(node) - graph.successorStart(node)];
+        for (int k = graph.successorStart(node); k < graph.successorEnd(node); k++) {
+            result[k - graph.successorStart(node)] = graph.successor(k);
+        }
+        return result;
+    }
+}
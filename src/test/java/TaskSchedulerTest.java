@@ -0,0 +1,56 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class TaskSchedulerTest {
+
+    private static final String TASKS = "Task,Dependencies,Duration\n"
+            + "1,,0\n"
+            + "2,1,2\n"
+            + "3,1,5\n"
+            + "4,\"2, 3\",1\n";
+
+    @Test
+    public void givenReaderWhenScheduleIsCalledThenResultHasDatesAndCriticalPath() throws IOException {
+        ScheduleResult result = TaskScheduler.schedule(new StringReader(TASKS), ScheduleOptions.of(LocalDate.of(2023, 10, 30)));
+
+        Assertions.assertEquals(4, result.getTasks().size());
+        Assertions.assertEquals(LocalDateTime.of(2023, 11, 7, 0, 0), result.getTask("4").getEnd());
+        Assertions.assertEquals(List.of("1", "3", "4"), result.getCriticalPathAnalysis().criticalPath(Scenario.NOMINAL));
+        Assertions.assertNull(result.getTask("5"));
+    }
+
+    @Test
+    public void givenInputStreamAndNoAnalysisWhenScheduleIsCalledThenResultIsWrittenWithoutFloatColumns() throws IOException {
+        ScheduleOptions options = ScheduleOptions.of(LocalDate.of(2023, 10, 30));
+        options.setCriticalPathAnalysis(false);
+        ScheduleResult result = TaskScheduler.schedule(new ByteArrayInputStream(TASKS.getBytes(StandardCharsets.UTF_8)), options);
+
+        Path output = Files.createTempFile("result", ".csv");
+        output.toFile().deleteOnExit();
+        result.write(output);
+
+        List<String> lines = Files.readAllLines(output);
+        Assertions.assertEquals("Task,Dependencies,Duration,start-date,end-date", lines.get(0));
+        Assertions.assertEquals("\"2\",\"1\",\"2.0\",\"2023-10-30\",\"2023-11-01\"", lines.get(2));
+    }
+
+    @Test
+    public void givenCircularDependencyWhenScheduleIsCalledThenSchedulingExceptionIsThrown() {
+        String tasks = "Task,Dependencies,Duration\n1,2,1\n2,1,1\n";
+
+        SchedulingException exception = Assertions.assertThrows(SchedulingException.class,
+                () -> TaskScheduler.schedule(new StringReader(tasks), ScheduleOptions.of(LocalDate.of(2023, 10, 30))));
+
+        Assertions.assertEquals(List.of("1", "2"), exception.getTaskIds());
+    }
+}
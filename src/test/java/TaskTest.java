@@ -7,7 +7,7 @@ public class TaskTest {
 
     @Test
     public void givenStartDateOnMondayWhenSetStartAndEndDateIsCalledWith1DayTaskThenEndOnTuesday() {
-        Task task = new Task("1", "2,3", 1, 0.5, 1.5);
+        Task task = Task.of("1", "2,3", 1, 0.5, 1.5);
 
         task.setStartAndEndDate(LocalDateTime.of(2023, 10, 3, 0, 0));
 
@@ -17,7 +17,7 @@ public class TaskTest {
 
     @Test
     public void givenStartDateOnFridayWhenSetStartAndEndDateIsCalledWith1DayTaskThenEndOnMonday() {
-        Task task = new Task("1", "2,3", 1, 0.5, 1.5);
+        Task task = Task.of("1", "2,3", 1, 0.5, 1.5);
 
         task.setStartAndEndDate(LocalDateTime.of(2023, 10, 6, 0, 0));
 
@@ -27,7 +27,7 @@ public class TaskTest {
 
     @Test
     public void givenStartDateOnMondayWhenSetStartAndEndDateIsCalledWith7DaysTaskThenSkipWeekendAndEndOnWednesday() {
-        Task task = new Task("1", "2,3", 7, 0.5, 1.5);
+        Task task = Task.of("1", "2,3", 7, 0.5, 1.5);
 
         task.setStartAndEndDate(LocalDateTime.of(2023, 10, 2, 0, 0));
 
@@ -37,7 +37,7 @@ public class TaskTest {
 
     @Test
     public void givenStartDateOnMondayWhenSetStartAndEndDateIsCalledWith12DaysTaskThenSkipWeekendAndEndOnWednesday() {
-        Task task = new Task("1", "2,3", 10, 0.5, 1.5);
+        Task task = Task.of("1", "2,3", 10, 0.5, 1.5);
 
         task.setStartAndEndDate(LocalDateTime.of(2023, 10, 2, 0, 0));
 
@@ -46,4 +46,15 @@ public class TaskTest {
         Assertions.assertEquals(LocalDateTime.of(2023, 10, 16, 0, 0), task.getEnd());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void givenMinAndMaxDurationsWhenScenarioDatesAreSetThenEachScenarioUsesItsOwnDuration() {
+        Task task = Task.of("1", "2,3", 5, 1, 10);
+
+        task.setMinStartAndEndDate(LocalDateTime.of(2023, 10, 2, 0, 0));
+        task.setMaxStartAndEndDate(LocalDateTime.of(2023, 10, 2, 0, 0));
+
+        Assertions.assertEquals(LocalDateTime.of(2023, 10, 3, 0, 0), task.getMinEnd());
+        Assertions.assertEquals(LocalDateTime.of(2023, 10, 16, 0, 0), task.getMaxEnd());
+    }
+
+}
@@ -0,0 +1,139 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+public class TopologicalSchedulerTest {
+
+    private static final LocalDate START_DATE = LocalDate.of(2023, 10, 30);
+
+    @Test
+    public void givenChainOfTasksWhenScheduleIsCalledThenEachTaskStartsWhenItsDependencyEnds() {
+        Map<String, Task> taskMap = taskMap(
+                Task.of("1", "", 0),
+                Task.of("2", "1", 1),
+                Task.of("3", "2", 2));
+
+        new TopologicalScheduler().schedule(taskMap, START_DATE);
+
+        Assertions.assertEquals(LocalDateTime.of(2023, 10, 30, 0, 0), taskMap.get("2").getStart());
+        Assertions.assertEquals(LocalDateTime.of(2023, 10, 31, 0, 0), taskMap.get("3").getStart());
+        Assertions.assertEquals(LocalDateTime.of(2023, 11, 2, 0, 0), taskMap.get("3").getEnd());
+    }
+
+    @Test
+    public void givenTaskWithSeveralDependenciesWhenScheduleIsCalledThenItStartsAfterTheLatestOne() {
+        Map<String, Task> taskMap = taskMap(
+                Task.of("1", "", 0),
+                Task.of("2", "1", 3),
+                Task.of("3", "1", 1),
+                Task.of("4", "2, 3", 1));
+
+        new TopologicalScheduler().schedule(taskMap, START_DATE);
+
+        Assertions.assertEquals(LocalDateTime.of(2023, 11, 2, 0, 0), taskMap.get("4").getStart());
+    }
+
+    @Test
+    public void givenTaskDependingOnAllWhenScheduleIsCalledThenItStartsAfterEveryOtherTask() {
+        Map<String, Task> taskMap = taskMap(
+                Task.of("1", "", 0),
+                Task.of("2", "1", 3),
+                Task.of("3", "", 1),
+                Task.of("4", "all", 0));
+
+        new TopologicalScheduler().schedule(taskMap, START_DATE);
+
+        Assertions.assertEquals(LocalDateTime.of(2023, 11, 2, 0, 0), taskMap.get("4").getStart());
+    }
+
+    @Test
+    public void givenSeveralTasksDependingOnAllWhenScheduleIsCalledThenTheyAllStartAfterTheOtherTasks() {
+        Map<String, Task> taskMap = taskMap(
+                Task.of("1", "", 0),
+                Task.of("2", "1", 3),
+                Task.of("3", "all", 1),
+                Task.of("4", "all", 0));
+
+        new TopologicalScheduler().schedule(taskMap, START_DATE);
+
+        Assertions.assertEquals(LocalDateTime.of(2023, 11, 2, 0, 0), taskMap.get("3").getStart());
+        Assertions.assertEquals(LocalDateTime.of(2023, 11, 2, 0, 0), taskMap.get("4").getStart());
+    }
+
+    @Test
+    public void givenTaskDependingOnPrefixSelectorWhenScheduleIsCalledThenItStartsAfterTheMatchingTasks() {
+        Map<String, Task> taskMap = taskMap(
+                Task.of("1", "", 0),
+                Task.of("10", "1", 3),
+                Task.of("11", "1", 1),
+                Task.of("20", "1", 5),
+                Task.of("21", "1*", 0));
+
+        new TopologicalScheduler().schedule(taskMap, START_DATE);
+
+        Assertions.assertEquals(LocalDateTime.of(2023, 11, 2, 0, 0), taskMap.get("21").getStart());
+    }
+
+    @Test
+    public void givenCircularDependencyWhenScheduleIsCalledThenFailWithTheTasksOnTheCycle() {
+        Map<String, Task> taskMap = taskMap(
+                Task.of("1", "", 0),
+                Task.of("2", "1, 3", 1),
+                Task.of("3", "2", 1));
+
+        SchedulingException exception = Assertions.assertThrows(SchedulingException.class,
+                () -> new TopologicalScheduler().schedule(taskMap, START_DATE));
+
+        Assertions.assertEquals(List.of("2", "3"), exception.getTaskIds());
+    }
+
+    @Test
+    public void givenUnknownDependencyWhenScheduleIsCalledThenFailWithTheDependentTask() {
+        Map<String, Task> taskMap = taskMap(
+                Task.of("1", "", 0),
+                Task.of("2", "1, 42", 1));
+
+        SchedulingException exception = Assertions.assertThrows(SchedulingException.class,
+                () -> new TopologicalScheduler().schedule(taskMap, START_DATE));
+
+        Assertions.assertEquals(List.of("2"), exception.getTaskIds());
+    }
+
+    @Test
+    public void givenWideRandomPlanWhenScheduledInParallelThenDatesMatchTheSequentialSchedule() {
+        List<Task> sequential = randomPlan(5_000);
+        List<Task> parallel = randomPlan(5_000);
+
+        new TopologicalScheduler().schedule(TaskGraph.of(sequential), START_DATE);
+        new TopologicalScheduler(new ForkJoinPool(4), 0).schedule(TaskGraph.of(parallel), START_DATE);
+
+        Assertions.assertEquals(sequential, parallel);
+    }
+
+    private static List<Task> randomPlan(int size) {
+        Random random = new Random(42);
+        List<Task> tasks = new ArrayList<>();
+        tasks.add(Task.of("1", "", 0, 0, 0));
+        for (int i = 2; i <= size; i++) {
+            String dependencies = random.nextInt(10) == 0
+                    ? String.valueOf(1 + random.nextInt(i - 1)) + ", " + (1 + random.nextInt(i - 1))
+                    : "1";
+            double duration = random.nextInt(40) / 4.0;
+            tasks.add(Task.of(String.valueOf(i), dependencies, duration, duration / 2, duration * 2));
+        }
+        tasks.add(Task.of(String.valueOf(size + 1), "all", 0));
+        return tasks;
+    }
+
+    private static Map<String, Task> taskMap(Task... tasks) {
+        Map<String, Task> taskMap = new HashMap<>();
+        for (Task task : tasks) {
+            taskMap.put(task.getId(), task);
+        }
+        return taskMap;
+    }
+}
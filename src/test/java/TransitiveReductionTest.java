@@ -0,0 +1,150 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class TransitiveReductionTest {
+
+    @Test
+    public void givenDependenciesImpliedByOthersWhenReducedThenOnlyTheDirectOnesRemain() {
+        TaskGraph graph = TaskGraph.of(List.of(
+                Task.of("1", "", 1),
+                Task.of("6", "", 1),
+                Task.of("11", "", 1),
+                Task.of("12", "1", 1),
+                Task.of("13", "12", 1),
+                Task.of("14", "1, 6, 11, 12, 13", 1)));
+
+        TransitiveReduction reduction = TransitiveReduction.of(graph);
+
+        Assertions.assertEquals(2, reduction.getRemovedEdges());
+        TaskGraph reduced = reduction.reducedGraph(true);
+        Assertions.assertEquals("6, 11, 13", reduced.task(reduced.indexOf("14")).getDependencies());
+        Assertions.assertEquals(graph.edgeCount() - 2, reduced.edgeCount());
+        Assertions.assertEquals("1, 6, 11, 12, 13", reduction.reducedGraph(false).task(5).getDependencies());
+    }
+
+    @Test
+    public void givenRandomGraphWhenReducedInManyWindowsThenExactlyTheEdgesImpliedByAnotherPathAreRemoved() {
+        TaskGraph graph = TaskGraph.of(randomPlan(new Random(3), 600));
+        boolean[][] reachable = reachability(graph);
+
+        TransitiveReduction reduction = TransitiveReduction.of(graph, new ForkJoinPool(4), 600 * 8);
+
+        for (int node = 0; node < graph.size(); node++) {
+            for (int k = graph.predecessorStart(node); k < graph.predecessorEnd(node); k++) {
+                int predecessor = graph.predecessor(k);
+                boolean implied = false;
+                for (int other = graph.predecessorStart(node); other < graph.predecessorEnd(node); other++) {
+                    int path = graph.predecessor(other);
+                    implied |= path != predecessor ? reachable[predecessor][path] : other > k;
+                }
+                Assertions.assertEquals(implied, reduction.isRedundant(k), graph.id(predecessor) + " -> " + graph.id(node));
+            }
+        }
+        Assertions.assertTrue(reduction.getRemovedEdges() > 0);
+    }
+
+    @Test
+    public void givenReductionOptionWhenScheduledThenDatesAreUnchangedAndReducedDependenciesAreWritten() throws IOException {
+        String tasks = "Task,Dependencies,Duration\n"
+                + "1,,1\n"
+                + "2,1,2\n"
+                + "3,\"1, 2\",1\n"
+                + "4,\"all, 1\",1\n";
+        ScheduleOptions options = ScheduleOptions.of(LocalDate.of(2023, 10, 30));
+        options.setTransitiveReduction(true);
+        options.setReducedDependencies(true);
+
+        ScheduleResult expected = TaskScheduler.schedule(new StringReader(tasks), ScheduleOptions.of(LocalDate.of(2023, 10, 30)));
+        ScheduleResult reduced = TaskScheduler.schedule(new StringReader(tasks), options);
+
+        Assertions.assertEquals(4, reduced.getMetrics().getRemovedEdges());
+        Assertions.assertEquals("2", reduced.getTask("3").getDependencies());
+        Assertions.assertEquals("all", reduced.getTask("4").getDependencies());
+        for (String id : List.of("1", "2", "3", "4")) {
+            Assertions.assertEquals(expected.getTask(id).getEnd(), reduced.getTask(id).getEnd());
+        }
+    }
+
+    @Test
+    public void givenPathThroughTaskWithoutEstimatesWhenReducedThenMinAndMaxDatesAreUnchanged() throws IOException {
+        String tasks = "Task,Dependencies,Duration,Min,Max\n"
+                + "1,,1,1,10\n"
+                + "2,1,1\n"
+                + "3,\"1, 2\",1,1,1\n";
+        ScheduleOptions options = ScheduleOptions.of(LocalDate.of(2023, 10, 30));
+        options.setTransitiveReduction(true);
+
+        ScheduleResult expected = TaskScheduler.schedule(new StringReader(tasks), ScheduleOptions.of(LocalDate.of(2023, 10, 30)));
+        ScheduleResult reduced = TaskScheduler.schedule(new StringReader(tasks), options);
+
+        Assertions.assertEquals(0, reduced.getMetrics().getRemovedEdges());
+        Task task = reduced.getTask("3");
+        Assertions.assertEquals(LocalDate.of(2023, 11, 13), task.getMaxStart().toLocalDate());
+        Assertions.assertEquals(LocalDate.of(2023, 11, 14), task.getMaxEnd().toLocalDate());
+        Assertions.assertEquals(expected.getTask("3"), task);
+    }
+
+    @Test
+    public void givenRandomGraphWithSomeEstimatesWhenReducedThenEveryScenarioHasTheSameDates() {
+        Random random = new Random(11);
+        List<Task> tasks = new ArrayList<>();
+        for (Task task : randomPlan(random, 400)) {
+            double min = random.nextInt(3) == 0 ? -1 : random.nextInt(3);
+            double max = random.nextInt(3) == 0 ? -1 : 1 + random.nextInt(8);
+            tasks.add(task.withDurations(1 + random.nextInt(4), min, max));
+        }
+        TaskGraph graph = TaskGraph.of(tasks);
+
+        TransitiveReduction reduction = TransitiveReduction.of(graph, null, 400 * 8);
+        ScheduleStore expected = ScheduleStore.of(graph, WorkingCalendar.DEFAULT);
+        expected.schedule(LocalDate.of(2023, 10, 30));
+        ScheduleStore reduced = ScheduleStore.of(reduction.reducedGraph(false), WorkingCalendar.DEFAULT);
+        reduced.schedule(LocalDate.of(2023, 10, 30));
+
+        Assertions.assertTrue(reduction.getRemovedEdges() > 0);
+        for (int node = 0; node < graph.taskCount(); node++) {
+            for (Scenario scenario : Scenario.values()) {
+                Assertions.assertEquals(expected.startMinutes(scenario, node), reduced.startMinutes(scenario, node), graph.id(node));
+                Assertions.assertEquals(expected.endMinutes(scenario, node), reduced.endMinutes(scenario, node), graph.id(node));
+            }
+        }
+    }
+
+    private static boolean[][] reachability(TaskGraph graph) {
+        boolean[][] reachable = new boolean[graph.size()][graph.size()];
+        int[] order = graph.topologicalOrder();
+        for (int i = order.length - 1; i >= 0; i--) {
+            int node = order[i];
+            for (int k = graph.successorStart(node); k < graph.successorEnd(node); k++) {
+                int successor = graph.successor(k);
+                reachable[node][successor] = true;
+                for (int other = 0; other < graph.size(); other++) {
+                    reachable[node][other] |= reachable[successor][other];
+                }
+            }
+        }
+        return reachable;
+    }
+
+    private static List<Task> randomPlan(Random random, int size) {
+        List<Task> tasks = new ArrayList<>();
+        tasks.add(Task.of("1", "", 1));
+        for (int i = 2; i <= size; i++) {
+            StringBuilder dependencies = new StringBuilder();
+            for (int dependency = random.nextInt(5); dependency > 0; dependency--) {
+                dependencies.append(dependencies.length() > 0 ? ", " : "").append(1 + random.nextInt(i - 1));
+            }
+            tasks.add(Task.of(String.valueOf(i), dependencies.toString(), 1));
+        }
+        tasks.add(Task.of(String.valueOf(size + 1), "all", 1));
+        return tasks;
+    }
+}
@@ -0,0 +1,48 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+public class WorkingCalendarTest {
+
+    @Test
+    public void givenStartOnWednesdayWhenAdding25WorkingDaysThenEndFiveWeeksLater() {
+        LocalDateTime end = WorkingCalendar.DEFAULT.addWorkingDays(LocalDateTime.of(2023, 11, 15, 0, 0), 25);
+
+        Assertions.assertEquals(LocalDateTime.of(2023, 12, 20, 0, 0), end);
+    }
+
+    @Test
+    public void givenHalfDayTasksWhenChainedOverFridayThenSecondHalfEndsOnMonday() {
+        LocalDateTime middle = WorkingCalendar.DEFAULT.addWorkingDays(LocalDateTime.of(2023, 10, 6, 0, 0), 0.5);
+        LocalDateTime end = WorkingCalendar.DEFAULT.addWorkingDays(middle, 0.5);
+
+        Assertions.assertEquals(LocalDateTime.of(2023, 10, 6, 12, 0), middle);
+        Assertions.assertEquals(LocalDateTime.of(2023, 10, 9, 0, 0), end);
+    }
+
+    @Test
+    public void givenHolidayWhenAddingWorkingDaysThenHolidayIsSkipped() {
+        WorkingCalendar calendar = WorkingCalendar.of(EnumSet.of(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY),
+                List.of(LocalDate.of(2023, 12, 25), LocalDate.of(2023, 12, 26)));
+
+        LocalDateTime end = calendar.addWorkingDays(LocalDateTime.of(2023, 12, 22, 0, 0), 1);
+
+        Assertions.assertFalse(calendar.isWorkingDay(LocalDate.of(2023, 12, 25)));
+        Assertions.assertEquals(LocalDateTime.of(2023, 12, 27, 0, 0), end);
+    }
+
+    @Test
+    public void givenFridayAndSaturdayWeekendWhenStartingOnSaturdayThenWorkStartsOnSunday() {
+        WorkingCalendar calendar = WorkingCalendar.of(EnumSet.of(DayOfWeek.FRIDAY, DayOfWeek.SATURDAY), Set.of());
+
+        LocalDateTime end = calendar.addWorkingDays(LocalDateTime.of(2023, 10, 7, 0, 0), 1);
+
+        Assertions.assertEquals(LocalDateTime.of(2023, 10, 9, 0, 0), end);
+    }
+}